@@ -0,0 +1,81 @@
+package ch.uzh.ifi.seal.soprafs20.gameLogic;
+
+import ch.uzh.ifi.seal.soprafs20.GameLogic.NLP;
+import opennlp.tools.stemmer.PorterStemmer;
+import org.apache.commons.text.similarity.LevenshteinDistance;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validation of the clues of one round, as checkClues does it when the clue phase closes.
+ * The previous implementation is kept here as baseline: it compiled both patterns, stemmed clue and word
+ * and computed the full edit distance for every clue.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NLPBenchmark {
+
+    private static final String WORD = "Electricity";
+    private static final String[] CLUES = {"power", "current", "electric", "voltage", "Lightning", "energy",
+            "James Bond", "mus1c", "battery", "electricities", "socket", "007"};
+
+    private final NLP nlp = new NLP();
+    private final LegacyNLP legacyNLP = new LegacyNLP();
+
+    @Benchmark
+    public void legacyCheckClue(Blackhole blackhole) {
+        for (String clue : CLUES) {
+            blackhole.consume(legacyNLP.checkClue(clue, WORD));
+        }
+    }
+
+    @Benchmark
+    public void checkClue(Blackhole blackhole) {
+        for (String clue : CLUES) {
+            blackhole.consume(nlp.checkClue(clue, WORD));
+        }
+    }
+
+    @Benchmark
+    public void checkCluePreparedWord(Blackhole blackhole) {
+        NLP.CurrentWord word = nlp.prepare(WORD);
+        for (String clue : CLUES) {
+            blackhole.consume(nlp.checkClue(clue, word));
+        }
+    }
+
+    /**
+     * NLP.checkClue before the checks were reordered and memoized
+     */
+    static class LegacyNLP {
+        private final PorterStemmer stemmer = new PorterStemmer();
+        private final LevenshteinDistance editDistance = new LevenshteinDistance();
+
+        boolean checkClue(String clue, String word) {
+            String clueToLower = clue.toLowerCase();
+            String wordToLower = word.toLowerCase();
+            String clueStem = stemmer.stem(clueToLower);
+            String wordStem = stemmer.stem(wordToLower);
+            String clueWithoutFirst = clueToLower.substring(1);
+            String wordWithoutFirst = wordToLower.substring(1);
+
+            if(clueToLower.length() > 30) { return false; }
+
+            if(!(clue.matches("^[a-zA-Z]+$") || clue.matches("^[0-9]+$"))) { return false; }
+
+            if(clueToLower.contains(wordToLower) || wordToLower.contains(clueToLower)) { return false; }
+
+            if(clueStem.equals(wordStem)) {return false;}
+
+            if(editDistance.apply(clueWithoutFirst, wordWithoutFirst) <= 1) { return false; }
+
+            return !clueStem.contains(wordStem) && !wordStem.contains(clueStem);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package ch.uzh.ifi.seal.soprafs20.gameLogic;
+
+import ch.uzh.ifi.seal.soprafs20.GameLogic.Stemmer;
+import opennlp.tools.stemmer.PorterStemmer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stemming from several request threads at once. A PorterStemmer can not be shared without a lock, the alternatives are
+ * a new stemmer for every word or the per-thread stemmers of Stemmer, with and without its cache.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class StemmerBenchmark {
+
+    private static final String[] WORDS = {"electricity", "laughing", "relational", "mountains", "generalizations",
+            "ponies", "tool", "chocolate", "hopefully", "volcano"};
+
+    private final PorterStemmer sharedStemmer = new PorterStemmer();
+    private final Stemmer stemmer = new Stemmer(0);
+    private final Stemmer cachedStemmer = new Stemmer(4096);
+
+    @Benchmark
+    public void lockedPorterStemmer(Blackhole blackhole) {
+        for (String word : WORDS) {
+            synchronized (sharedStemmer) {
+                blackhole.consume(sharedStemmer.stem(word));
+            }
+        }
+    }
+
+    @Benchmark
+    public void newPorterStemmer(Blackhole blackhole) {
+        for (String word : WORDS) {
+            blackhole.consume(new PorterStemmer().stem(word));
+        }
+    }
+
+    @Benchmark
+    public void threadLocalStemmer(Blackhole blackhole) {
+        for (String word : WORDS) {
+            blackhole.consume(stemmer.stem(word));
+        }
+    }
+
+    @Benchmark
+    public void cachedStemmer(Blackhole blackhole) {
+        for (String word : WORDS) {
+            blackhole.consume(cachedStemmer.stem(word));
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package ch.uzh.ifi.seal.soprafs20.gameLogic;
+
+import ch.uzh.ifi.seal.soprafs20.GameLogic.WordDictionary;
+import ch.uzh.ifi.seal.soprafs20.GameLogic.WordReader;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.ClassPathResource;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading the words of the game and drawing the 13 words of a game.
+ * createGame used to read the words for every new game, now it draws them from the word dictionary built at startup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WordReaderBenchmark {
+
+    private final WordReader reader = new WordReader();
+    private final WordDictionary wordDictionary = new WordDictionary(new ClassPathResource("words.txt"));
+
+    @Benchmark
+    public WordReader construct() {
+        return new WordReader();
+    }
+
+    @Benchmark
+    public List<String> getRandomWords() {
+        return reader.getRandomWords(13);
+    }
+
+    @Benchmark
+    public List<String> sample() {
+        return wordDictionary.sample(13);
+    }
+}
@@ -0,0 +1,84 @@
+package ch.uzh.ifi.seal.soprafs20.repository;
+
+import ch.uzh.ifi.seal.soprafs20.Application;
+import ch.uzh.ifi.seal.soprafs20.entity.User;
+import ch.uzh.ifi.seal.soprafs20.rest.dto.UserGetDTO;
+import ch.uzh.ifi.seal.soprafs20.rest.mapper.DTOMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listing of all users, as GET /users does it.
+ * The previous implementation loaded every user entity and mapped it to a UserGetDTO, the projection query selects
+ * only the columns of the DTO and a keyset page only reads the users after the last one the client received.
+ * Run with -prof gc to compare the memory allocated per listing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserListingBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"100000"})
+    private int users;
+
+    private ConfigurableApplicationContext context;
+    private UserRepository userRepository;
+    private long middleId;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(Application.class).web(WebApplicationType.NONE).run();
+        userRepository = context.getBean(UserRepository.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        // enums are stored by their ordinal
+        List<Object[]> rows = new ArrayList<>(users);
+        Date creationDate = Date.valueOf(LocalDate.of(2020, 5, 1));
+        for (int i = 0; i < users; i++) {
+            rows.add(new Object[]{i + 1L, "user" + i, 1, "password", creationDate, i % 7, i % 1000});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO USER (ID, USERNAME, STATUS, PASSWORD, CREATION_DATE, AVATAR_COLOR, SCORE) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?)", rows);
+        middleId = users / 2;
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<UserGetDTO> legacyFindAll() {
+        List<User> all = userRepository.findAll();
+        List<UserGetDTO> userGetDTOs = new ArrayList<>(all.size());
+        for (User user : all) {
+            userGetDTOs.add(DTOMapper.INSTANCE.convertEntityToUserGetDTO(user));
+        }
+        return userGetDTOs;
+    }
+
+    @Benchmark
+    public List<UserGetDTO> projectionAll() {
+        return userRepository.findUsersAfter(Long.MIN_VALUE, PageRequest.of(0, Integer.MAX_VALUE));
+    }
+
+    @Benchmark
+    public List<UserGetDTO> keysetPage() {
+        return userRepository.findUsersAfter(middleId, PageRequest.of(0, PAGE_SIZE));
+    }
+}
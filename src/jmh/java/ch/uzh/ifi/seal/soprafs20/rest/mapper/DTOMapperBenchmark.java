@@ -0,0 +1,56 @@
+package ch.uzh.ifi.seal.soprafs20.rest.mapper;
+
+import ch.uzh.ifi.seal.soprafs20.GameLogic.GameState;
+import ch.uzh.ifi.seal.soprafs20.entity.Clue;
+import ch.uzh.ifi.seal.soprafs20.entity.Game;
+import ch.uzh.ifi.seal.soprafs20.entity.Player;
+import ch.uzh.ifi.seal.soprafs20.rest.dto.GameGetDTO;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping a game with seven players and their clues to the DTO that is rendered for every game request and event
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DTOMapperBenchmark {
+
+    private Game game;
+
+    @Setup
+    public void setUp() {
+        game = new Game();
+        game.setLobbyId(1L);
+        game.setLobbyName("benchmark");
+        game.setGameState(GameState.ENTER_GUESS_STATE);
+        game.setRoundsPlayed(4);
+        game.setCurrentWord("electricity");
+        for (int i = 0; i < 7; i++) {
+            Player player = new Player();
+            player.setId((long) i + 1);
+            player.setToken("token" + i);
+            player.setUsername("player" + i);
+            player.setScore(40 * i);
+            game.addPlayer(player);
+            if (i == 0) {
+                game.setCurrentGuesser(player);
+                continue;
+            }
+            Clue clue = new Clue();
+            clue.setPlayerId(player.getId());
+            clue.setActualClue("clue" + i);
+            player.addClue(clue);
+            game.addClue(clue);
+        }
+    }
+
+    @Benchmark
+    public GameGetDTO convertEntityToGameGetDTO() {
+        return DTOMapper.INSTANCE.convertEntityToGameGetDTO(game);
+    }
+}
@@ -0,0 +1,102 @@
+package ch.uzh.ifi.seal.soprafs20.service;
+
+import ch.uzh.ifi.seal.soprafs20.Application;
+import ch.uzh.ifi.seal.soprafs20.entity.Lobby;
+import ch.uzh.ifi.seal.soprafs20.entity.Message;
+import ch.uzh.ifi.seal.soprafs20.entity.Player;
+import ch.uzh.ifi.seal.soprafs20.repository.MessageRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sending chat messages in 1000 lobbies of seven players, one benchmark thread per player of a lobby.
+ * The previous implementation inserted and flushed every message in its own transaction, the message service now
+ * queues the message and writes it behind in JDBC batches. The background flush shares the database with the senders.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(7)
+@State(Scope.Benchmark)
+public class ChatThroughputBenchmark {
+
+    private static final int PLAYERS = 7;
+
+    @Param({"1000"})
+    private int lobbies;
+
+    private ConfigurableApplicationContext context;
+    private ChatService chatService;
+    private MessageService messageService;
+    private MessageRepository messageRepository;
+    private TransactionTemplate transactionTemplate;
+    private Lobby[] lobbiesById;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(Application.class).web(WebApplicationType.NONE).run();
+        chatService = context.getBean(ChatService.class);
+        messageService = context.getBean(MessageService.class);
+        messageRepository = context.getBean(MessageRepository.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        lobbiesById = new Lobby[lobbies];
+        for (int i = 0; i < lobbies; i++) {
+            Lobby lobby = new Lobby();
+            lobby.setLobbyId(i + 1L);
+            for (int j = 0; j < PLAYERS; j++) {
+                Player player = new Player();
+                player.setId((long) i * PLAYERS + j + 1);
+                player.setUsername("player" + player.getId());
+                player.setToken("token" + player.getId());
+                lobby.addPlayerToLobby(player);
+            }
+            lobbiesById[i] = lobby;
+            chatService.createChat(lobby.getLobbyId());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        messageService.flush();
+        context.close();
+    }
+
+    @Benchmark
+    public Message legacySaveAndFlush() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Lobby lobby = lobbiesById[random.nextInt(lobbies)];
+        long authorId = (lobby.getLobbyId() - 1) * PLAYERS + random.nextInt(PLAYERS) + 1;
+        Message message = newMessage(authorId);
+        message.setAuthorUsername("player" + authorId);
+        message.setLobbyId(lobby.getLobbyId());
+        message.setCreationDate();
+        return transactionTemplate.execute(status -> messageRepository.saveAndFlush(message));
+    }
+
+    @Benchmark
+    public Message writeBehind() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Lobby lobby = lobbiesById[random.nextInt(lobbies)];
+        long authorId = (lobby.getLobbyId() - 1) * PLAYERS + random.nextInt(PLAYERS) + 1;
+        Message message = newMessage(authorId);
+        chatService.addChatMessage(lobby, "token" + authorId, message);
+        return message;
+    }
+
+    private static Message newMessage(long authorId) {
+        Message message = new Message();
+        message.setAuthorId(authorId);
+        message.setText("Is it a kind of fruit?");
+        return message;
+    }
+}
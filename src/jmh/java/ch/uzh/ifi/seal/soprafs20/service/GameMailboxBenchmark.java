@@ -0,0 +1,87 @@
+package ch.uzh.ifi.seal.soprafs20.service;
+
+import ch.uzh.ifi.seal.soprafs20.GameLogic.NLP;
+import ch.uzh.ifi.seal.soprafs20.entity.Clue;
+import ch.uzh.ifi.seal.soprafs20.entity.Game;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Throughput of game commands sent by many request threads at once.
+ * Commands of different lobbies run on their own mailboxes, the global lock stands for a single point of coordination
+ * shared by all lobbies. The command validates and adds a clue, like sendClue does.
+ * The mailbox only pays off with more than one core, since every command is handed over to a pool thread.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class GameMailboxBenchmark {
+
+    @Param({"1", "8", "64"})
+    private int lobbies;
+
+    private final AtomicInteger nextLobby = new AtomicInteger();
+    private final Object globalLock = new Object();
+    private final NLP nlp = new NLP();
+    private GameMailbox gameMailbox;
+    private Game[] games;
+
+    @Setup
+    public void setUp() {
+        gameMailbox = new GameMailbox(0);
+        games = new Game[lobbies];
+        for (int i = 0; i < lobbies; i++) {
+            games[i] = new Game();
+            games[i].setLobbyId((long) i);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        gameMailbox.shutdown();
+    }
+
+    @State(Scope.Thread)
+    public static class Request {
+        int lobby;
+
+        @Setup
+        public void setUp(GameMailboxBenchmark benchmark) {
+            lobby = benchmark.nextLobby.getAndIncrement() % benchmark.lobbies;
+        }
+    }
+
+    @Benchmark
+    public int mailbox(Request request) {
+        Game game = games[request.lobby];
+        return gameMailbox.call(game.getLobbyId(), () -> sendClue(game));
+    }
+
+    @Benchmark
+    public int globalLock(Request request) {
+        Game game = games[request.lobby];
+        synchronized (globalLock) {
+            return sendClue(game);
+        }
+    }
+
+    private int sendClue(Game game) {
+        Clue clue = new Clue();
+        clue.setPlayerId(1L);
+        clue.setActualClue("Instrument");
+        if (nlp.checkClue(clue.getActualClue(), "tool")) {
+            game.addClue(clue);
+        }
+        if (game.getEnteredClues().size() > 16) {
+            game.getEnteredClues().clear();
+        }
+        game.setOverallScore(game.getOverallScore() + 1);
+        return game.getOverallScore();
+    }
+}
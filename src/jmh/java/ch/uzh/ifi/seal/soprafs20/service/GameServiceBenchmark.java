@@ -0,0 +1,108 @@
+package ch.uzh.ifi.seal.soprafs20.service;
+
+import ch.uzh.ifi.seal.soprafs20.GameLogic.GameState;
+import ch.uzh.ifi.seal.soprafs20.entity.Clue;
+import ch.uzh.ifi.seal.soprafs20.entity.Game;
+import ch.uzh.ifi.seal.soprafs20.entity.Player;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closing the vote and the guess phase of a round with seven players, one bot and a few duplicate and invalid clues.
+ * The game service runs without database, the game is held by the game state store only.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GameServiceBenchmark {
+
+    private static final String[] CLUES = {"power", "current", "voltage", "current", "energy", "socket", "battery"};
+    private static final int PLAYERS = 7;
+
+    private GameMailbox gameMailbox;
+    private GameStateStore gameStateStore;
+    private GameService gameService;
+    private Game game;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        GameView gameView = new GameView(objectMapper);
+        gameMailbox = new GameMailbox(1);
+        // nothing is written, the periodic flush does not run during the benchmark
+        gameStateStore = new GameStateStore(null, gameMailbox, null, TimeUnit.HOURS.toMillis(1));
+        GameStream gameStream = new GameStream(gameMailbox, gameView, objectMapper, 1000);
+        gameService = new GameService(null, null, null, null, null, new GameClock(1), gameStateStore, gameMailbox,
+                gameStream, gameView, null, null, null, null);
+    }
+
+    /**
+     * checkVotes removes the voted out clues, so every invocation gets a fresh round
+     */
+    @Setup(Level.Invocation)
+    public void newRound() {
+        game = createGame();
+        gameStateStore.put(game);
+    }
+
+    @TearDown
+    public void tearDown() {
+        gameStateStore.remove(game.getLobbyId());
+        gameMailbox.shutdown();
+    }
+
+    @Benchmark
+    public Game checkVotes() {
+        gameService.checkVotes(game, (int) Math.ceil((PLAYERS - 1) / 2.0));
+        return game;
+    }
+
+    @Benchmark
+    public Game updateScores() {
+        gameService.updateScores(game);
+        return game;
+    }
+
+    static Game createGame() {
+        Game game = new Game();
+        game.setLobbyId(1L);
+        game.setGameState(GameState.VOTE_ON_CLUES_STATE);
+        game.setRoundsPlayed(1);
+        game.setCurrentWord("electricity");
+        game.setGuessCorrect(true);
+        for (int i = 0; i < PLAYERS; i++) {
+            Player player = new Player();
+            player.setId((long) i + 1);
+            player.setToken("token" + i);
+            player.setUsername("player" + i);
+            game.addPlayer(player);
+            if (i == 0) {
+                game.setCurrentGuesser(player);
+                continue;
+            }
+            Clue clue = new Clue();
+            clue.setPlayerId(player.getId());
+            clue.setActualClue(CLUES[i]);
+            clue.setTimeNeeded(20L - i);
+            player.addClue(clue);
+            game.addClue(clue);
+            player.setClueIsSent(true);
+        }
+        Clue botClue = new Clue();
+        botClue.setPlayerId(0L);
+        botClue.setActualClue("lightning");
+        game.getEnteredClues().add(botClue);
+        // every player votes out the same two clues
+        for (int i = 1; i < PLAYERS; i++) {
+            for (String invalid : new String[]{"socket", "battery"}) {
+                game.getVoteTally().vote(i, invalid);
+            }
+        }
+        return game;
+    }
+}
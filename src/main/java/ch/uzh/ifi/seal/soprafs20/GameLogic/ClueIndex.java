@@ -0,0 +1,69 @@
+package ch.uzh.ifi.seal.soprafs20.GameLogic;
+
+import ch.uzh.ifi.seal.soprafs20.entity.Clue;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Clue Index
+ * Indexes the clues of one round by their stem in lower case, so a clue and its plural or another variant with the
+ * same stem are found in constant time when they are sent. According to the rules of Just One, all of them are
+ * cancelled. The index only lives as long as the round.
+ */
+public class ClueIndex {
+
+    private static final Stemmer STEMMER = Stemmer.shared();
+
+    // first clue sent for each key
+    private final Map<String, Clue> clues = new HashMap<>();
+    private final Set<String> cancelledKeys = new HashSet<>();
+    // clues in lower case that are listed as invalid already
+    private final Set<String> invalidClues = new HashSet<>();
+
+    /**
+     * Adds a clue to the index
+     *
+     * @return the clue sent before with the same key, or null if the clue is the first one with its key
+     */
+    public Clue add(Clue clue) {
+        return clues.putIfAbsent(key(clue.getActualClue()), clue);
+    }
+
+    public boolean contains(String clue) {
+        return clues.containsKey(key(clue));
+    }
+
+    /**
+     * Marks the key of the clue as cancelled
+     *
+     * @return true if the clues with this key were not cancelled before
+     */
+    public boolean cancel(Clue clue) {
+        return cancelledKeys.add(key(clue.getActualClue()));
+    }
+
+    /**
+     * @return true if the clue is not listed as invalid yet, from now on it is
+     */
+    public boolean listInvalid(Clue clue) {
+        return invalidClues.add(clue.getActualClue().toLowerCase(Locale.ROOT));
+    }
+
+    public boolean isEmpty() {
+        return clues.isEmpty();
+    }
+
+    public void clear() {
+        clues.clear();
+        cancelledKeys.clear();
+        invalidClues.clear();
+    }
+
+    public static String key(String clue) {
+        return STEMMER.stem(clue.trim().toLowerCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,210 @@
+package ch.uzh.ifi.seal.soprafs20.GameLogic;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.SplittableRandom;
+
+/**
+ * Leaderboard
+ * Ranks entries by their score, highest first, entries with the same score by their id.
+ * The entries are kept in a treap, a binary search tree balanced by random priorities, whose nodes know the size of
+ * their subtree. Updating the score of an entry and finding the rank of an entry take O(log n),
+ * a page of k entries is returned in O(log n + k).
+ * All methods are synchronized, so the leaderboard can be shared by the requests and the games.
+ *
+ * @param <V> the value shown for an entry, e.g. the user it belongs to
+ */
+public class Leaderboard<V> {
+
+    private final Map<Long, Node<V>> nodes = new HashMap<>();
+    private final SplittableRandom random = new SplittableRandom();
+    private Node<V> root;
+
+    /**
+     * Adds an entry or replaces the entry with the same id
+     */
+    public synchronized void put(Long id, int score, V value) {
+        Node<V> previous = nodes.remove(id);
+        if (previous != null) {
+            root = remove(root, previous.entry);
+        }
+        Node<V> node = new Node<>(new Entry<>(id, score, value), random.nextInt());
+        nodes.put(id, node);
+        Node<V>[] split = split(root, node.entry, false);
+        root = merge(merge(split[0], node), split[1]);
+    }
+
+    public synchronized Optional<Entry<V>> get(Long id) {
+        Node<V> node = nodes.get(id);
+        return node == null ? Optional.empty() : Optional.of(node.entry);
+    }
+
+    public synchronized boolean remove(Long id) {
+        Node<V> node = nodes.remove(id);
+        if (node == null) {
+            return false;
+        }
+        root = remove(root, node.entry);
+        return true;
+    }
+
+    /**
+     * @return the rank of the entry with the given id, starting at 1, or empty if there is no such entry
+     */
+    public synchronized OptionalInt rank(Long id) {
+        Node<V> node = nodes.get(id);
+        if (node == null) {
+            return OptionalInt.empty();
+        }
+        int rank = 0;
+        Node<V> current = root;
+        while (current != null) {
+            int comparison = compare(node.entry, current.entry);
+            if (comparison < 0) {
+                current = current.left;
+            }
+            else {
+                rank += size(current.left) + 1;
+                if (comparison == 0) {
+                    break;
+                }
+                current = current.right;
+            }
+        }
+        return OptionalInt.of(rank);
+    }
+
+    /**
+     * @param offset number of entries to skip
+     * @param limit maximum number of entries returned
+     * @return the entries ranked offset + 1 to offset + limit
+     */
+    public synchronized List<Entry<V>> page(int offset, int limit) {
+        List<Entry<V>> page = new ArrayList<>(Math.max(0, Math.min(limit, size(root) - offset)));
+        collect(root, offset, limit, page);
+        return page;
+    }
+
+    public synchronized int size() {
+        return size(root);
+    }
+
+    public synchronized void clear() {
+        nodes.clear();
+        root = null;
+    }
+
+    private void collect(Node<V> node, int offset, int limit, List<Entry<V>> page) {
+        if (node == null || page.size() >= limit) {
+            return;
+        }
+        int leftSize = size(node.left);
+        if (offset < leftSize) {
+            collect(node.left, offset, limit, page);
+        }
+        if (offset <= leftSize && page.size() < limit) {
+            page.add(node.entry);
+        }
+        collect(node.right, Math.max(0, offset - leftSize - 1), limit, page);
+    }
+
+    private Node<V> remove(Node<V> tree, Entry<V> entry) {
+        Node<V>[] lower = split(tree, entry, false);
+        Node<V>[] upper = split(lower[1], entry, true);
+        return merge(lower[0], upper[1]);
+    }
+
+    /**
+     * Splits the tree into the entries ranked before the given entry and the remaining ones.
+     * If inclusive, the entry itself belongs to the first tree.
+     */
+    @SuppressWarnings("unchecked")
+    private Node<V>[] split(Node<V> tree, Entry<V> entry, boolean inclusive) {
+        if (tree == null) {
+            return (Node<V>[]) new Node<?>[]{null, null};
+        }
+        int comparison = compare(tree.entry, entry);
+        if (comparison < 0 || (inclusive && comparison == 0)) {
+            Node<V>[] split = split(tree.right, entry, inclusive);
+            tree.right = split[0];
+            tree.update();
+            split[0] = tree;
+            return split;
+        }
+        Node<V>[] split = split(tree.left, entry, inclusive);
+        tree.left = split[1];
+        tree.update();
+        split[1] = tree;
+        return split;
+    }
+
+    private Node<V> merge(Node<V> first, Node<V> second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        if (first.priority > second.priority) {
+            first.right = merge(first.right, second);
+            first.update();
+            return first;
+        }
+        second.left = merge(first, second.left);
+        second.update();
+        return second;
+    }
+
+    private static int compare(Entry<?> first, Entry<?> second) {
+        if (first.score != second.score) {
+            return Integer.compare(second.score, first.score);
+        }
+        return first.id.compareTo(second.id);
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * Entry of the leaderboard, a new entry is put whenever the score changes
+     */
+    public static final class Entry<V> {
+        private final Long id;
+        private final int score;
+        private final V value;
+
+        Entry(Long id, int score, V value) {
+            this.id = id;
+            this.score = score;
+            this.value = value;
+        }
+
+        public Long getId() { return id; }
+
+        public int getScore() { return score; }
+
+        public V getValue() { return value; }
+    }
+
+    private static final class Node<V> {
+        private final Entry<V> entry;
+        private final int priority;
+        private int size = 1;
+        private Node<V> left;
+        private Node<V> right;
+
+        Node(Entry<V> entry, int priority) {
+            this.entry = entry;
+            this.priority = priority;
+        }
+
+        void update() {
+            size = 1 + size(left) + size(right);
+        }
+    }
+}
@@ -1,32 +1,48 @@
 package ch.uzh.ifi.seal.soprafs20.GameLogic;
 
 
-import opennlp.tools.stemmer.PorterStemmer;
 import org.apache.commons.text.similarity.LevenshteinDistance;
 
+import java.util.regex.Pattern;
+
 public class NLP {
-    private final PorterStemmer stemmer = new PorterStemmer();
+    private static final int MAX_CLUE_LENGTH = 30;
+    private static final Pattern LETTERS = Pattern.compile("[a-zA-Z]+");
+    private static final Pattern DIGITS = Pattern.compile("[0-9]+");
+
+    private final Stemmer stemmer = Stemmer.shared();
     private final LevenshteinDistance editDistance = new LevenshteinDistance();
 
     public boolean checkClue(String clue, String word) {
-        String clueToLower = clue.toLowerCase();
-        String wordToLower = word.toLowerCase();
-        String clueStem = stemWord(clueToLower);
-        String wordStem = stemWord(wordToLower);
-        String clueWithoutFirst = clueToLower.substring(1);
-        String wordWithoutFirst = wordToLower.substring(1);
+        return checkClue(clue, prepare(word));
+    }
 
-        if(clueToLower.length() > 30) { return false; }
+    /**
+     * Checks a clue against a word prepared with {@link #prepare(String)}.
+     * The cheap checks come first, the clue is only stemmed if all of them pass.
+     */
+    public boolean checkClue(String clue, CurrentWord word) {
+        if(clue.isEmpty() || clue.length() > MAX_CLUE_LENGTH) { return false; }
 
-        if(!(clue.matches("^[a-zA-Z]+$") || clue.matches("^[0-9]+$"))) { return false; }
+        if(!(LETTERS.matcher(clue).matches() || DIGITS.matcher(clue).matches())) { return false; }
 
-        if(clueToLower.contains(wordToLower) || wordToLower.contains(clueToLower)) { return false; }
+        String clueToLower = clue.toLowerCase();
+        if(clueToLower.contains(word.toLower) || word.toLower.contains(clueToLower)) { return false; }
 
-        if(clueStem.equals(wordStem)) {return false;}
+        // the first letter is ignored, so e.g. a clue differing only in its first letter is rejected as well
+        if(isWithinOneEdit(clueToLower, word.toLower, 1)) { return false; }
 
-        if(getDistance(clueWithoutFirst, wordWithoutFirst) <= 1) { return false; }
+        // equal stems contain each other
+        String clueStem = stemWord(clueToLower);
+        return !clueStem.contains(word.stem) && !word.stem.contains(clueStem);
+    }
 
-        return !clueStem.contains(wordStem) && !wordStem.contains(clueStem);
+    /**
+     * Normalizes and stems the current word of a game, so it is done once per round instead of once per clue
+     */
+    public CurrentWord prepare(String word) {
+        String wordToLower = word.toLowerCase();
+        return new CurrentWord(wordToLower, stemWord(wordToLower));
     }
 
     public String stemWord(String word) {
@@ -34,4 +50,47 @@ public class NLP {
     }
 
     public int getDistance(String clue, String word) { return editDistance.apply(clue, word); }
+
+    /**
+     * Returns true if the two strings, starting at the given index, have an edit distance of at most one.
+     * Stops at the second difference instead of computing the whole distance.
+     */
+    public static boolean isWithinOneEdit(String first, String second, int from) {
+        int firstLength = first.length();
+        int secondLength = second.length();
+        if(Math.abs(firstLength - secondLength) > 1) { return false; }
+        int i = Math.min(from, firstLength);
+        int j = Math.min(from, secondLength);
+        boolean edited = false;
+        while(i < firstLength && j < secondLength) {
+            if(first.charAt(i) != second.charAt(j)) {
+                if(edited) { return false; }
+                edited = true;
+                // skip the additional character of the longer string, or the substituted character of both
+                if(firstLength > secondLength) { i++; continue; }
+                if(secondLength > firstLength) { j++; continue; }
+            }
+            i++;
+            j++;
+        }
+        // a remaining character at the end is one more edit
+        return !edited || (i == firstLength && j == secondLength);
+    }
+
+    /**
+     * Current word of a game in lower case, together with its stem
+     */
+    public static class CurrentWord {
+        private final String toLower;
+        private final String stem;
+
+        CurrentWord(String toLower, String stem) {
+            this.toLower = toLower;
+            this.stem = stem;
+        }
+
+        public String getWord() { return toLower; }
+
+        public String getStem() { return stem; }
+    }
 }
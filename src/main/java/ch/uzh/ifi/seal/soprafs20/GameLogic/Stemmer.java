@@ -0,0 +1,70 @@
+package ch.uzh.ifi.seal.soprafs20.GameLogic;
+
+import opennlp.tools.stemmer.PorterStemmer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stemmer
+ * Porter stemming that can be used by any number of threads at once without locking.
+ * The PorterStemmer of OpenNLP keeps the word it stems in fields of its own, so every thread uses a stemmer
+ * and a char buffer of its own. The word is copied into the buffer instead of creating a char array for every word,
+ * and a word that is its own stem is returned as it is. On top, the stems of the first cacheSize distinct words are
+ * cached and never evicted, so the cache needs no locking.
+ */
+public final class Stemmer {
+
+    private static final int CACHE_SIZE = 4096;
+    private static final Stemmer SHARED = new Stemmer(CACHE_SIZE);
+
+    private final int cacheSize;
+    // stems of the first words seen are kept, which are mostly the words of the game and common clues
+    private final Map<String, String> stems = new ConcurrentHashMap<>();
+    private final ThreadLocal<Buffer> buffers = ThreadLocal.withInitial(Buffer::new);
+
+    /**
+     * @param cacheSize number of stems that are cached, 0 disables the cache
+     */
+    public Stemmer(int cacheSize) {
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * @return the stemmer shared by the whole application
+     */
+    public static Stemmer shared() {
+        return SHARED;
+    }
+
+    public String stem(String word) {
+        String stem = stems.get(word);
+        if (stem == null) {
+            stem = buffers.get().stem(word);
+            if (stems.size() < cacheSize) {
+                stems.put(word, stem);
+            }
+        }
+        return stem;
+    }
+
+    /**
+     * Stemmer and char buffer of one thread
+     */
+    private static class Buffer {
+        private final PorterStemmer stemmer = new PorterStemmer();
+        private char[] chars = new char[32];
+
+        String stem(String word) {
+            int length = word.length();
+            if (chars.length < length) {
+                chars = new char[Math.max(length, chars.length * 2)];
+            }
+            word.getChars(0, length, chars, 0);
+            if (!stemmer.stem(chars, length)) {
+                return word;
+            }
+            return new String(stemmer.getResultBuffer(), 0, stemmer.getResultLength());
+        }
+    }
+}
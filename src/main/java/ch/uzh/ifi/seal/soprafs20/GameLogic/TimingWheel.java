@@ -0,0 +1,129 @@
+package ch.uzh.ifi.seal.soprafs20.GameLogic;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Timing Wheel
+ * Expires keys once their deadline is reached, e.g. sessions that did not send a heartbeat for a while.
+ * Time is counted in ticks. The wheel has one slot per tick and a key is kept in the slot of its deadline,
+ * so scheduling a key and advancing the wheel by one tick only touch one slot, independent of the number of keys.
+ * Moving the deadline of a key back only updates its deadline: the key is moved to its new slot when its old slot
+ * is reached, which keeps frequent heartbeats cheap.
+ *
+ * @param <K> the type of the keys
+ */
+public class TimingWheel<K> {
+
+    private final List<Set<K>> slots;
+    private final Map<K, Long> deadlines = new HashMap<>();
+    // tick of the slot each key is kept in, it lags behind the deadline until the key is moved
+    private final Map<K, Long> slotTicks = new HashMap<>();
+    private long currentTick;
+
+    /**
+     * @param size number of slots, deadlines further ahead take more than one turn of the wheel
+     * @param startTick tick the wheel starts at
+     */
+    public TimingWheel(int size, long startTick) {
+        if (size < 1) {
+            throw new IllegalArgumentException("The wheel needs at least one slot");
+        }
+        slots = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            slots.add(new HashSet<>());
+        }
+        currentTick = startTick;
+    }
+
+    /**
+     * Schedules a key to expire at the given tick, replacing its previous deadline.
+     * A deadline that is already reached expires with the next tick.
+     *
+     * @return true if the key was not scheduled before
+     */
+    public boolean schedule(K key, long deadline) {
+        long tick = Math.max(deadline, currentTick + 1);
+        Long previous = deadlines.put(key, tick);
+        if (previous == null) {
+            slot(tick).add(key);
+            slotTicks.put(key, tick);
+            return true;
+        }
+        long slotTick = slotTicks.get(key);
+        if (tick < slotTick) {
+            slot(slotTick).remove(key);
+            slot(tick).add(key);
+            slotTicks.put(key, tick);
+        }
+        return false;
+    }
+
+    /**
+     * @return true if the key was scheduled
+     */
+    public boolean cancel(K key) {
+        Long deadline = deadlines.remove(key);
+        if (deadline == null) {
+            return false;
+        }
+        slot(slotTicks.remove(key)).remove(key);
+        return true;
+    }
+
+    public boolean contains(K key) {
+        return deadlines.containsKey(key);
+    }
+
+    public int size() {
+        return deadlines.size();
+    }
+
+    /**
+     * Advances the wheel to the given tick and removes the keys whose deadline was reached
+     *
+     * @return the expired keys
+     */
+    public List<K> advance(long tick) {
+        List<K> expired = new ArrayList<>();
+        if (tick <= currentTick) {
+            return expired;
+        }
+        // every slot is visited at most once, even if the wheel was not advanced for more than one turn
+        long from = Math.max(currentTick + 1, tick - slots.size() + 1);
+        currentTick = tick;
+        for (long t = from; t <= tick; t++) {
+            Set<K> slot = slot(t);
+            Iterator<K> keys = slot.iterator();
+            while (keys.hasNext()) {
+                K key = keys.next();
+                Long deadline = deadlines.get(key);
+                if (deadline == null) {
+                    // not expected, but a stray key must not stop the wheel
+                    keys.remove();
+                }
+                else if (deadline <= tick) {
+                    keys.remove();
+                    deadlines.remove(key);
+                    slotTicks.remove(key);
+                    expired.add(key);
+                }
+                else if (slot(deadline) != slot) {
+                    keys.remove();
+                    slot(deadline).add(key);
+                    slotTicks.put(key, deadline);
+                }
+            }
+        }
+        return expired;
+    }
+
+    private Set<K> slot(long tick) {
+        return slots.get((int) Math.floorMod(tick, (long) slots.size()));
+    }
+}
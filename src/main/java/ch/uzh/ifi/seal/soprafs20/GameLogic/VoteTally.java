@@ -0,0 +1,45 @@
+package ch.uzh.ifi.seal.soprafs20.GameLogic;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Vote Tally
+ * Counts the votes against the clues of one round. Every clue, normalized to lower case, is mapped to the set of
+ * players who voted it out, with a player identified by its position in the game. A vote is counted in constant time
+ * and a player voting for the same clue twice is counted once. The votes only live as long as the round.
+ */
+public class VoteTally {
+
+    private final Map<String, BitSet> votes = new HashMap<>();
+
+    /**
+     * @param voter position of the voting player in the players of the game
+     * @param clue the clue the player votes out
+     */
+    public void vote(int voter, String clue) {
+        votes.computeIfAbsent(normalize(clue), key -> new BitSet()).set(voter);
+    }
+
+    /**
+     * @return the number of players who voted out the clue
+     */
+    public int count(String clue) {
+        BitSet voters = votes.get(normalize(clue));
+        return voters == null ? 0 : voters.cardinality();
+    }
+
+    public boolean isEmpty() {
+        return votes.isEmpty();
+    }
+
+    public void clear() {
+        votes.clear();
+    }
+
+    public static String normalize(String clue) {
+        return clue.trim().toLowerCase(Locale.ROOT);
+    }
+}
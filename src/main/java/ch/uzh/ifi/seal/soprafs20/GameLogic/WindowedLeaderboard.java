@@ -0,0 +1,97 @@
+package ch.uzh.ifi.seal.soprafs20.GameLogic;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.OptionalInt;
+import java.util.TreeMap;
+
+/**
+ * Windowed Leaderboard
+ * Ranks entries by the points they gained in the last few days, e.g. today or in the last seven days.
+ * The points are collected in one bucket per day. When a day leaves the window, the points of its bucket are
+ * subtracted from the entries and the bucket is dropped, so the leaderboard only ever holds the days of the window
+ * no matter how long the history is. Entries without points in the window are removed.
+ * Days are given as epoch days, the window moves forward with the latest day passed to any method.
+ *
+ * @param <V> the value shown for an entry
+ */
+public class WindowedLeaderboard<V> {
+
+    private final int days;
+    private final Leaderboard<V> leaderboard = new Leaderboard<>();
+    // points per entry, one bucket per day
+    private final NavigableMap<Long, Map<Long, Integer>> buckets = new TreeMap<>();
+    // number of buckets holding points of an entry
+    private final Map<Long, Integer> bucketsPerEntry = new HashMap<>();
+    private long today = Long.MIN_VALUE;
+
+    /**
+     * @param days number of days in the window, including today
+     */
+    public WindowedLeaderboard(int days) {
+        if (days < 1) {
+            throw new IllegalArgumentException("The window has to span at least one day");
+        }
+        this.days = days;
+    }
+
+    /**
+     * Adds points gained on the given day to an entry, points of a day outside of the window are ignored
+     */
+    public synchronized void add(long day, Long id, int points, V value) {
+        roll(day);
+        if (day <= today - days) {
+            return;
+        }
+        Map<Long, Integer> bucket = buckets.computeIfAbsent(day, d -> new HashMap<>());
+        if (!bucket.containsKey(id)) {
+            bucketsPerEntry.merge(id, 1, Integer::sum);
+        }
+        bucket.merge(id, points, Integer::sum);
+        int score = leaderboard.get(id).map(Leaderboard.Entry::getScore).orElse(0) + points;
+        leaderboard.put(id, score, value);
+    }
+
+    public synchronized List<Leaderboard.Entry<V>> page(long day, int offset, int limit) {
+        roll(day);
+        return leaderboard.page(offset, limit);
+    }
+
+    public synchronized OptionalInt rank(long day, Long id) {
+        roll(day);
+        return leaderboard.rank(id);
+    }
+
+    public synchronized int size(long day) {
+        roll(day);
+        return leaderboard.size();
+    }
+
+    /**
+     * Moves the window to the given day and drops the buckets of the days that left it
+     */
+    private void roll(long day) {
+        if (day <= today) {
+            return;
+        }
+        today = day;
+        Iterator<Map<Long, Integer>> expired = buckets.headMap(today - days, true).values().iterator();
+        while (expired.hasNext()) {
+            for (Map.Entry<Long, Integer> points : expired.next().entrySet()) {
+                Long id = points.getKey();
+                if (bucketsPerEntry.merge(id, -1, Integer::sum) == 0) {
+                    bucketsPerEntry.remove(id);
+                    leaderboard.remove(id);
+                }
+                else {
+                    leaderboard.get(id).ifPresent(entry ->
+                            leaderboard.put(id, entry.getScore() - points.getValue(), entry.getValue()));
+                }
+            }
+            expired.remove();
+        }
+    }
+}
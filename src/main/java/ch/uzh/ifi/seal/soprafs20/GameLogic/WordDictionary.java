@@ -0,0 +1,166 @@
+package ch.uzh.ifi.seal.soprafs20.GameLogic;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Word Dictionary
+ * The words of the game, read once at startup from the resource configured with game.words, so the vocabulary
+ * can be replaced without recompiling. The words are kept in one immutable array, indexed by their length,
+ * their first letter and their stem. Every game draws its words from this dictionary.
+ */
+@Component
+public class WordDictionary {
+
+    private static final int MAX_WORD_LENGTH = 12;
+    private static final int[] NO_WORDS = new int[0];
+
+    private final String[] words;
+    private final Map<String, Integer> positions = new HashMap<>();
+    private final Map<Integer, int[]> byLength;
+    private final Map<Character, int[]> byFirstLetter;
+    private final Map<String, int[]> byStem;
+
+    @Autowired
+    public WordDictionary(@Value("${game.words:classpath:words.txt}") Resource resource) {
+        this(readWords(resource));
+    }
+
+    public WordDictionary(List<String> words) {
+        List<String> distinctWords = new ArrayList<>();
+        for (String word : words) {
+            if (!positions.containsKey(word.toLowerCase())) {
+                positions.put(word.toLowerCase(), distinctWords.size());
+                distinctWords.add(word);
+            }
+        }
+        this.words = distinctWords.toArray(new String[0]);
+
+        NLP nlp = new NLP();
+        Map<Integer, List<Integer>> lengths = new LinkedHashMap<>();
+        Map<Character, List<Integer>> firstLetters = new LinkedHashMap<>();
+        Map<String, List<Integer>> stems = new LinkedHashMap<>();
+        for (int i = 0; i < this.words.length; i++) {
+            String word = this.words[i].toLowerCase();
+            lengths.computeIfAbsent(word.length(), key -> new ArrayList<>()).add(i);
+            firstLetters.computeIfAbsent(word.charAt(0), key -> new ArrayList<>()).add(i);
+            stems.computeIfAbsent(nlp.stemWord(word), key -> new ArrayList<>()).add(i);
+        }
+        this.byLength = toIndex(lengths);
+        this.byFirstLetter = toIndex(firstLetters);
+        this.byStem = toIndex(stems);
+    }
+
+    public int size() {
+        return words.length;
+    }
+
+    public List<String> getWords() {
+        return List.of(words);
+    }
+
+    public boolean contains(String word) {
+        return positions.containsKey(word.toLowerCase());
+    }
+
+    public List<String> getWordsOfLength(int length) {
+        return new Words(byLength.getOrDefault(length, NO_WORDS));
+    }
+
+    public List<String> getWordsStartingWith(char letter) {
+        return new Words(byFirstLetter.getOrDefault(Character.toLowerCase(letter), NO_WORDS));
+    }
+
+    public List<String> getWordsWithStem(String stem) {
+        return new Words(byStem.getOrDefault(stem, NO_WORDS));
+    }
+
+    /**
+     * Draws distinct random words. Each draw swaps a random word to the front of a virtual copy of the words,
+     * only the swapped positions are remembered, so a draw takes constant time whatever the size of the dictionary.
+     *
+     * @param amount number of words to draw
+     * @return the drawn words, the list may be modified
+     * @throws IllegalArgumentException if the dictionary has fewer words
+     */
+    public List<String> sample(int amount) {
+        if (amount > words.length) {
+            throw new IllegalArgumentException(String.format("Can not draw %d of %d words", amount, words.length));
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Map<Integer, Integer> swapped = new HashMap<>();
+        List<String> sample = new ArrayList<>(amount);
+        for (int i = 0; i < amount; i++) {
+            int j = random.nextInt(i, words.length);
+            int drawn = swapped.getOrDefault(j, j);
+            swapped.put(j, swapped.getOrDefault(i, i));
+            sample.add(words[drawn]);
+        }
+        return sample;
+    }
+
+    /**
+     * Reads the words of a resource, one per line. Empty lines, comments starting with # and words
+     * longer than 12 characters are skipped.
+     */
+    public static List<String> readWords(Resource resource) {
+        List<String> words = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String word = line.trim();
+                if (!word.isEmpty() && !word.startsWith("#") && word.length() <= MAX_WORD_LENGTH) {
+                    words.add(word);
+                }
+            }
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(String.format("Could not read the words from %s", resource), ex);
+        }
+        return words;
+    }
+
+    private static <K> Map<K, int[]> toIndex(Map<K, List<Integer>> positions) {
+        Map<K, int[]> index = new HashMap<>();
+        for (Map.Entry<K, List<Integer>> entry : positions.entrySet()) {
+            index.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+        }
+        return index;
+    }
+
+    /**
+     * Read-only view of the words at some positions of the dictionary
+     */
+    private class Words extends AbstractList<String> {
+        private final int[] indexes;
+
+        Words(int[] indexes) {
+            this.indexes = indexes;
+        }
+
+        @Override
+        public String get(int index) {
+            return words[indexes[index]];
+        }
+
+        @Override
+        public int size() {
+            return indexes.length;
+        }
+    }
+}
@@ -1,21 +1,19 @@
 package ch.uzh.ifi.seal.soprafs20.GameLogic;
 
+import org.springframework.core.io.ClassPathResource;
+
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
 
+/**
+ * Reads the default words of the game into a list, the game itself draws its words from the WordDictionary
+ */
 public class WordReader {
-    private final List<String> words = new ArrayList<>();
+    private final List<String> words;
 
     public WordReader() {
-        TextFile wordsFile = new TextFile();
-        String wordsAsString = wordsFile.getWords();
-        String[] wordsInList = wordsAsString.split("\n");
-        for(String string : wordsInList) {
-            if(!string.isEmpty() && (string.length() <= 12)) {
-                this.words.add(string);
-            }
-        }
+        this.words = WordDictionary.readWords(new ClassPathResource("words.txt"));
     }
 
     public List<String> getWords() { return this.words; }
@@ -0,0 +1,21 @@
+package ch.uzh.ifi.seal.soprafs20.constant;
+
+/**
+ * Period a scoreboard covers, the daily and weekly scoreboards only count the points of the last day or seven days
+ */
+public enum ScorePeriod {
+    DAILY(1), WEEKLY(7), ALL_TIME(0);
+
+    private final int days;
+
+    ScorePeriod(int days) {
+        this.days = days;
+    }
+
+    /**
+     * @return number of days covered, including today, or 0 for all time
+     */
+    public int getDays() {
+        return days;
+    }
+}
@@ -1,23 +1,28 @@
 package ch.uzh.ifi.seal.soprafs20.controller;
 
 import ch.uzh.ifi.seal.soprafs20.GameLogic.GameState;
-import ch.uzh.ifi.seal.soprafs20.constant.AvatarColor;
 import ch.uzh.ifi.seal.soprafs20.entity.Game;
 import ch.uzh.ifi.seal.soprafs20.entity.Lobby;
 import ch.uzh.ifi.seal.soprafs20.entity.Player;
+import ch.uzh.ifi.seal.soprafs20.exceptions.NotFoundException;
 import ch.uzh.ifi.seal.soprafs20.exceptions.UnauthorizedException;
 import ch.uzh.ifi.seal.soprafs20.rest.dto.CluePutDTO;
-import ch.uzh.ifi.seal.soprafs20.rest.dto.GameGetDTO;
 import ch.uzh.ifi.seal.soprafs20.rest.dto.MessagePutDTO;
 import ch.uzh.ifi.seal.soprafs20.rest.dto.VotePutDTO;
-import ch.uzh.ifi.seal.soprafs20.rest.mapper.DTOMapper;
+import ch.uzh.ifi.seal.soprafs20.service.GameMailbox;
 import ch.uzh.ifi.seal.soprafs20.service.GameService;
+import ch.uzh.ifi.seal.soprafs20.service.GameStream;
+import ch.uzh.ifi.seal.soprafs20.service.GameView;
 import ch.uzh.ifi.seal.soprafs20.service.LobbyService;
 import ch.uzh.ifi.seal.soprafs20.service.PlayerService;
+import ch.uzh.ifi.seal.soprafs20.service.SessionRegistry;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
@@ -26,139 +31,159 @@ public class GameController {
     private final PlayerService playerService;
     private final GameService gameService;
     private final LobbyService lobbyService;
+    private final GameMailbox gameMailbox;
+    private final GameView gameView;
+    private final GameStream gameStream;
+    private final SessionRegistry sessionRegistry;
 
 
-    GameController(PlayerService playerService, GameService gameService, LobbyService lobbyService) {
+    GameController(PlayerService playerService, GameService gameService, LobbyService lobbyService, GameMailbox gameMailbox,
+                   GameView gameView, GameStream gameStream, SessionRegistry sessionRegistry) {
         this.playerService = playerService;
         this.gameService = gameService;
         this.lobbyService = lobbyService;
+        this.gameMailbox = gameMailbox;
+        this.gameView = gameView;
+        this.gameStream = gameStream;
+        this.sessionRegistry = sessionRegistry;
     }
 
+    /**
+     * Returns the game as the player with the given token may see it. The version of the game is sent as ETag,
+     * a request with the current version in If-None-Match is answered with 304 Not Modified.
+     * With since, only the fields that changed after that version are returned.
+     */
     @GetMapping(path = "lobbies/{lobbyId}/game", produces = "application/json")
-    @ResponseStatus(HttpStatus.OK)
     @ResponseBody
-    public GameGetDTO getGame(@PathVariable Long lobbyId, @RequestParam("token") String token) {
-        Game game = gameService.getGame(lobbyId);
-        Lobby lobby = lobbyService.getLobby(lobbyId);
-
-        GameGetDTO gameGetDTO = DTOMapper.INSTANCE.convertEntityToGameGetDTO(game);
-
-        for(int i = 0; i<lobby.getCurrentNumBots(); i++) {
-            Player botAsPlayer = new Player();
-            botAsPlayer.setId(0L);
-            botAsPlayer.setUsername("bot!");
-            botAsPlayer.setAvatarColor(AvatarColor.BOT);
-            botAsPlayer.setScore(-1);
-            gameGetDTO.addPlayer(botAsPlayer);
+    public ResponseEntity<Object> getGame(@PathVariable Long lobbyId, @RequestParam("token") String token,
+                                          @RequestParam(value = "since", required = false) Long since,
+                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String currentETag = gameMailbox.call(lobbyId, () -> {
+            Game game = gameService.getGame(lobbyId);
+            gameView.checkAccess(game, token);
+            return gameView.isCurrent(game, ifNoneMatch) ? gameView.getETag(game) : null;
+        });
+        if (currentETag != null) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(currentETag).build();
         }
+        Lobby lobby = lobbyService.getLobby(lobbyId);
+        return gameMailbox.call(lobbyId, () -> {
+            Game game = gameService.getGame(lobbyId);
+            Object body = since == null ? gameView.render(game, token, lobby.getCurrentNumBots())
+                    : gameView.renderSince(game, token, lobby.getCurrentNumBots(), since);
+            return ResponseEntity.ok().eTag(gameView.getETag(game)).body(body);
+        });
+    }
 
-        List<String> tokens = new ArrayList<>();
-        for (Player player : game.getPlayers()) {
-            tokens.add(player.getToken());
-        }
-        if (!tokens.contains(token)) {
-            throw new UnauthorizedException("You are not allowed to access this game instance!");
-        }
-        //if guesser requests game, eliminate current word from dto
-        if (game.getCurrentGuesser().getToken().equals(token) && !game.getGameState().equals(GameState.TRANSITION_STATE)) {
-            gameGetDTO.setCurrentWord(null);
-            gameGetDTO.getInvalidClues().clear();
-        }
-        //only return invalid clues if the current state is ENTER_GUESS_STATE
-        if(!game.getGameState().equals(GameState.ENTER_GUESS_STATE)) {
-            gameGetDTO.getInvalidClues().clear();
-        }
-        return gameGetDTO;
+    /**
+     * Pushes the game to the player as server-sent events, a "snapshot" event right away and an "update" event
+     * with the changed fields whenever the game changes, so the game and its timer do not have to be polled
+     */
+    @GetMapping(path = "lobbies/{lobbyId}/game/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamGame(@PathVariable Long lobbyId, @RequestParam("token") String token) {
+        Lobby lobby = lobbyService.getLobby(lobbyId);
+        return gameMailbox.call(lobbyId, () -> gameStream.subscribe(gameService.getGame(lobbyId), token, lobby.getCurrentNumBots()));
     }
 
     @PutMapping(path = "lobbies/{lobbyId}/game/clue", consumes = "application/json")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @ResponseBody
     public void sendClue(@PathVariable long lobbyId, @RequestBody CluePutDTO cluePutDTO) {
-        Game currentGame = gameService.getGame(lobbyId);
         Player player = playerService.getPlayer(cluePutDTO.getPlayerId());
-        //If all clues were sent, sendClue returns true and the game moves on to the next state
-        if (gameService.sendClue(currentGame, player, cluePutDTO)) {
-            currentGame.getTimer().setCancel(true);
-            currentGame.setGameState(GameState.VOTE_ON_CLUES_STATE);
-            gameService.setStartTime(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()), currentGame);
-        }
+        gameMailbox.run(lobbyId, () -> {
+            Game currentGame = gameService.getGame(lobbyId);
+            //If all clues were sent, sendClue returns true and the game moves on to the next state
+            if (gameService.sendClue(currentGame, player, cluePutDTO)) {
+                gameService.transition(currentGame, GameState.VOTE_ON_CLUES_STATE);
+            }
+        });
     }
 
     @GetMapping(path = "lobbies/{lobbyId}/game/word")
     @ResponseStatus(HttpStatus.OK)
     @ResponseBody
     public void pickWord(@PathVariable long lobbyId, @RequestParam("token") String token) {
-        Game game = gameService.getGame(lobbyId);
-        if (!game.getGameState().equals(GameState.PICK_WORD_STATE)) {
-            throw new UnauthorizedException("Can't choose word in current state");
-        }
-        if (gameService.pickWord(token, game)) {
-            game.getTimer().setCancel(true);
-            game.setGameState(GameState.ENTER_CLUES_STATE);
-            gameService.setStartTime(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()), game);
-        }
+        gameMailbox.run(lobbyId, () -> {
+            Game game = gameService.getGame(lobbyId);
+            if (!game.getGameState().equals(GameState.PICK_WORD_STATE)) {
+                throw new UnauthorizedException("Can't choose word in current state");
+            }
+            if (gameService.pickWord(token, game)) {
+                gameService.transition(game, GameState.ENTER_CLUES_STATE);
+            }
+        });
     }
 
     @GetMapping(path = "lobbies/{lobbyId}/game/timer")
     @ResponseStatus(HttpStatus.OK)
     public String getTimer(@PathVariable long lobbyId, @RequestParam String token) {
         long currentTime = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
-        boolean found = false;
-        Game game = gameService.getGame(lobbyId);
-        for (Player p : game.getPlayers()) {
-            if (p.getToken().equals(token)) {
-                found = true;
-                break;
+        // polled every second by every player, the user is resolved by the session registry and compared with
+        // the players of the live game, so a signed token is checked without the database
+        Long userId = sessionRegistry.find(token).map(SessionRegistry.Session::getUserId).orElse(null);
+        return gameMailbox.call(lobbyId, () -> {
+            Game game = gameService.getGame(lobbyId);
+            if (findPlayer(game, userId) == null)
+                throw new UnauthorizedException("Not allowed to retrieve timer for this game!");
+            if (game.getStartTimeSeconds() == null) {
+                return "No timer started yet";
             }
-        }
-        if (!found)
-            throw new UnauthorizedException("Not allowed to retrieve timer for this game!");
-        if (game.getStartTimeSeconds() == null) {
-            return "No timer started yet";
-        }
-        if (game.getGameState().equals(GameState.END_GAME_STATE)) {
-            return "0";
-        }
-        else {
-
-            long diff = gameService.getMaxTime(game) - (currentTime - game.getStartTimeSeconds());
-            if(diff < 0)
+            if (game.getGameState().equals(GameState.END_GAME_STATE)) {
                 return "0";
-            else
-                return Long.toString(diff);
-        }
+            }
+            else {
+
+                long diff = gameService.getMaxTime(game) - (currentTime - game.getStartTimeSeconds());
+                if(diff < 0)
+                    return "0";
+                else
+                    return Long.toString(diff);
+            }
+        });
     }
 
     @PutMapping(path = "lobbies/{lobbyId}/game/guess")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @ResponseBody
     public void sendGuess(@PathVariable long lobbyId, @RequestBody MessagePutDTO messagePutDTO) {
-        Game game = gameService.getGame(lobbyId);
-        gameService.submitGuess(game, messagePutDTO,TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) - game.getStartTimeSeconds());
-        gameService.updateScores(game);
-        game.getTimer().setCancel(true);
-        game.setGameState(GameState.TRANSITION_STATE);
-        gameService.setStartTime(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()), game);
+        gameMailbox.run(lobbyId, () -> {
+            Game game = gameService.getGame(lobbyId);
+            gameService.submitGuess(game, messagePutDTO,TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) - game.getStartTimeSeconds());
+            gameService.updateScores(game);
+            gameService.transition(game, GameState.TRANSITION_STATE);
+        });
     }
 
     @PutMapping(path = "lobbies/{lobbyId}/game/vote")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @ResponseBody
     public void vote(@PathVariable long lobbyId, @RequestBody VotePutDTO votePutDTO) {
-        Game game = gameService.getGame(lobbyId);
-        if (!game.getGameState().equals(GameState.VOTE_ON_CLUES_STATE)) {
-            throw new UnauthorizedException("Can't vote on clues in current state!");
-        }
-        Player player = playerService.getPlayerByToken(votePutDTO.getPlayerToken());
-        if (!game.getPlayers().contains(player) || game.getCurrentGuesser().equals(player)) {
-            throw new UnauthorizedException("This player is not allowed to vote on clues!");
-        }
-        List<String> invalidWords = votePutDTO.getInvalidClues();
-        if (gameService.vote(game, player, invalidWords)) {
-            game.getTimer().setCancel(true);
-            game.setGameState(GameState.ENTER_GUESS_STATE);
-            gameService.setStartTime(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()), game);
+        // a player has the id of its user
+        Long playerId = sessionRegistry.find(votePutDTO.getPlayerToken())
+                .map(SessionRegistry.Session::getUserId)
+                .orElseThrow(() -> new NotFoundException("Couldn't find player."));
+        gameMailbox.run(lobbyId, () -> {
+            Game game = gameService.getGame(lobbyId);
+            if (!game.getGameState().equals(GameState.VOTE_ON_CLUES_STATE)) {
+                throw new UnauthorizedException("Can't vote on clues in current state!");
+            }
+            Player player = findPlayer(game, playerId);
+            if (player == null || game.getCurrentGuesser().equals(player)) {
+                throw new UnauthorizedException("This player is not allowed to vote on clues!");
+            }
+            List<String> invalidWords = votePutDTO.getInvalidClues();
+            if (gameService.vote(game, player, invalidWords)) {
+                gameService.transition(game, GameState.ENTER_GUESS_STATE);
+            }
+        });
+    }
+
+    private Player findPlayer(Game game, Long playerId) {
+        for (Player player : game.getPlayers()) {
+            if (playerId != null && playerId.equals(player.getId())) {
+                return player;
+            }
         }
+        return null;
     }
 }
@@ -1,6 +1,7 @@
 package ch.uzh.ifi.seal.soprafs20.controller;
 
 import ch.uzh.ifi.seal.soprafs20.constant.AvatarColor;
+import ch.uzh.ifi.seal.soprafs20.constant.ScorePeriod;
 import ch.uzh.ifi.seal.soprafs20.entity.*;
 import ch.uzh.ifi.seal.soprafs20.exceptions.ConflictException;
 import ch.uzh.ifi.seal.soprafs20.exceptions.NotAcceptableException;
@@ -26,19 +27,20 @@ public class LobbyController {
     private final UserService userService;
     private final PlayerService playerService;
     private final ChatService chatService;
-    private final MessageService messageService;
     private final GameService gameService;
-    private final LobbyScoreService lobbyScoreService;
+    private final LeaderboardService leaderboardService;
+    private final SessionRegistry sessionRegistry;
 
     LobbyController(LobbyService lobbyService, UserService userService, PlayerService playerService,
-                    LobbyScoreService lobbyScoreService, ChatService chatService, MessageService messageService, GameService gameService){
+                    LeaderboardService leaderboardService, ChatService chatService, GameService gameService,
+                    SessionRegistry sessionRegistry){
         this.lobbyService = lobbyService;
         this.userService = userService;
         this.playerService = playerService;
         this.chatService = chatService;
-        this.messageService = messageService;
         this.gameService = gameService;
-        this.lobbyScoreService = lobbyScoreService;
+        this.leaderboardService = leaderboardService;
+        this.sessionRegistry = sessionRegistry;
     }
 
 
@@ -80,7 +82,7 @@ public class LobbyController {
     @ResponseStatus(HttpStatus.OK)
     @ResponseBody
     public List<LobbyGetDTO> getAllLobbies(@RequestParam("token") String token) {
-        userService.getUserByToken(token);
+        sessionRegistry.getSession(token);
         // fetch all lobbies in the internal representation
         List<Lobby> lobbies = lobbyService.getLobbies();
         List<LobbyGetDTO> lobbyGetDTOs = new ArrayList<>();
@@ -177,31 +179,53 @@ public class LobbyController {
         return DTOMapper.INSTANCE.convertEntityToLobbyGetDTO(lobby);
     }
 
+    /**
+     * Returns the messages after the message with the id after, or the latest messages without after.
+     * Polled by every player, so it is answered from memory without loading the lobby.
+     */
     @GetMapping(path = "/lobbies/{lobbyId}/chat", produces = "application/json")
     @ResponseStatus(HttpStatus.OK)
     @ResponseBody
-    public ChatGetDTO getChatMessages(@PathVariable long lobbyId,@RequestParam("token") String token) {
-        boolean found = false;
-        Lobby lobby = lobbyService.getLobby(lobbyId);
-        for (Player player : lobby.getPlayersInLobby()){
-            if(player.getToken().equals(token)){
-                found = true;
-                break;
-            }
+    public ChatGetDTO getChatMessages(@PathVariable long lobbyId, @RequestParam("token") String token,
+                                      @RequestParam(name = "after", required = false) Long after) {
+        if(!sessionRegistry.isInLobby(token, lobbyId)) {
+            throw new UnauthorizedException("This player is not allowed to access this chat history!");
         }
-        if(!found) {
+        ChatGetDTO chatGetDTO = new ChatGetDTO();
+        chatGetDTO.setLobbyId(lobbyId);
+        chatGetDTO.setMessages(chatService.getMessages(lobbyId, after));
+        return chatGetDTO;
+    }
+
+    /**
+     * Returns the messages before the message with the id before, oldest first. To get the previous page,
+     * the id of the first message is passed as before.
+     */
+    @GetMapping(path = "/lobbies/{lobbyId}/chat/history", produces = "application/json")
+    @ResponseStatus(HttpStatus.OK)
+    @ResponseBody
+    public List<MessageGetDTO> getChatHistory(@PathVariable long lobbyId, @RequestParam("token") String token,
+                                              @RequestParam(name = "before", required = false) Long before,
+                                              @RequestParam(name = "size", defaultValue = "50") int size) {
+        if(!sessionRegistry.isInLobby(token, lobbyId)) {
             throw new UnauthorizedException("This player is not allowed to access this chat history!");
         }
-        Chat chat = chatService.getChat(lobbyId);
-        return DTOMapper.INSTANCE.convertEntityToChatGetDTO(chat);
+        List<MessageGetDTO> messageGetDTOs = new ArrayList<>();
+        for (Message message : chatService.getMessagesBefore(lobbyId, before, size)) {
+            messageGetDTOs.add(DTOMapper.INSTANCE.convertEntityToMessageGetDTO(message));
+        }
+        return messageGetDTOs;
     }
 
     @PutMapping(path = "lobbies/{lobbyId}/chat", consumes = "application/json")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @ResponseBody
     public void addChatMessage(@PathVariable long lobbyId, @RequestBody MessagePutDTO messagePutDTO) {
+        // messages that are too long are dropped before anything is read or queued
+        if(messagePutDTO.getMessage().length() > 51) {
+            return;
+        }
         Message message = DTOMapper.INSTANCE.convertMessagePutDTOtoEntity(messagePutDTO);
-        message = messageService.createMessage(message);
         User author  = userService.getUser(messagePutDTO.getPlayerId());
         Lobby lobby = lobbyService.getLobby(lobbyId);
         if(lobby.isGameStarted()) {
@@ -210,9 +234,7 @@ public class LobbyController {
                 message.setText("I'm a cheetah!");
             }
         }
-        if(messagePutDTO.getMessage().length() <= 51) {
-            chatService.addChatMessage(lobby, author.getToken(), message);
-        }
+        chatService.addChatMessage(lobby, author.getToken(), message);
     }
 
     @PutMapping(path = "/lobbies/{lobbyId}/joins", consumes = "application/json")
@@ -246,23 +268,22 @@ public class LobbyController {
         playerService.deletePlayer(playerToBeRemoved);
     }
 
+    /**
+     * Returns the scores of the lobbies in the period, highest score first. Without a size, all scores are returned.
+     */
     @GetMapping(path = "lobbies/scores",produces = "application/json")
     @ResponseStatus(HttpStatus.OK)
     @ResponseBody
-    public List<LobbyScoreGetDTO> getLobbyScores(@RequestParam("token") String token){
+    public List<LobbyScoreGetDTO> getLobbyScores(@RequestParam("token") String token,
+                                                 @RequestParam(name = "page", defaultValue = "0") int page,
+                                                 @RequestParam(name = "size", defaultValue = "" + Integer.MAX_VALUE) int size,
+                                                 @RequestParam(name = "period", defaultValue = "ALL_TIME") ScorePeriod period){
         try {
-            userService.getUserByToken(token);
+            sessionRegistry.getSession(token);
         } catch (NotFoundException e){
             throw new NotFoundException("Cant get lobby scores as " + e.getMessage().toLowerCase());
         }
-        List<LobbyScore> lobbyScores;
-
-        lobbyScores = lobbyScoreService.getLobbyScoresByScore();
-        List<LobbyScoreGetDTO> lobbyScoreGetDTOs = new ArrayList<>();
-        for(LobbyScore lb: lobbyScores){
-            lobbyScoreGetDTOs.add(DTOMapper.INSTANCE.convertEntityToLobbyScoreGetDTO(lb));
-        }
-        return lobbyScoreGetDTOs;
+        return leaderboardService.getLobbyScores(period, page, size);
     }
 
     public boolean isContained(String aString, String bString) {
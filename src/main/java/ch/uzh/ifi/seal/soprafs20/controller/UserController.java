@@ -1,22 +1,31 @@
 package ch.uzh.ifi.seal.soprafs20.controller;
 
+import ch.uzh.ifi.seal.soprafs20.constant.ScorePeriod;
 import ch.uzh.ifi.seal.soprafs20.entity.Lobby;
 import ch.uzh.ifi.seal.soprafs20.entity.User;
 import ch.uzh.ifi.seal.soprafs20.exceptions.NotFoundException;
 import ch.uzh.ifi.seal.soprafs20.exceptions.UnauthorizedException;
 import ch.uzh.ifi.seal.soprafs20.rest.dto.*;
 import ch.uzh.ifi.seal.soprafs20.rest.mapper.DTOMapper;
+import ch.uzh.ifi.seal.soprafs20.service.FriendService;
+import ch.uzh.ifi.seal.soprafs20.service.LeaderboardService;
+import ch.uzh.ifi.seal.soprafs20.service.PresenceService;
+import ch.uzh.ifi.seal.soprafs20.service.SessionRegistry;
+import ch.uzh.ifi.seal.soprafs20.service.SessionRegistry.Session;
 import ch.uzh.ifi.seal.soprafs20.service.UserService;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.OptionalInt;
 import java.util.Set;
 
 /**
@@ -28,9 +37,18 @@ import java.util.Set;
 public class UserController {
 
     private final UserService userService;
+    private final LeaderboardService leaderboardService;
+    private final FriendService friendService;
+    private final PresenceService presenceService;
+    private final SessionRegistry sessionRegistry;
 
-    UserController(UserService userService) {
+    UserController(UserService userService, LeaderboardService leaderboardService, FriendService friendService,
+                   PresenceService presenceService, SessionRegistry sessionRegistry) {
         this.userService = userService;
+        this.leaderboardService = leaderboardService;
+        this.friendService = friendService;
+        this.presenceService = presenceService;
+        this.sessionRegistry = sessionRegistry;
     }
 
     @CrossOrigin(exposedHeaders = "Location")
@@ -50,19 +68,17 @@ public class UserController {
         return ResponseEntity.created(location).build();
     }
 
+    /**
+     * Returns the users ordered by id. To get the next page, the id of the last user is passed as after.
+     * Without a size, all users are returned.
+     */
     @GetMapping(path = "/users", produces = "application/json")
     @ResponseStatus(HttpStatus.OK)
     @ResponseBody
-    public List<UserGetDTO> getAllUsers() {
-        // fetch all users in the internal representation
-        List<User> users = userService.getUsers();
-        List<UserGetDTO> userGetDTOs = new ArrayList<>();
-
-        // convert each user to the API representation
-        for (User user : users) {
-            userGetDTOs.add(DTOMapper.INSTANCE.convertEntityToUserGetDTO(user));
-        }
-        return userGetDTOs;
+    public List<UserGetDTO> getAllUsers(@RequestParam(name = "after", required = false) Long after,
+                                        @RequestParam(name = "size", defaultValue = "" + Integer.MAX_VALUE) int size) {
+        // only the shown columns are selected, the users are not loaded as entities
+        return userService.getUsers(after, size);
     }
 
     @GetMapping(path = "/users/{id}", produces = "application/json")
@@ -85,17 +101,10 @@ public class UserController {
     @ResponseStatus(HttpStatus.OK)
     @ResponseBody
     public List<RequestGetDTO> getFriendRequests(@PathVariable long id, @RequestParam String token) {
-        User user = userService.getUser(id);
-        if(!user.getToken().equals(token)){
+        if(!sessionRegistry.isUser(token, id)){
             throw new UnauthorizedException("You are not authorized to get this users friend requests");
         }
-        Set<User> requests = user.getFriendRequests();
-        List<RequestGetDTO> requestGetDTOs = new ArrayList<>();
-
-        for (User request : requests) {
-            requestGetDTOs.add(DTOMapper.INSTANCE.convertEntityToRequestGetDTO(request));
-        }
-        return requestGetDTOs;
+        return friendService.getFriendRequests(id);
     }
 
     @PutMapping(path = "/users/{id}/friendRequests", consumes = "application/json")
@@ -103,24 +112,30 @@ public class UserController {
     @ResponseBody
     public void sendFriendRequest(@PathVariable long id, @RequestBody RequestPutDTO requestPutDTO)  {
         User receiver = userService.getUser(id);
-        userService.addFriendRequest(receiver, requestPutDTO);
+        friendService.addFriendRequest(receiver, requestPutDTO);
     }
 
     @GetMapping(path = "users/{id}/friends", produces = "application/json")
     @ResponseStatus(HttpStatus.OK)
     @ResponseBody
     public List<RequestGetDTO> getFriends(@PathVariable long id, @RequestParam String token) {
-        User user = userService.getUser(id);
-        if(!user.getToken().equals(token)){
+        if(!sessionRegistry.isUser(token, id)){
             throw new UnauthorizedException("You are not authorized to get this users friends");
         }
-        Set<User> friends = user.getFriendList();
-        List<RequestGetDTO> requestGetDTOs = new ArrayList<>();
+        return friendService.getFriends(id);
+    }
 
-        for (User friend : friends) {
-            requestGetDTOs.add(DTOMapper.INSTANCE.convertEntityToRequestGetDTO(friend));
+    /**
+     * Returns the friends of the user that are online, e.g. to invite them to a lobby
+     */
+    @GetMapping(path = "users/{id}/friends/online", produces = "application/json")
+    @ResponseStatus(HttpStatus.OK)
+    @ResponseBody
+    public List<RequestGetDTO> getOnlineFriends(@PathVariable long id, @RequestParam String token) {
+        if(!sessionRegistry.isUser(token, id)){
+            throw new UnauthorizedException("You are not authorized to get this users friends");
         }
-        return requestGetDTOs;
+        return friendService.getOnlineFriends(id);
     }
 
     @PutMapping(path = "/users/{id}/friends", consumes = "application/json")
@@ -128,7 +143,32 @@ public class UserController {
     @ResponseBody
     public void handleFriendRequest(@PathVariable long id, @RequestBody FriendPutDTO friendPutDTO) {
         User receiver = userService.getUser(id);
-        userService.acceptOrDeclineFriendRequest(receiver, friendPutDTO);
+        friendService.acceptOrDeclineFriendRequest(receiver, friendPutDTO);
+    }
+
+    /**
+     * Keeps the user online, a user that does not send a heartbeat within the timeout is set offline
+     */
+    @PutMapping(path = "/users/{id}/heartbeat")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    @ResponseBody
+    public void heartbeat(@PathVariable long id, @RequestParam String token) {
+        if(!sessionRegistry.isUser(token, id)){
+            throw new UnauthorizedException("You are not authorized to send a heartbeat for this user");
+        }
+        presenceService.heartbeat(id);
+    }
+
+    /**
+     * Pushes the friends of the user that are online as server-sent events, a "snapshot" event right away and
+     * an "update" event whenever a friend comes online or goes offline
+     */
+    @GetMapping(path = "/users/{id}/friends/presence", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamPresence(@PathVariable long id, @RequestParam String token) {
+        if(!sessionRegistry.isUser(token, id)){
+            throw new UnauthorizedException("You are not authorized to get this users friends");
+        }
+        return presenceService.subscribe(id);
     }
 
     @CrossOrigin(exposedHeaders = "Location")
@@ -163,15 +203,12 @@ public class UserController {
     @ResponseStatus(HttpStatus.OK)
     @ResponseBody
     public List<InviteGetDTO> getLobbyInvites(@PathVariable long userId, @RequestParam("token") String token){
-        User user;
-        try{
-            user = userService.getUserByToken(token);
-        } catch (NotFoundException e){
-            throw new NotFoundException("Can't access users lobby invites!");
-        }
-        if(!user.getId().equals(userId)){
+        Session session = sessionRegistry.find(token)
+                .orElseThrow(() -> new NotFoundException("Can't access users lobby invites!"));
+        if(!session.getUserId().equals(userId)){
             throw new UnauthorizedException("Can't access users lobby invites!");
         }
+        User user = userService.getUser(userId);
         Set<Lobby> invites = user.getLobbyInvites();
         List<InviteGetDTO> lobbies = new ArrayList<>();
         for(Lobby lobby : invites){
@@ -182,24 +219,36 @@ public class UserController {
         return lobbies;
     }
 
+    /**
+     * Returns the users, highest score in the period first. Without a size, all users are returned.
+     */
     @GetMapping(path = "/users/scores")
     @ResponseStatus(HttpStatus.OK)
     @ResponseBody
-    public List<UserGetDTO> getUserScoreboard(@RequestParam("token") String token){
-        try{
-            userService.getUserByToken(token);
-        } catch (NotFoundException e){
+    public List<UserGetDTO> getUserScoreboard(@RequestParam("token") String token,
+                                              @RequestParam(name = "page", defaultValue = "0") int page,
+                                              @RequestParam(name = "size", defaultValue = "" + Integer.MAX_VALUE) int size,
+                                              @RequestParam(name = "period", defaultValue = "ALL_TIME") ScorePeriod period){
+        if(sessionRegistry.find(token).isEmpty()){
             throw new NotFoundException("Cant access user leader board!");
         }
-        List<User> users;
-        users = userService.getUsersByScore();
-        List<UserGetDTO> userGetDTOs = new ArrayList<>();
-        for(User u: users){
-            userGetDTOs.add(DTOMapper.INSTANCE.convertEntityToUserGetDTO(u));
-        }
-        return userGetDTOs;
-
+        return leaderboardService.getUsers(period, page, size);
     }
 
-
+    @GetMapping(path = "/users/scores/rank")
+    @ResponseStatus(HttpStatus.OK)
+    @ResponseBody
+    public RankGetDTO getUserRank(@RequestParam("token") String token,
+                                  @RequestParam(name = "period", defaultValue = "ALL_TIME") ScorePeriod period){
+        Session session = sessionRegistry.find(token)
+                .orElseThrow(() -> new NotFoundException("Cant access user leader board!"));
+        OptionalInt rank = leaderboardService.getUserRank(period, session.getUserId());
+        if (rank.isEmpty()) {
+            throw new NotFoundException("User is not on the leader board!");
+        }
+        RankGetDTO rankGetDTO = new RankGetDTO();
+        rankGetDTO.setRank(rank.getAsInt());
+        rankGetDTO.setTotal(leaderboardService.getNumberOfUsers(period));
+        return rankGetDTO;
+    }
 }
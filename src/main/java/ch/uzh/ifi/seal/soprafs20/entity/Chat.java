@@ -2,12 +2,13 @@ package ch.uzh.ifi.seal.soprafs20.entity;
 
 import javax.persistence.Entity;
 import javax.persistence.Id;
-import javax.persistence.OneToMany;
 import javax.persistence.Table;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Objects;
 
+/**
+ * Internal Chat Representation
+ * The messages of a chat are not part of it, they refer to the lobby of the chat so they can be paged.
+ */
 @Entity
 @Table(name = "CHAT")
 public class Chat {
@@ -15,9 +16,6 @@ public class Chat {
     @Id
     private Long lobbyId;
 
-    @OneToMany
-    List<Message> messages = new ArrayList<>();
-
     public Long getLobbyId() {
         return lobbyId;
     }
@@ -26,14 +24,6 @@ public class Chat {
         this.lobbyId = lobbyId;
     }
 
-    public List<Message> getMessages() {
-        return messages;
-    }
-
-    public void setMessages(Message message) {
-        messages.add(message);
-    }
-
     @Override
     public boolean equals(Object o) {
         if (this == o) { return true; }
@@ -4,7 +4,7 @@ import javax.persistence.*;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotEmpty;
 import java.io.Serializable;
-import java.util.Objects;
+import java.util.Locale;
 
 @Entity
 @Table(name = "CLUE")
@@ -55,11 +55,14 @@ public class Clue implements Serializable {
         if (this == o) { return true; }
         if (!(o instanceof Clue)) { return false; }
         Clue other = (Clue) o;
-        return actualClue.equalsIgnoreCase(other.getActualClue());
+        return actualClue != null && actualClue.equalsIgnoreCase(other.getActualClue());
     }
 
+    /**
+     * Consistent with equals, which compares the clues ignoring their case
+     */
     @Override
     public int hashCode() {
-        return Objects.hash(getPlayerId());
+        return actualClue == null ? 0 : actualClue.toLowerCase(Locale.ROOT).hashCode();
     }
 }
@@ -0,0 +1,64 @@
+package ch.uzh.ifi.seal.soprafs20.entity;
+
+import javax.persistence.*;
+import java.io.Serializable;
+
+/**
+ * Internal Friendship Representation
+ * One edge of the friend graph, stored apart from the users so loading a user does not load its friends.
+ * A request from the friend to the user is stored as one edge that is not accepted yet,
+ * two users that are friends have one accepted edge in each direction.
+ */
+@Entity
+@Table(name = "FRIENDSHIP",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"userId", "friendId"}),
+        indexes = @Index(columnList = "userId, accepted"))
+public class Friendship implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue
+    private Long friendshipId;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private Long friendId;
+
+    @Column(nullable = false)
+    private boolean accepted;
+
+    public Long getFriendshipId() {
+        return friendshipId;
+    }
+
+    public void setFriendshipId(Long friendshipId) {
+        this.friendshipId = friendshipId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getFriendId() {
+        return friendId;
+    }
+
+    public void setFriendId(Long friendId) {
+        this.friendId = friendId;
+    }
+
+    public boolean isAccepted() {
+        return accepted;
+    }
+
+    public void setAccepted(boolean accepted) {
+        this.accepted = accepted;
+    }
+}
@@ -1,5 +1,7 @@
 package ch.uzh.ifi.seal.soprafs20.entity;
+import ch.uzh.ifi.seal.soprafs20.GameLogic.ClueIndex;
 import ch.uzh.ifi.seal.soprafs20.GameLogic.GameState;
+import ch.uzh.ifi.seal.soprafs20.GameLogic.VoteTally;
 import org.hibernate.annotations.Cascade;
 import org.hibernate.annotations.Fetch;
 import org.hibernate.annotations.FetchMode;
@@ -31,7 +33,7 @@ public class Game {
     private Player currentGuesser;
 
     @Column
-    private volatile String currentWord;
+    private String currentWord;
 
     @Column
     private int overallScore;
@@ -57,7 +59,7 @@ public class Game {
     private GameState gameState;
 
     @Column
-    private volatile boolean isGuessCorrect;
+    private boolean isGuessCorrect;
 
     @Column
     private Long startTimeSeconds;
@@ -71,6 +73,16 @@ public class Game {
     @Column
     private Integer rounds;
 
+    @Column
+    private long version;
+
+    // the votes of the running round are not persisted, a game restored from the database starts without them
+    @Transient
+    private VoteTally voteTally = new VoteTally();
+
+    @Transient
+    private ClueIndex clueIndex = new ClueIndex();
+
 
     @OneToOne(cascade = {CascadeType.ALL}, fetch = FetchType.EAGER)
     private InternalTimer timer;
@@ -103,9 +115,9 @@ public class Game {
         this.players.add(player);
     }
 
-    public synchronized String getCurrentWord() { return currentWord; }
+    public String getCurrentWord() { return currentWord; }
 
-    public synchronized void setCurrentWord(String currentWord) {
+    public void setCurrentWord(String currentWord) {
         this.currentWord = currentWord.toLowerCase();
     }
 
@@ -154,11 +166,11 @@ public class Game {
         this.overallScore = overallScore;
     }
 
-    public synchronized boolean isGuessCorrect() {
+    public boolean isGuessCorrect() {
         return isGuessCorrect;
     }
 
-    public synchronized void setGuessCorrect(boolean guessCorrect) {
+    public void setGuessCorrect(boolean guessCorrect) {
         isGuessCorrect = guessCorrect;
     }
 
@@ -206,6 +218,14 @@ public class Game {
         this.lobbyName = lobbyName;
     }
 
+    public ClueIndex getClueIndex() {
+        return clueIndex;
+    }
+
+    public VoteTally getVoteTally() {
+        return voteTally;
+    }
+
     public List<Clue> getInvalidClues() {
         return invalidClues;
     }
@@ -244,6 +264,14 @@ public class Game {
         return Objects.hash(getLobbyId());
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public Integer getRounds() {
         return rounds;
     }
@@ -2,11 +2,10 @@ package ch.uzh.ifi.seal.soprafs20.entity;
 
 import javax.persistence.*;
 import java.util.Objects;
-import java.util.Timer;
 
 @Entity
 @Table(name = "InternalTimer")
-public class InternalTimer extends Timer  {
+public class InternalTimer {
 
     @Id
     @GeneratedValue(strategy= GenerationType.IDENTITY)
@@ -17,8 +16,6 @@ public class InternalTimer extends Timer  {
     @Column
     private  boolean isRunning;
 
-    @Column
-    private volatile boolean isCancel;
 
     public long getTime() {
         return time;
@@ -44,14 +41,6 @@ public class InternalTimer extends Timer  {
         isRunning = running;
     }
 
-    public boolean isCancel() {
-        return isCancel;
-    }
-
-    public  void setCancel(boolean cancel) {
-        isCancel = cancel;
-    }
-
     @Override
     public boolean equals(Object o) {
         if (this == o) { return true; }
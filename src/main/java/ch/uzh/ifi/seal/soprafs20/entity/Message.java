@@ -9,16 +9,28 @@ import java.io.Serializable;
 import java.time.LocalTime;
 import java.util.Objects;
 
+/**
+ * Internal Message Representation
+ * The ids are taken from MESSAGE_SEQUENCE in blocks, a value of the sequence is the last id of its block.
+ * This is how Hibernate allocates them as well, so messages inserted by JPA and by the MessageService never share an id.
+ */
 @Entity
-@Table(name = "MESSAGE")
+@Table(name = "MESSAGE", indexes = @Index(columnList = "lobbyId, messageId"))
 public class Message implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "messageIds")
+    @SequenceGenerator(name = "messageIds", sequenceName = "MESSAGE_SEQUENCE",
+            initialValue = ID_ALLOCATION_SIZE, allocationSize = ID_ALLOCATION_SIZE)
     private Long messageId;
 
+    @Column
+    private Long lobbyId;
+
     @Column(nullable = false)
     private Long authorId;
 
@@ -42,6 +54,14 @@ public class Message implements Serializable {
         this.messageId = messageId;
     }
 
+    public Long getLobbyId() {
+        return lobbyId;
+    }
+
+    public void setLobbyId(Long lobbyId) {
+        this.lobbyId = lobbyId;
+    }
+
     public Long getAuthorId() {
         return authorId;
     }
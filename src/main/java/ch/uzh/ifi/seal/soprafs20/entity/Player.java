@@ -40,7 +40,7 @@ public class Player {
     private int score;
 
     @Column
-    private volatile boolean voted;
+    private boolean voted;
 
     @OneToMany(fetch = FetchType.EAGER)
     @Fetch(value = FetchMode.SUBSELECT)
@@ -24,6 +24,7 @@ import java.util.Set;
  * Every variable will be mapped into a database field with the @Column annotation
  * - nullable = false -> this cannot be left empty
  * - unique = true -> this value must be unqiue across the database -> composes the primary key
+ * The friends of a user are not part of it, they are stored as Friendship edges.
  */
 @Entity
 @Table(name = "USER")
@@ -62,14 +63,6 @@ public class User implements Serializable {
     @Column
     private int score;
 
-    @ManyToMany(fetch = FetchType.EAGER)
-    @Fetch(value = FetchMode.SUBSELECT)
-    private Set<User> friendRequests = new HashSet<>();
-
-    @ManyToMany(fetch = FetchType.EAGER)
-    @Fetch(value = FetchMode.SUBSELECT)
-    private Set<User> friendList = new HashSet<>();
-
     @Cascade(org.hibernate.annotations.CascadeType.REMOVE)
     @ManyToMany(fetch = FetchType.EAGER)
     @Fetch(value = FetchMode.SUBSELECT)
@@ -151,22 +144,6 @@ public class User implements Serializable {
         this.score = score;
     }
 
-    public Set<User> getFriendRequests() {
-        return friendRequests;
-    }
-
-    public void setFriendRequests(User user) {
-        friendRequests.add(user);
-    }
-
-    public Set<User> getFriendList() {
-        return friendList;
-    }
-
-    public void addFriend(User user) {
-        friendList.add(user);
-    }
-
     public Set<Lobby> getLobbyInvites() {
         return lobbyInvites;
     }
@@ -0,0 +1,28 @@
+package ch.uzh.ifi.seal.soprafs20.repository;
+
+import ch.uzh.ifi.seal.soprafs20.entity.Friendship;
+import ch.uzh.ifi.seal.soprafs20.rest.dto.RequestGetDTO;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository("friendshipRepository")
+public interface FriendshipRepository extends JpaRepository<Friendship, Long> {
+    Optional<Friendship> findByUserIdAndFriendId(Long userId, Long friendId);
+
+    @Query("select f.friendId from Friendship f where f.userId = :userId and f.accepted = true")
+    List<Long> findFriendIds(@Param("userId") Long userId);
+
+    /**
+     * Returns the friends of a user, or the users that sent it a friend request, joined with their id, username
+     * and status in one query.
+     */
+    @Query("select new ch.uzh.ifi.seal.soprafs20.rest.dto.RequestGetDTO(u.id, u.username, u.status) " +
+            "from Friendship f, User u where f.userId = :userId and f.accepted = :accepted and u.id = f.friendId " +
+            "order by u.username")
+    List<RequestGetDTO> findFriends(@Param("userId") Long userId, @Param("accepted") boolean accepted);
+}
@@ -3,6 +3,7 @@ package ch.uzh.ifi.seal.soprafs20.repository;
 import ch.uzh.ifi.seal.soprafs20.entity.Lobby;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -13,6 +14,9 @@ public interface LobbyRepository extends JpaRepository<Lobby, Long> {
     Optional<Lobby> findByLobbyId(long lobbyId);
     Optional<Lobby> findByHostId(long userId);
 
+    @Query("select l.lobbyId from Lobby l join l.playersInLobby p where p.id = :playerId")
+    Optional<Long> findLobbyIdByPlayerId(@Param("playerId") Long playerId);
+
     @Query(value = "SELECT lobbyName, lobbyScore FROM Lobby")
     List<Lobby> getLobbiesByLobbyScore();
 }
@@ -1,12 +1,24 @@
 package ch.uzh.ifi.seal.soprafs20.repository;
 
 import ch.uzh.ifi.seal.soprafs20.entity.Message;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository("messageRepository")
-public interface MessageRepository extends JpaRepository<Message, Long> {
+public interface MessageRepository extends JpaRepository<Message, Long>, MessageRepositoryCustom {
     Optional<Message> findByMessageId(long messageId);
+
+    /**
+     * Messages of a lobby after the cursor, oldest first
+     */
+    List<Message> findByLobbyIdAndMessageIdGreaterThanOrderByMessageIdAsc(Long lobbyId, Long after, Pageable page);
+
+    /**
+     * Messages of a lobby before the cursor, newest first
+     */
+    List<Message> findByLobbyIdAndMessageIdLessThanOrderByMessageIdDesc(Long lobbyId, Long before, Pageable page);
 }
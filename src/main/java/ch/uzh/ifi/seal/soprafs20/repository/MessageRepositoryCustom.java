@@ -0,0 +1,20 @@
+package ch.uzh.ifi.seal.soprafs20.repository;
+
+import ch.uzh.ifi.seal.soprafs20.entity.Message;
+
+import java.util.List;
+
+public interface MessageRepositoryCustom {
+
+    /**
+     * Allocates a block of Message.ID_ALLOCATION_SIZE ids
+     *
+     * @return the last id of the block
+     */
+    long allocateMessageIds();
+
+    /**
+     * Inserts messages whose ids are already allocated, in one batch of inserts
+     */
+    void insertMessages(List<Message> messages);
+}
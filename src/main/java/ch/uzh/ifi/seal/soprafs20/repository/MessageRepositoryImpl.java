@@ -0,0 +1,51 @@
+package ch.uzh.ifi.seal.soprafs20.repository;
+
+import ch.uzh.ifi.seal.soprafs20.entity.Message;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Time;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementation of the custom methods of the MessageRepository.
+ * Chat messages are inserted with plain JDBC, so a batch of messages is written in one round trip instead of one
+ * insert and one sequence call per message.
+ */
+public class MessageRepositoryImpl implements MessageRepositoryCustom {
+
+    private static final String NEXT_ID_BLOCK = "SELECT NEXT VALUE FOR MESSAGE_SEQUENCE";
+    private static final String INSERT_MESSAGE = "INSERT INTO MESSAGE (MESSAGE_ID, LOBBY_ID, AUTHOR_ID, AUTHOR_USERNAME, TEXT, CREATION_DATE) "
+            + "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public MessageRepositoryImpl(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public long allocateMessageIds() {
+        Long last = jdbcTemplate.queryForObject(NEXT_ID_BLOCK, Long.class);
+        if (last == null) {
+            throw new IllegalStateException("MESSAGE_SEQUENCE returned no value");
+        }
+        return last;
+    }
+
+    @Override
+    public void insertMessages(List<Message> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        List<Object[]> inserts = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            inserts.add(new Object[]{message.getMessageId(), message.getLobbyId(), message.getAuthorId(),
+                    message.getAuthorUsername(), message.getText(), Time.valueOf(message.getCreationDate())});
+        }
+        jdbcTemplate.batchUpdate(INSERT_MESSAGE, inserts);
+    }
+}
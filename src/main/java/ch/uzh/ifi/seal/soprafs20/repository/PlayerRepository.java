@@ -2,12 +2,23 @@ package ch.uzh.ifi.seal.soprafs20.repository;
 
 import ch.uzh.ifi.seal.soprafs20.entity.Player;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.Optional;
 
 @Repository("playerRepository")
 public interface PlayerRepository extends JpaRepository<Player, Long> {
     Optional<Player> findById(Long id);
     Optional<Player> findByToken(String token);
+
+    /**
+     * Sets the score of all given players to zero with a single update statement
+     */
+    @Modifying
+    @Query("update Player p set p.score = 0 where p.id in :ids")
+    int resetScores(@Param("ids") Collection<Long> ids);
 }
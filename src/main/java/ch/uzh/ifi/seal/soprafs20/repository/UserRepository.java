@@ -1,16 +1,41 @@
 package ch.uzh.ifi.seal.soprafs20.repository;
 
+import ch.uzh.ifi.seal.soprafs20.constant.UserStatus;
 import ch.uzh.ifi.seal.soprafs20.entity.User;
+import ch.uzh.ifi.seal.soprafs20.rest.dto.RequestGetDTO;
+import ch.uzh.ifi.seal.soprafs20.rest.dto.UserGetDTO;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository("userRepository")
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
 	User findByUsername(String username);
     Optional<User> findByToken(String token);
     Optional<User> findById(Long id);
     List<User> findAllByOrderByScoreDesc();
+
+    /**
+     * Selects only the columns shown to other users, ordered by id, so no friends or invites are loaded.
+     * The users after the given id are returned, the size of the page limits their number.
+     */
+    @Query("select new ch.uzh.ifi.seal.soprafs20.rest.dto.UserGetDTO(u.id, u.username, u.status, u.avatarColor, " +
+            "u.creationDate, u.birthday, u.score) from User u where u.id > :after order by u.id")
+    List<UserGetDTO> findUsersAfter(@Param("after") Long after, Pageable page);
+
+    @Query("select u.id from User u where u.token = :token")
+    Optional<Long> findIdByToken(@Param("token") String token);
+
+    @Query("select u.id from User u where u.status = :status")
+    List<Long> findIdsByStatus(@Param("status") UserStatus status);
+
+    @Query("select new ch.uzh.ifi.seal.soprafs20.rest.dto.RequestGetDTO(u.id, u.username, u.status) " +
+            "from User u where u.id in :ids and u.status = :status order by u.username")
+    List<RequestGetDTO> findUsersByStatus(@Param("ids") Collection<Long> ids, @Param("status") UserStatus status);
 }
@@ -0,0 +1,22 @@
+package ch.uzh.ifi.seal.soprafs20.repository;
+
+import ch.uzh.ifi.seal.soprafs20.constant.UserStatus;
+
+import java.util.Map;
+
+public interface UserRepositoryCustom {
+
+    /**
+     * Adds the given points to the scores of the users with the given ids, in one batch of updates
+     *
+     * @param scores points to add, keyed by the id of the user
+     */
+    void addScores(Map<Long, Integer> scores);
+
+    /**
+     * Sets the statuses of the users with the given ids, in one batch of updates
+     *
+     * @param statuses new statuses, keyed by the id of the user
+     */
+    void updateStatuses(Map<Long, UserStatus> statuses);
+}
@@ -0,0 +1,53 @@
+package ch.uzh.ifi.seal.soprafs20.repository;
+
+import ch.uzh.ifi.seal.soprafs20.constant.UserStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementation of the custom methods of the UserRepository.
+ * The scores and statuses are updated with plain JDBC, so the users do not have to be loaded and are updated in one
+ * round trip. Users already loaded by JPA do not see the new values until they are loaded again.
+ */
+public class UserRepositoryImpl implements UserRepositoryCustom {
+
+    private static final String ADD_SCORE = "UPDATE USER SET SCORE = SCORE + ? WHERE ID = ?";
+    // the status is stored by its ordinal
+    private static final String UPDATE_STATUS = "UPDATE USER SET STATUS = ? WHERE ID = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public UserRepositoryImpl(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public void addScores(Map<Long, Integer> scores) {
+        if (scores.isEmpty()) {
+            return;
+        }
+        List<Object[]> updates = new ArrayList<>(scores.size());
+        for (Map.Entry<Long, Integer> score : scores.entrySet()) {
+            updates.add(new Object[]{score.getValue(), score.getKey()});
+        }
+        jdbcTemplate.batchUpdate(ADD_SCORE, updates);
+    }
+
+    @Override
+    public void updateStatuses(Map<Long, UserStatus> statuses) {
+        if (statuses.isEmpty()) {
+            return;
+        }
+        List<Object[]> updates = new ArrayList<>(statuses.size());
+        for (Map.Entry<Long, UserStatus> status : statuses.entrySet()) {
+            updates.add(new Object[]{status.getValue().ordinal(), status.getKey()});
+        }
+        jdbcTemplate.batchUpdate(UPDATE_STATUS, updates);
+    }
+}
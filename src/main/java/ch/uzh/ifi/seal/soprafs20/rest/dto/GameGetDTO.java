@@ -23,6 +23,7 @@ public class GameGetDTO {
     private boolean isGuessCorrect;
     private String currentGuess;
     private Integer rounds;
+    private long version;
 
 
     public List<PlayerGetDTO> getPlayers() {
@@ -141,4 +142,12 @@ public class GameGetDTO {
     public void setRounds(Integer rounds) {
         this.rounds = rounds;
     }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,34 @@
+package ch.uzh.ifi.seal.soprafs20.rest.dto;
+
+import ch.uzh.ifi.seal.soprafs20.constant.UserStatus;
+
+public class PresenceGetDTO {
+
+    private Long id;
+
+    private UserStatus status;
+
+    public PresenceGetDTO() {
+    }
+
+    public PresenceGetDTO(Long id, UserStatus status) {
+        this.id = id;
+        this.status = status;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public UserStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(UserStatus status) {
+        this.status = status;
+    }
+}
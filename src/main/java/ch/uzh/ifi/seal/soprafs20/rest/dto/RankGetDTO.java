@@ -0,0 +1,22 @@
+package ch.uzh.ifi.seal.soprafs20.rest.dto;
+
+public class RankGetDTO {
+    private int rank;
+    private int total;
+
+    public int getRank() {
+        return rank;
+    }
+
+    public void setRank(int rank) {
+        this.rank = rank;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+}
@@ -1,11 +1,24 @@
 package ch.uzh.ifi.seal.soprafs20.rest.dto;
 
+import ch.uzh.ifi.seal.soprafs20.constant.UserStatus;
+
 public class RequestGetDTO {
 
     private Long id;
 
     private String username;
 
+    private UserStatus status;
+
+    public RequestGetDTO() {
+    }
+
+    public RequestGetDTO(Long id, String username, UserStatus status) {
+        this.id = id;
+        this.username = username;
+        this.status = status;
+    }
+
     public String getUsername() {return username;}
 
     public void setUsername(String username) {this.username = username;}
@@ -18,5 +31,11 @@ public class RequestGetDTO {
         this.id = id;
     }
 
+    public UserStatus getStatus() {
+        return status;
+    }
 
+    public void setStatus(UserStatus status) {
+        this.status = status;
+    }
 }
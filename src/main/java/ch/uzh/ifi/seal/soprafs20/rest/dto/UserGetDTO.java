@@ -19,6 +19,23 @@ public class UserGetDTO {
     private LocalDate birthday;
     private int score;
 
+    public UserGetDTO() {
+    }
+
+    /**
+     * Used by the queries that select only the shown columns of the users
+     */
+    public UserGetDTO(Long id, String username, UserStatus status, AvatarColor avatarColor, LocalDate creationDate,
+                      LocalDate birthday, int score) {
+        this.id = id;
+        this.username = username;
+        this.status = status;
+        this.avatarColor = avatarColor;
+        this.creationDate = creationDate;
+        this.birthday = birthday;
+        this.score = score;
+    }
+
     public Long getId() {
         return id;
     }
@@ -47,6 +47,7 @@ public interface DTOMapper {
 
     @Mapping(source = "username", target = "username")
     @Mapping(source = "id", target = "id")
+    @Mapping(source = "status", target = "status")
     RequestGetDTO convertEntityToRequestGetDTO(User user);
 
     @Mapping(source = "lobbyName", target = "lobbyName")
@@ -101,6 +102,7 @@ public interface DTOMapper {
     @Mapping(source = "specialGame", target = "specialGame")
     @Mapping(source = "currentGuess", target = "currentGuess")
     @Mapping(source = "rounds", target = "rounds")
+    @Mapping(source = "version", target = "version")
     GameGetDTO convertEntityToGameGetDTO(Game game);
 
     @Mapping(source = "messageId", target = "messageId")
@@ -110,8 +112,5 @@ public interface DTOMapper {
     @Mapping(source = "creationDate", target = "creationDate")
     MessageGetDTO convertEntityToMessageGetDTO(Message message);
 
-    @Mapping(source = "lobbyId", target = "lobbyId")
-    ChatGetDTO convertEntityToChatGetDTO(Chat chat);
-
     LobbyScoreGetDTO convertEntityToLobbyScoreGetDTO(LobbyScore lb);
 }
@@ -0,0 +1,126 @@
+package ch.uzh.ifi.seal.soprafs20.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Bot Clue Cache
+ * Keeps the clues the BotClueProvider returned for a word, so a word that comes up again in another game
+ * does not ask the provider again. The cache holds at most the configured number of words, the least recently
+ * used word is evicted first, and a word is asked again once its clues are older than the configured time to live.
+ */
+@Component
+public class BotClueCache implements MeterBinder {
+
+    private final int maxSize;
+    private final long timeToLive;
+    private final LongSupplier clock;
+    private final Map<String, CachedClues> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    @Autowired
+    public BotClueCache(@Value("${bot.clue-cache.size:512}") int maxSize,
+                        @Value("${bot.clue-cache.ttl-minutes:60}") long timeToLiveMinutes) {
+        this(maxSize, TimeUnit.MINUTES.toNanos(timeToLiveMinutes), System::nanoTime);
+    }
+
+    BotClueCache(int maxSize, long timeToLiveNanos, LongSupplier clock) {
+        this.maxSize = maxSize;
+        this.timeToLive = timeToLiveNanos;
+        this.clock = clock;
+        // access order, so the eldest entry is the least recently used one
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedClues> eldest) {
+                if (size() > BotClueCache.this.maxSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return the cached clues for the word, empty if the word is not cached or its clues expired
+     */
+    public synchronized Optional<List<String>> find(String word) {
+        String key = word.toLowerCase();
+        CachedClues entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return Optional.empty();
+        }
+        if (clock.getAsLong() - entry.created > timeToLive) {
+            entries.remove(key);
+            evictions++;
+            misses++;
+            return Optional.empty();
+        }
+        hits++;
+        return Optional.of(entry.clues);
+    }
+
+    public synchronized void put(String word, List<String> clues) {
+        entries.put(word.toLowerCase(), new CachedClues(List.copyOf(clues), clock.getAsLong()));
+    }
+
+    public synchronized int getSize() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("bot.clues.cache.size", this, BotClueCache::getSize)
+                .description("Number of words with cached bot clues")
+                .register(registry);
+        FunctionCounter.builder("bot.clues.cache.hits", this, BotClueCache::getHits)
+                .description("Number of words whose bot clues were found in the cache")
+                .register(registry);
+        FunctionCounter.builder("bot.clues.cache.misses", this, BotClueCache::getMisses)
+                .description("Number of words whose bot clues had to be requested from the provider")
+                .register(registry);
+        FunctionCounter.builder("bot.clues.cache.evictions", this, BotClueCache::getEvictions)
+                .description("Number of words evicted from the cache because it was full or their clues expired")
+                .register(registry);
+    }
+
+    /**
+     * Clues of a word together with the time they were cached
+     */
+    private static class CachedClues {
+        private final List<String> clues;
+        private final long created;
+
+        CachedClues(List<String> clues, long created) {
+            this.clues = clues;
+            this.created = created;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package ch.uzh.ifi.seal.soprafs20.service;
+
+import ch.uzh.ifi.seal.soprafs20.GameLogic.WordDictionary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bot Clue Prefetcher
+ * The clues of the bots are requested from the BotClueProvider as soon as the current word is picked, on threads
+ * of their own, so they are usually ready when the clue phase closes and no request waits for the provider.
+ * A provider that does not answer in time is not waited for, the bots then give no clue in this round.
+ * Clues are looked up in the BotClueCache first, which can be filled with the clues of all words at startup.
+ */
+@Component
+public class BotCluePrefetcher implements MeterBinder {
+
+    private final Logger log = LoggerFactory.getLogger(BotCluePrefetcher.class);
+
+    private final BotClueProvider botClueProvider;
+    private final BotClueCache botClueCache;
+    private final WordDictionary wordDictionary;
+    private final long timeout;
+    private final boolean warmUp;
+    private final ExecutorService executor;
+    private final Map<Long, Prefetch> prefetches = new ConcurrentHashMap<>();
+    private final AtomicLong timeouts = new AtomicLong();
+
+    @Autowired
+    public BotCluePrefetcher(BotClueProvider botClueProvider, BotClueCache botClueCache, WordDictionary wordDictionary,
+                             @Value("${bot.clue-threads:2}") int threads,
+                             @Value("${bot.clue-timeout-ms:500}") long timeout,
+                             @Value("${bot.clue-cache.warm-up:false}") boolean warmUp) {
+        this.botClueProvider = botClueProvider;
+        this.botClueCache = botClueCache;
+        this.wordDictionary = wordDictionary;
+        this.timeout = timeout;
+        this.warmUp = warmUp;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "bot-clues-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts requesting the clues for the current word of a game, a previous request of the game is discarded
+     *
+     * @param lobbyId id of the game
+     * @param word the current word of the game
+     */
+    public void prefetch(Long lobbyId, String word) {
+        Prefetch previous = prefetches.put(lobbyId, new Prefetch(word, request(word)));
+        if (previous != null) {
+            previous.clues.cancel(false);
+        }
+    }
+
+    /**
+     * Returns the prefetched clues for the current word of a game. If they were not prefetched, they are requested now.
+     * Waits at most for the configured timeout, afterwards no clues are returned.
+     *
+     * @param lobbyId id of the game
+     * @param word the current word of the game
+     * @return the clues for the word, best clue first
+     */
+    public List<String> getClues(Long lobbyId, String word) {
+        Prefetch prefetch = prefetches.remove(lobbyId);
+        CompletableFuture<List<String>> clues = prefetch != null && prefetch.word.equals(word) ? prefetch.clues : request(word);
+        try {
+            return clues.get(timeout, TimeUnit.MILLISECONDS);
+        }
+        catch (TimeoutException ex) {
+            clues.cancel(false);
+            timeouts.incrementAndGet();
+            log.warn(String.format("No bot clues for game %d, the provider did not answer within %d ms", lobbyId, timeout));
+        }
+        catch (ExecutionException ex) {
+            log.error(String.format("No bot clues for game %d: %s", lobbyId, ex.getCause()));
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Requests the clues of all words of the game in the background, if the warm-up is enabled
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (warmUp) {
+            for (String word : wordDictionary.getWords()) {
+                request(word);
+            }
+        }
+    }
+
+    /**
+     * Discards the prefetched clues of a game that is over
+     */
+    public void discard(Long lobbyId) {
+        Prefetch prefetch = prefetches.remove(lobbyId);
+        if (prefetch != null) {
+            prefetch.clues.cancel(false);
+        }
+    }
+
+    public int getPrefetches() {
+        return prefetches.size();
+    }
+
+    public long getTimeouts() {
+        return timeouts.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("bot.clues.prefetched", this, BotCluePrefetcher::getPrefetches)
+                .description("Number of games with bot clues waiting for the clue phase to close")
+                .register(registry);
+        FunctionCounter.builder("bot.clues.timeouts", this, BotCluePrefetcher::getTimeouts)
+                .description("Number of rounds in which the bot clues were not ready in time")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private CompletableFuture<List<String>> request(String word) {
+        Optional<List<String>> cachedClues = botClueCache.find(word);
+        if (cachedClues.isPresent()) {
+            return CompletableFuture.completedFuture(cachedClues.get());
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            List<String> clues = botClueProvider.getClues(word);
+            // an empty answer may be a failure of the provider, so it is asked again next time
+            if (!clues.isEmpty()) {
+                botClueCache.put(word, clues);
+            }
+            return clues;
+        }, executor);
+    }
+
+    /**
+     * Clues requested for the word a game had when they were requested
+     */
+    private static class Prefetch {
+        private final String word;
+        private final CompletableFuture<List<String>> clues;
+
+        Prefetch(String word, CompletableFuture<List<String>> clues) {
+            this.word = word;
+            this.clues = clues;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package ch.uzh.ifi.seal.soprafs20.service;
+
+import java.util.List;
+
+/**
+ * Bot Clue Provider
+ * Source of the clues the bots of a lobby give for the current word.
+ * The implementation is chosen with the property bot.clue-provider.
+ */
+public interface BotClueProvider {
+
+    /**
+     * @param word the current word of the game
+     * @return the clues for the word, best clue first. Every clue is accepted by NLP.checkClue,
+     * the list is empty if there is no clue for the word
+     */
+    List<String> getClues(String word);
+}
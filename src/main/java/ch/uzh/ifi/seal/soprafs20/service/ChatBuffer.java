@@ -0,0 +1,115 @@
+package ch.uzh.ifi.seal.soprafs20.service;
+
+import ch.uzh.ifi.seal.soprafs20.entity.Message;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Chat Buffer
+ * Ring buffer with the latest messages of one chat. The ids of the messages increase, so the messages after a cursor
+ * are found by a binary search. Once the buffer is full, the oldest message is overwritten and has to be read from
+ * the database.
+ */
+public class ChatBuffer {
+
+    private final Message[] messages;
+    // index of the oldest message
+    private int head;
+    private int size;
+    // every message of the chat with a greater id is in the buffer
+    private long complete;
+    // set once the buffer is dropped, messages appended afterwards would never be seen
+    private boolean closed;
+    // when the buffer was used last, to drop the least recently used buffers
+    private volatile long lastUsed;
+
+    /**
+     * @param capacity number of messages kept
+     * @param complete id after which the buffer holds every message of the chat, 0 for a new chat
+     */
+    public ChatBuffer(int capacity, long complete) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The buffer needs room for at least one message");
+        }
+        this.messages = new Message[capacity];
+        this.complete = complete;
+    }
+
+    /**
+     * @param message a message with a greater id than every message in the buffer
+     */
+    public synchronized void append(Message message) {
+        if (size == messages.length) {
+            complete = messages[head].getMessageId();
+            messages[head] = message;
+            head = (head + 1) % messages.length;
+        }
+        else {
+            messages[(head + size) % messages.length] = message;
+            size++;
+        }
+    }
+
+    /**
+     * @param after id of the last message the client received, null for the latest messages
+     * @return the messages after the cursor, oldest first. Empty if the buffer does not hold all of them anymore.
+     */
+    public synchronized Optional<List<Message>> after(Long after) {
+        if (after == null) {
+            return Optional.of(copy(0));
+        }
+        if (after < complete) {
+            return Optional.empty();
+        }
+        // first message with an id greater than the cursor
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (get(middle).getMessageId() <= after) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+        return Optional.of(copy(low));
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Marks the buffer as dropped, waits for an append that is in progress
+     */
+    public synchronized void close() {
+        closed = true;
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    public long getLastUsed() {
+        return lastUsed;
+    }
+
+    public void setLastUsed(long lastUsed) {
+        this.lastUsed = lastUsed;
+    }
+
+    private Message get(int index) {
+        return messages[(head + index) % messages.length];
+    }
+
+    private List<Message> copy(int from) {
+        List<Message> copy = new ArrayList<>(size - from);
+        for (int i = from; i < size; i++) {
+            copy.add(get(i));
+        }
+        return copy;
+    }
+}
@@ -4,24 +4,60 @@ import ch.uzh.ifi.seal.soprafs20.entity.Chat;
 import ch.uzh.ifi.seal.soprafs20.entity.Lobby;
 import ch.uzh.ifi.seal.soprafs20.entity.Message;
 import ch.uzh.ifi.seal.soprafs20.entity.Player;
+import ch.uzh.ifi.seal.soprafs20.exceptions.BadRequestException;
 import ch.uzh.ifi.seal.soprafs20.exceptions.NotFoundException;
 import ch.uzh.ifi.seal.soprafs20.exceptions.UnauthorizedException;
 import ch.uzh.ifi.seal.soprafs20.repository.ChatRepository;
+import ch.uzh.ifi.seal.soprafs20.repository.MessageRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Chat Service
+ * Keeps the latest messages of every chat in a ChatBuffer, so a client polling for new messages is answered from
+ * memory. Older messages are read from the database, page by page. The buffers of the chats that were not used for
+ * the longest time are dropped once there are more than the configured number, they are loaded again when needed.
+ * A buffer is loaded by the first request that needs it, the other requests of that chat wait for it, while the
+ * requests of all other chats go on.
+ * New messages are written behind by the MessageService, they are in the buffer before they are in the database.
+ */
 @Service
 @Transactional
 public class ChatService {
 
     private final ChatRepository chatRepository;
+    private final MessageRepository messageRepository;
+    private final MessageService messageService;
+    private final int bufferSize;
+    private final int maxBuffers;
+    // a buffer that is being loaded is a future that is not completed yet
+    private final Map<Long, CompletableFuture<ChatBuffer>> buffers = new ConcurrentHashMap<>();
+    // counts the uses of the buffers, the buffer with the lowest count was not used for the longest time
+    private final AtomicLong uses = new AtomicLong();
+    private final Object trimLock = new Object();
 
     @Autowired
-    public ChatService(ChatRepository chatRepository) {
+    public ChatService(ChatRepository chatRepository, MessageRepository messageRepository, MessageService messageService,
+                       @Value("${chat.buffer-size:100}") int bufferSize,
+                       @Value("${chat.buffered-chats:2000}") int maxBuffers) {
         this.chatRepository = chatRepository;
+        this.messageRepository = messageRepository;
+        this.messageService = messageService;
+        this.bufferSize = bufferSize;
+        this.maxBuffers = maxBuffers;
     }
 
     public Chat getChat(Long lobbyId) {
@@ -38,17 +74,146 @@ public class ChatService {
         chat.setLobbyId(lobbyId);
         chatRepository.save(chat);
         chatRepository.flush();
+        ChatBuffer buffer = new ChatBuffer(bufferSize, 0);
+        buffer.setLastUsed(uses.incrementAndGet());
+        CompletableFuture<ChatBuffer> previous = buffers.put(lobbyId, CompletableFuture.completedFuture(buffer));
+        if (previous != null && previous.isDone() && !previous.isCompletedExceptionally()) {
+            previous.join().close();
+        }
+        trim();
     }
 
     public void addChatMessage(Lobby lobby, String token, Message message) {
         for (Player player : lobby.getPlayersInLobby()) {
             if (player.getToken().equals(token)) {
                 message.setAuthorUsername(player.getUsername());
-                Chat chat = getChat(lobby.getLobbyId());
-                chat.setMessages(message);
-                return;
+                message.setLobbyId(lobby.getLobbyId());
+                // the ids have to reach the buffer in the order they were generated. A buffer that was dropped in the
+                // meantime is closed, the message goes to the buffer that replaced it.
+                while (true) {
+                    ChatBuffer buffer = getBuffer(lobby.getLobbyId());
+                    synchronized (buffer) {
+                        if (!buffer.isClosed()) {
+                            buffer.append(messageService.createMessage(message));
+                            return;
+                        }
+                    }
+                }
             }
         }
         throw new UnauthorizedException("You are not allowed to send this message.");
     }
+
+    /**
+     * @param after id of the last message the client received, null for the latest messages
+     * @return the messages after the cursor, oldest first. If the client fell behind by more than the buffer,
+     *         the next page from the database, the client asks again with the id of the last message.
+     */
+    public List<Message> getMessages(Long lobbyId, Long after) {
+        Optional<List<Message>> buffered = getBuffer(lobbyId).after(after);
+        if (buffered.isPresent()) {
+            return buffered.get();
+        }
+        return messageRepository.findByLobbyIdAndMessageIdGreaterThanOrderByMessageIdAsc(lobbyId, after,
+                PageRequest.of(0, bufferSize));
+    }
+
+    /**
+     * @param before id of the oldest message the client has, null for the latest messages
+     * @param size maximum number of messages returned
+     * @return the messages before the cursor, oldest first
+     */
+    public List<Message> getMessagesBefore(Long lobbyId, Long before, int size) {
+        if (size < 1) {
+            throw new BadRequestException("The size of the page has to be at least 1!");
+        }
+        List<Message> messages = new ArrayList<>(messageRepository.findByLobbyIdAndMessageIdLessThanOrderByMessageIdDesc(
+                lobbyId, before == null ? Long.MAX_VALUE : before, PageRequest.of(0, size)));
+        Collections.reverse(messages);
+        return messages;
+    }
+
+    private ChatBuffer getBuffer(Long lobbyId) {
+        while (true) {
+            CompletableFuture<ChatBuffer> future = buffers.get(lobbyId);
+            if (future == null) {
+                CompletableFuture<ChatBuffer> loading = new CompletableFuture<>();
+                future = buffers.putIfAbsent(lobbyId, loading);
+                if (future == null) {
+                    future = loading;
+                    load(lobbyId, loading);
+                }
+            }
+            ChatBuffer buffer = join(future);
+            if (!buffer.isClosed()) {
+                buffer.setLastUsed(uses.incrementAndGet());
+                return buffer;
+            }
+            // dropped in the meantime
+            buffers.remove(lobbyId, future);
+        }
+    }
+
+    private void load(Long lobbyId, CompletableFuture<ChatBuffer> loading) {
+        try {
+            ChatBuffer buffer = loadBuffer(lobbyId);
+            buffer.setLastUsed(uses.incrementAndGet());
+            loading.complete(buffer);
+        }
+        catch (RuntimeException ex) {
+            buffers.remove(lobbyId, loading);
+            loading.completeExceptionally(ex);
+            throw ex;
+        }
+        trim();
+    }
+
+    private static ChatBuffer join(CompletableFuture<ChatBuffer> future) {
+        try {
+            return future.join();
+        }
+        catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Drops the least recently used buffers while there are more than the configured number. Only runs when a buffer
+     * is added, so the scan over all buffers is rare.
+     */
+    private void trim() {
+        synchronized (trimLock) {
+            while (buffers.size() > maxBuffers) {
+                Map.Entry<Long, CompletableFuture<ChatBuffer>> eldest = null;
+                for (Map.Entry<Long, CompletableFuture<ChatBuffer>> entry : buffers.entrySet()) {
+                    CompletableFuture<ChatBuffer> future = entry.getValue();
+                    // buffers that are still loading are not dropped
+                    if (future.isDone() && !future.isCompletedExceptionally()
+                            && (eldest == null || future.join().getLastUsed() < eldest.getValue().join().getLastUsed())) {
+                        eldest = entry;
+                    }
+                }
+                if (eldest == null) {
+                    return;
+                }
+                // closed before it is removed, so a message is never appended after the chat was reloaded
+                eldest.getValue().join().close();
+                buffers.remove(eldest.getKey(), eldest.getValue());
+            }
+        }
+    }
+
+    private ChatBuffer loadBuffer(Long lobbyId) {
+        // the messages of a dropped buffer may still be queued
+        messageService.flush(lobbyId);
+        List<Message> latest = getMessagesBefore(lobbyId, null, bufferSize);
+        // a full page may not be all messages, the older ones are only in the database
+        long complete = latest.size() < bufferSize ? 0 : latest.get(0).getMessageId() - 1;
+        ChatBuffer buffer = new ChatBuffer(bufferSize, complete);
+        latest.forEach(buffer::append);
+        return buffer;
+    }
 }
@@ -0,0 +1,69 @@
+package ch.uzh.ifi.seal.soprafs20.service;
+
+import ch.uzh.ifi.seal.soprafs20.GameLogic.APIResponse;
+import ch.uzh.ifi.seal.soprafs20.GameLogic.NLP;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Datamuse Bot Clue Provider
+ * Asks the Datamuse API for words with a similar meaning as the current word.
+ * Only used if bot.clue-provider is set to datamuse, every call waits for the external service.
+ */
+@Component
+@ConditionalOnProperty(name = "bot.clue-provider", havingValue = "datamuse")
+public class DatamuseBotClueProvider implements BotClueProvider {
+
+    private final Logger log = LoggerFactory.getLogger(DatamuseBotClueProvider.class);
+
+    private final RestTemplate restTemplate = new RestTemplate();
+    private final ObjectMapper objectMapper;
+    private final NLP nlp = new NLP();
+
+    @Autowired
+    public DatamuseBotClueProvider(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public List<String> getClues(String word) {
+        String uri;
+        // The api call is a bit different if the current word consists of two separate words
+        String[] split = word.split(" ");
+        if(split.length == 1) {
+            uri = String.format("https://api.datamuse.com/words?ml=%s", split[0]);
+        }
+        else if(split.length == 2) {
+            uri = String.format("https://api.datamuse.com/words?ml=%s+%s", split[0], split[1]);
+        }
+        else { return Collections.emptyList(); }
+        try {
+            String result = restTemplate.getForObject(uri, String.class);
+            List<APIResponse> response = objectMapper.readValue(result, new TypeReference<>() {
+            });
+            List<String> clues = new ArrayList<>();
+            for (APIResponse apiResponse : response) {
+                if (nlp.checkClue(apiResponse.getWord(), word)) {
+                    clues.add(apiResponse.getWord());
+                }
+            }
+            return clues;
+        }
+        catch (RestClientException | JsonProcessingException ex) {
+            log.error(String.format("Could not get clues for %s from Datamuse: %s", word, ex));
+            return Collections.emptyList();
+        }
+    }
+}
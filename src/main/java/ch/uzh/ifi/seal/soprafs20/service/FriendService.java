@@ -0,0 +1,158 @@
+package ch.uzh.ifi.seal.soprafs20.service;
+
+import ch.uzh.ifi.seal.soprafs20.constant.UserStatus;
+import ch.uzh.ifi.seal.soprafs20.entity.Friendship;
+import ch.uzh.ifi.seal.soprafs20.entity.User;
+import ch.uzh.ifi.seal.soprafs20.exceptions.NoContentException;
+import ch.uzh.ifi.seal.soprafs20.exceptions.NotFoundException;
+import ch.uzh.ifi.seal.soprafs20.exceptions.UnauthorizedException;
+import ch.uzh.ifi.seal.soprafs20.repository.FriendshipRepository;
+import ch.uzh.ifi.seal.soprafs20.repository.UserRepository;
+import ch.uzh.ifi.seal.soprafs20.rest.dto.FriendPutDTO;
+import ch.uzh.ifi.seal.soprafs20.rest.dto.RequestGetDTO;
+import ch.uzh.ifi.seal.soprafs20.rest.dto.RequestPutDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Friend Service
+ * This class is responsible for the friend graph: friend requests, friends and which friends are online.
+ * The graph is stored as edges between user ids, the friend lists are read in one query without loading the users.
+ * The friend ids of a user are cached once they were read, so checking whether two users are friends or which
+ * friends are online does not need to read the graph again. Accepted requests are added to the cache once the
+ * transaction is committed.
+ */
+@Service
+@Transactional
+public class FriendService {
+
+    private final Logger log = LoggerFactory.getLogger(FriendService.class);
+
+    private final FriendshipRepository friendshipRepository;
+    private final UserRepository userRepository;
+    // user id -> ids of its friends, only filled for users whose friends were read
+    private final Map<Long, Set<Long>> friendIds = new ConcurrentHashMap<>();
+
+    @Autowired
+    public FriendService(FriendshipRepository friendshipRepository, UserRepository userRepository) {
+        this.friendshipRepository = friendshipRepository;
+        this.userRepository = userRepository;
+    }
+
+    public List<RequestGetDTO> getFriends(Long userId) {
+        return friendshipRepository.findFriends(userId, true);
+    }
+
+    public List<RequestGetDTO> getFriendRequests(Long userId) {
+        return friendshipRepository.findFriends(userId, false);
+    }
+
+    /**
+     * Returns the friends of the user that are online, e.g. to invite them to a lobby
+     */
+    public List<RequestGetDTO> getOnlineFriends(Long userId) {
+        Set<Long> ids = getFriendIds(userId);
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return userRepository.findUsersByStatus(ids, UserStatus.ONLINE);
+    }
+
+    /**
+     * Returns the ids of the friends of the user, read from the database only the first time.
+     * The ids are loaded inside computeIfAbsent, so a friend added to the cache waits until a running load is done
+     */
+    public Set<Long> getFriendIds(Long userId) {
+        Set<Long> ids = friendIds.computeIfAbsent(userId, id -> {
+            Set<Long> loaded = ConcurrentHashMap.newKeySet();
+            loaded.addAll(friendshipRepository.findFriendIds(id));
+            return loaded;
+        });
+        return Collections.unmodifiableSet(ids);
+    }
+
+    public boolean areFriends(Long userId, Long otherId) {
+        return getFriendIds(userId).contains(otherId);
+    }
+
+    public void addFriendRequest(User receiver, RequestPutDTO requestPutDTO) {
+        Optional<User> sender = userRepository.findById(requestPutDTO.getSenderID());
+        if (sender.isEmpty()) {
+            throw new NotFoundException(String.format("User with id %s does not exist!", requestPutDTO.getSenderID()));
+        }
+        if (!sender.get().getToken().equals(requestPutDTO.getToken())) {
+            throw new UnauthorizedException("You are not allowed to send a friend request!");
+        }
+        Optional<Friendship> edge = friendshipRepository.findByUserIdAndFriendId(receiver.getId(), sender.get().getId());
+        if (edge.isPresent()) {
+            throw new NoContentException(edge.get().isAccepted() ? "You are already friends with this user!"
+                    : "This user already got a friend request from you!");
+        }
+        Friendship request = new Friendship();
+        request.setUserId(receiver.getId());
+        request.setFriendId(sender.get().getId());
+        friendshipRepository.save(request);
+    }
+
+    public void acceptOrDeclineFriendRequest(User receiver, FriendPutDTO friendPutDTO) {
+        if (!receiver.getToken().equals(friendPutDTO.getAccepterToken())) {
+            throw new UnauthorizedException("Not allowed to accept/deny friend request!");
+        }
+        Long senderId = friendPutDTO.getRequesterID();
+        Optional<Friendship> request = friendshipRepository.findByUserIdAndFriendId(receiver.getId(), senderId);
+        if (request.isEmpty() || request.get().isAccepted()) {
+            throw new NotFoundException(String.format("No friend request from user with id %s was found!", senderId));
+        }
+        if (!friendPutDTO.getAccepted()) {
+            friendshipRepository.delete(request.get());
+            return;
+        }
+        request.get().setAccepted(true);
+        friendshipRepository.save(request.get());
+
+        // a request the receiver sent to the sender in the meantime becomes the edge in the other direction
+        Friendship reverse = friendshipRepository.findByUserIdAndFriendId(senderId, receiver.getId()).orElseGet(() -> {
+            Friendship friendship = new Friendship();
+            friendship.setUserId(senderId);
+            friendship.setFriendId(receiver.getId());
+            return friendship;
+        });
+        reverse.setAccepted(true);
+        friendshipRepository.save(reverse);
+
+        // a load that starts before the commit would not see the new edges, so the cache is updated after it
+        afterCommit(() -> {
+            addCachedFriend(receiver.getId(), senderId);
+            addCachedFriend(senderId, receiver.getId());
+        });
+        log.debug("User {} and user {} are friends now.", receiver.getId(), senderId);
+    }
+
+    private void addCachedFriend(Long userId, Long friendId) {
+        friendIds.computeIfPresent(userId, (id, ids) -> {
+            ids.add(friendId);
+            return ids;
+        });
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
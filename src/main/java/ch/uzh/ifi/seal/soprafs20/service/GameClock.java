@@ -0,0 +1,149 @@
+package ch.uzh.ifi.seal.soprafs20.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Game Clock
+ * This class drives the timers of all running games with one small, shared pool of scheduler threads.
+ * Every game registers the deadline of its current state under its lobby id, which replaces the previous deadline,
+ * so no game owns a thread of its own and a game is only touched when one of its deadlines is reached.
+ */
+@Component
+public class GameClock implements MeterBinder {
+
+    private final Logger log = LoggerFactory.getLogger(GameClock.class);
+
+    private final ScheduledExecutorService scheduler;
+    private final Map<Long, GameTask> scheduledGames = new ConcurrentHashMap<>();
+
+    @Autowired
+    public GameClock(@Value("${game.clock.threads:2}") int threads) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(threads, runnable -> {
+            Thread thread = new Thread(runnable, "game-clock-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // cancelled tasks should not stay in the queue until their deadline is reached
+        executor.setRemoveOnCancelPolicy(true);
+        this.scheduler = executor;
+    }
+
+    /**
+     * Registers a task that is executed once after the given delay.
+     * A task that is already registered for the same game is cancelled.
+     *
+     * @param lobbyId id of the game the task belongs to
+     * @param task the task to execute
+     */
+    public void schedule(Long lobbyId, Runnable task, long delay, TimeUnit unit) {
+        GameTask gameTask = register(lobbyId, task);
+        gameTask.setFuture(scheduler.schedule(gameTask, Math.max(delay, 0), unit));
+    }
+
+    /**
+     * Cancels the task of the given game, if there is one, e.g. when the game ends
+     */
+    public void cancel(Long lobbyId) {
+        GameTask gameTask = scheduledGames.remove(lobbyId);
+        if (gameTask != null) {
+            gameTask.cancel();
+        }
+    }
+
+    public boolean isScheduled(Long lobbyId) {
+        return scheduledGames.containsKey(lobbyId);
+    }
+
+    /**
+     * @return the number of games that currently have a task registered
+     */
+    public int getScheduledGames() {
+        return scheduledGames.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("game.clock.scheduled", scheduledGames, Map::size)
+                .description("Number of games with a registered timer task")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        scheduledGames.clear();
+    }
+
+    private GameTask register(Long lobbyId, Runnable task) {
+        GameTask gameTask = new GameTask(lobbyId, task);
+        GameTask previous = scheduledGames.put(lobbyId, gameTask);
+        if (previous != null) {
+            previous.cancel();
+        }
+        return gameTask;
+    }
+
+    /**
+     * Task registered for one game, it removes itself from the clock once it has run.
+     */
+    private class GameTask implements Runnable {
+        private final Long lobbyId;
+        private final Runnable task;
+        private volatile boolean cancelled;
+        private volatile ScheduledFuture<?> future;
+
+        GameTask(Long lobbyId, Runnable task) {
+            this.lobbyId = lobbyId;
+            this.task = task;
+        }
+
+        void setFuture(ScheduledFuture<?> future) {
+            this.future = future;
+            if (cancelled) {
+                future.cancel(false);
+            }
+        }
+
+        void cancel() {
+            cancelled = true;
+            ScheduledFuture<?> scheduled = future;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+        }
+
+        @Override
+        public void run() {
+            if (cancelled) {
+                return;
+            }
+            // an exception must not kill the scheduler thread
+            try {
+                task.run();
+            }
+            catch (RuntimeException ex) {
+                log.error(String.format("Timer task of game %d raised %s", lobbyId, ex));
+            }
+            finally {
+                scheduledGames.remove(lobbyId, this);
+            }
+        }
+    }
+}
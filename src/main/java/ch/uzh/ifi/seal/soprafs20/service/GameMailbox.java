@@ -0,0 +1,200 @@
+package ch.uzh.ifi.seal.soprafs20.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Game Mailbox
+ * Every game owns a mailbox into which all commands that read or modify the game are posted, be it from a request,
+ * a reached deadline or the write-behind of the game state store.
+ * The commands of one mailbox are processed one after the other in the order they were posted, so the game
+ * is never accessed by two threads at the same time and needs no locks. The mailboxes of all games share one pool
+ * of threads, so games of different lobbies are processed in parallel.
+ * A mailbox only exists while it has commands to process: it is created by the first command posted and retires
+ * once its queue is drained, so requests for games that are over or never existed leave nothing behind.
+ */
+@Component
+public class GameMailbox implements MeterBinder {
+
+    private static final int BATCH_SIZE = 64;
+
+    private final Logger log = LoggerFactory.getLogger(GameMailbox.class);
+
+    private final ExecutorService executor;
+    private final Map<Long, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final ThreadLocal<Mailbox> currentMailbox = new ThreadLocal<>();
+
+    @Autowired
+    public GameMailbox(@Value("${game.mailbox.threads:0}") int threads) {
+        AtomicInteger threadCount = new AtomicInteger();
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = Executors.newFixedThreadPool(poolSize, runnable -> {
+            Thread thread = new Thread(runnable, "game-mailbox-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Posts a command into the mailbox of the game without waiting for it to be processed
+     *
+     * @param lobbyId id of the game the command belongs to
+     * @param command the command to process
+     */
+    public void post(Long lobbyId, Runnable command) {
+        // queued under the lock of the map entry, so the mailbox can not retire in between
+        Mailbox mailbox = mailboxes.compute(lobbyId, (id, existing) -> {
+            Mailbox target = existing == null ? new Mailbox(id) : existing;
+            target.offer(command);
+            return target;
+        });
+        mailbox.scheduleIfNeeded();
+    }
+
+    /**
+     * Posts a command into the mailbox of the game and waits until it is processed.
+     * Exceptions thrown by the command are rethrown to the caller.
+     * If the caller is already processing a command of this game, the command is executed right away.
+     *
+     * @param lobbyId id of the game the command belongs to
+     * @param command the command to process
+     * @return the result of the command
+     */
+    public <T> T call(Long lobbyId, Supplier<T> command) {
+        Mailbox current = currentMailbox.get();
+        if (current != null && current.lobbyId.equals(lobbyId)) {
+            return command.get();
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        post(lobbyId, () -> {
+            try {
+                result.complete(command.get());
+            }
+            catch (Throwable ex) {
+                result.completeExceptionally(ex);
+            }
+        });
+        try {
+            return result.join();
+        }
+        catch (CompletionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Same as {@link #call(Long, Supplier)} for commands without a result
+     */
+    public void run(Long lobbyId, Runnable command) {
+        call(lobbyId, () -> {
+            command.run();
+            return null;
+        });
+    }
+
+    public int getMailboxes() {
+        return mailboxes.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("game.mailbox.count", mailboxes, Map::size)
+                .description("Number of games with commands queued or being processed")
+                .register(registry);
+        Gauge.builder("game.mailbox.pending", mailboxes, boxes -> boxes.values().stream().mapToInt(Mailbox::size).sum())
+                .description("Number of commands waiting to be processed")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Queue of commands of one game. The mailbox is handed to the pool whenever it has commands and is not
+     * processed already, the scheduled flag makes sure that at most one thread processes it at a time.
+     * Commands are only queued while the mailbox is registered, and it is only unregistered while it is neither
+     * queued nor processed, so there is never more than one mailbox per game at work.
+     */
+    private class Mailbox implements Runnable {
+        private final Long lobbyId;
+        private final Queue<Runnable> commands = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        Mailbox(Long lobbyId) {
+            this.lobbyId = lobbyId;
+        }
+
+        void offer(Runnable command) {
+            commands.offer(command);
+        }
+
+        int size() {
+            return commands.size();
+        }
+
+        void scheduleIfNeeded() {
+            if (!commands.isEmpty() && scheduled.compareAndSet(false, true)) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            currentMailbox.set(this);
+            try {
+                // a busy game hands its thread back after a batch, so it can not starve the other games
+                for (int i = 0; i < BATCH_SIZE; i++) {
+                    Runnable command = commands.poll();
+                    if (command == null) {
+                        break;
+                    }
+                    try {
+                        command.run();
+                    }
+                    catch (RuntimeException ex) {
+                        log.error(String.format("Command of game %d raised %s", lobbyId, ex));
+                    }
+                }
+            }
+            finally {
+                currentMailbox.remove();
+                scheduled.set(false);
+                retireIfIdle();
+                scheduleIfNeeded();
+            }
+        }
+
+        private void retireIfIdle() {
+            mailboxes.computeIfPresent(lobbyId, (id, mailbox) ->
+                    mailbox == this && commands.isEmpty() && !scheduled.get() ? null : mailbox);
+        }
+    }
+}
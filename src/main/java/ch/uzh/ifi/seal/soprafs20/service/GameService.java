@@ -1,8 +1,9 @@
 package ch.uzh.ifi.seal.soprafs20.service;
 
-import ch.uzh.ifi.seal.soprafs20.GameLogic.APIResponse;
+import ch.uzh.ifi.seal.soprafs20.GameLogic.ClueIndex;
 import ch.uzh.ifi.seal.soprafs20.GameLogic.NLP;
-import ch.uzh.ifi.seal.soprafs20.GameLogic.WordReader;
+import ch.uzh.ifi.seal.soprafs20.GameLogic.VoteTally;
+import ch.uzh.ifi.seal.soprafs20.GameLogic.WordDictionary;
 import ch.uzh.ifi.seal.soprafs20.GameLogic.GameState;
 import ch.uzh.ifi.seal.soprafs20.entity.*;
 import ch.uzh.ifi.seal.soprafs20.exceptions.ConflictException;
@@ -12,13 +13,13 @@ import ch.uzh.ifi.seal.soprafs20.repository.*;
 import ch.uzh.ifi.seal.soprafs20.rest.dto.CluePutDTO;
 import ch.uzh.ifi.seal.soprafs20.rest.dto.GamePostDTO;
 import ch.uzh.ifi.seal.soprafs20.rest.dto.MessagePutDTO;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.*;
 import java.util.concurrent.TimeUnit;
@@ -35,9 +36,17 @@ public class GameService{
     private final GameRepository gameRepository;
     private final LobbyRepository lobbyRepository;
     private final UserRepository userRepository;
-    private final ClueRepository clueRepository;
     private final LobbyScoreRepository lobbyScoreRepository;
     private final PlayerRepository playerRepository;
+    private final GameClock gameClock;
+    private final GameStateStore gameStateStore;
+    private final GameMailbox gameMailbox;
+    private final GameStream gameStream;
+    private final GameView gameView;
+    private final BotCluePrefetcher botCluePrefetcher;
+    private final WordDictionary wordDictionary;
+    private final LeaderboardService leaderboardService;
+    private final TransactionTemplate transactionTemplate;
     private static final int PICK_WORD_TIME = 10;
     private static final int ENTER_CLUES_TIME = 30;
     private static final int VOTE_TIME = 15;
@@ -48,21 +57,36 @@ public class GameService{
     NLP nlp = new NLP();
 
     @Autowired
-    public GameService(GameRepository gameRepository, LobbyRepository lobbyRepository, UserRepository userRepository, LobbyScoreRepository lobbyScoreRepository, ClueRepository clueRepository, PlayerRepository playerRepository) {
+    public GameService(GameRepository gameRepository, LobbyRepository lobbyRepository, UserRepository userRepository, LobbyScoreRepository lobbyScoreRepository, PlayerRepository playerRepository, GameClock gameClock, GameStateStore gameStateStore, GameMailbox gameMailbox, GameStream gameStream, GameView gameView, BotCluePrefetcher botCluePrefetcher, WordDictionary wordDictionary, LeaderboardService leaderboardService, PlatformTransactionManager transactionManager) {
 
         this.gameRepository = gameRepository;
         this.lobbyRepository = lobbyRepository;
         this.userRepository = userRepository;
-        this.clueRepository = clueRepository;
         this.lobbyScoreRepository = lobbyScoreRepository;
         this.playerRepository = playerRepository;
+        this.gameClock = gameClock;
+        this.gameStateStore = gameStateStore;
+        this.gameMailbox = gameMailbox;
+        this.gameStream = gameStream;
+        this.gameView = gameView;
+        this.botCluePrefetcher = botCluePrefetcher;
+        this.wordDictionary = wordDictionary;
+        this.leaderboardService = leaderboardService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
+    /**
+     * Returns the live instance of the game. Games that are not held in memory yet are loaded from their last snapshot.
+     */
     public Game getGame(Long id) {
-        Game game;
+        Optional<Game> liveGame = gameStateStore.find(id);
+        if (liveGame.isPresent()) {
+            return liveGame.get();
+        }
         Optional<Game> optionalGame = gameRepository.findById(id);
         if (optionalGame.isPresent()) {
-            game = optionalGame.get();
+            Game game = optionalGame.get();
+            gameStateStore.put(game);
             return game;
         }
         else {
@@ -70,16 +94,34 @@ public class GameService{
         }
     }
 
+    /**
+     * Recovers the games that were running when the server stopped from their last snapshot and re-arms their deadlines
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverGames() {
+        for (Game game : gameRepository.findAll()) {
+            gameStateStore.put(game);
+            gameMailbox.post(game.getLobbyId(), () -> timer(game));
+        }
+    }
+
     public int getMaxTime(Game game){
-        if(game.getGameState().equals(GameState.END_GAME_STATE))
+        return getMaxTime(game.getGameState());
+    }
+
+    /**
+     * @return the time in seconds the players have to complete the given state
+     */
+    public static int getMaxTime(GameState gameState){
+        if(gameState.equals(GameState.END_GAME_STATE))
             return END_TIME;
-        else if(game.getGameState().equals(GameState.PICK_WORD_STATE))
+        else if(gameState.equals(GameState.PICK_WORD_STATE))
             return PICK_WORD_TIME;
-        else if(game.getGameState().equals(GameState.TRANSITION_STATE))
+        else if(gameState.equals(GameState.TRANSITION_STATE))
             return TRANSITION_TIME;
-        else if(game.getGameState().equals(GameState.ENTER_CLUES_STATE))
+        else if(gameState.equals(GameState.ENTER_CLUES_STATE))
             return ENTER_CLUES_TIME;
-        else if(game.getGameState().equals(GameState.VOTE_ON_CLUES_STATE))
+        else if(gameState.equals(GameState.VOTE_ON_CLUES_STATE))
             return VOTE_TIME;
         else
             return GUESS_TIME;
@@ -125,11 +167,11 @@ public class GameService{
         setStartTime(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()), newGame);
 
         //select 13 random words from words.txt
-        WordReader reader = new WordReader();
-        newGame.setWords(reader.getRandomWords(13));
+        newGame.setWords(wordDictionary.sample(13));
 
         newGame = gameRepository.save(newGame);
         gameRepository.flush();
+        gameStateStore.put(newGame);
         return newGame;
     }
 
@@ -137,6 +179,7 @@ public class GameService{
         if(!game.getGameState().equals(GameState.ENTER_CLUES_STATE))
             throw new UnauthorizedException("Clues are not accepted in current state!");
 
+        player = getPlayerInGame(game, player);
         if(!game.getPlayers().contains(player) || player.isClueIsSent() || game.getCurrentGuesser().equals(player) ||
                 (!player.getToken().equals(cluePutDTO.getPlayerToken()))){
             throw new UnauthorizedException("This player is not allowed to send a clue!");
@@ -151,8 +194,6 @@ public class GameService{
             player.setClueIsSent(true);
             // if the same clue is sent twice, remove it from list of entered clues
             addClue(clue, game);
-            clueRepository.saveAndFlush(clue);
-            gameRepository.saveAndFlush(game);
         }
         else {
             sendClueSpecial(game, player, cluePutDTO);
@@ -166,7 +207,6 @@ public class GameService{
         if(allSent(game, counter)) {
             generateCluesForBots(game);
             checkClues(game);
-            gameRepository.saveAndFlush(game);
             return true;
         }
         return false;
@@ -196,8 +236,9 @@ public class GameService{
             throw new UnauthorizedException("This player is not allowed to pick a word!");
         }
         game.setCurrentWord(chooseWordAtRandom(game.getWords()));
+        botCluePrefetcher.prefetch(game.getLobbyId(), game.getCurrentWord());
         game.setGameState(GameState.ENTER_CLUES_STATE);
-        gameRepository.saveAndFlush(game);
+        changed(game);
         return true;
     }
 
@@ -206,6 +247,7 @@ public class GameService{
      */
     public void pickWord(Game game) {
         game.setCurrentWord(chooseWordAtRandom(game.getWords()));
+        botCluePrefetcher.prefetch(game.getLobbyId(), game.getCurrentWord());
     }
 
 
@@ -232,10 +274,6 @@ public class GameService{
         addClue(firstClue, game);
         addClue(secondClue, game);
         player.setClueIsSent(true);
-
-        gameRepository.saveAndFlush(game);
-        clueRepository.saveAndFlush(firstClue);
-        clueRepository.saveAndFlush(secondClue);
     }
 
 
@@ -254,11 +292,12 @@ public class GameService{
         game.setGuessCorrect(messagePutDTO.getMessage().equalsIgnoreCase(game.getCurrentWord()));
         game.setCurrentGuess(messagePutDTO.getMessage());
         guesserScore(game, time);
-        gameRepository.saveAndFlush(game);
+        changed(game);
     }
 
     private void guesserScore(Game game, long time){
-        int pastScore = game.getCurrentGuesser().getScore();
+        Player guesser = game.getCurrentGuesser();
+        int pastScore = guesser.getScore();
         int score = 0;
         if(game.isGuessCorrect()){
             if(game.isSpecialGame()){
@@ -268,7 +307,7 @@ public class GameService{
                 score = (int) ((GUESS_TIME - time)*5);
             }
             game.setOverallScore(game.getOverallScore() + score);
-            game.getCurrentGuesser().setScore(pastScore + score);
+            guesser.setScore(pastScore + score);
         }
         else {
             if(game.isSpecialGame()){
@@ -277,8 +316,8 @@ public class GameService{
             if(!game.isSpecialGame()){
                 score = -30;
             }
-            game.getCurrentGuesser().setScore(Math.max(pastScore+score,0));
-            if(game.getCurrentGuesser().getScore() <= 0){
+            guesser.setScore(Math.max(pastScore+score,0));
+            if(guesser.getScore() <= 0){
                 game.setOverallScore(Math.max(game.getOverallScore() - pastScore,0));
             } else {
                 game.setOverallScore(Math.max(game.getOverallScore() + score, 0));
@@ -302,22 +341,25 @@ public class GameService{
         game.getCurrentGuesser().setGuessIsSent(false);
         game.getEnteredClues().clear();
         game.getInvalidClues().clear();
+        game.getVoteTally().clear();
+        game.getClueIndex().clear();
         game.setGuessCorrect(false);
         game.setCurrentGuess("");
-        gameRepository.saveAndFlush(game);
+        changed(game);
     }
 
     public void checkClues(Game game) {
         List<Clue> invalidClues = new ArrayList<>();
+        NLP.CurrentWord currentWord = nlp.prepare(game.getCurrentWord());
         for (Clue clue : game.getEnteredClues()) {
-            if (!nlp.checkClue(clue.getActualClue(), game.getCurrentWord())) {
+            if (!nlp.checkClue(clue.getActualClue(), currentWord)) {
                 clue.setPlayerId(-1L);
                 invalidClues.add(clue);
             }
         }
         game.getEnteredClues().removeAll(invalidClues);
         game.addInvalidClues(invalidClues);
-        gameRepository.saveAndFlush(game);
+        changed(game);
     }
 
     /**
@@ -331,7 +373,7 @@ public class GameService{
 
     public void setStartTime(long time, Game game) {
         game.setStartTimeSeconds(time);
-        gameRepository.saveAndFlush(game);
+        changed(game);
     }
 
 
@@ -355,10 +397,11 @@ public class GameService{
                 counter++;
             }
         }
+        Set<Clue> enteredClues = new HashSet<>(game.getEnteredClues());
         for (Player player : game.getPlayers()) {
             // in case of 3-player-logic, the size of clues is 2, otherwise 1 (or 0, if player did not send any clues)
             for(int i = 0; i < player.getClues().size(); i++) {
-                if(game.getEnteredClues().contains(player.getClue(i))) {
+                if(enteredClues.contains(player.getClue(i))) {
                     int newScore = 0;
                     if (!game.isSpecialGame() && game.isGuessCorrect()){
                         newScore = (int) (player.getClue(i).getTimeNeeded() * ((game.getPlayers().size() - counter)));
@@ -386,137 +429,182 @@ public class GameService{
         }
     }
 
-    void updateUserDatabase(Game game){
+    /**
+     * Adds the scores of the players to the scores of their users, all users are updated in one batch
+     *
+     * @return the added scores by user id
+     */
+    Map<Long, Integer> updateUserDatabase(Game game){
+        Map<Long, Integer> scores = new HashMap<>();
         for(Player player: game.getPlayers()){
-            Optional<User> optionalUser = userRepository.findById(player.getId());
-            if (optionalUser.isPresent()) {
-                User user = optionalUser.get();
-                user.setScore(user.getScore() + player.getScore());
-                userRepository.saveAndFlush(user);
-            }
+            scores.put(player.getId(), player.getScore());
         }
-
+        userRepository.addScores(scores);
+        return scores;
     }
 
-
-
     /**
-     * Central timer logic for each game. Sets timer for each state,
-     * If state is complete before the timer ends, the game transitions into the next state with a new timer.
-     * Timer also takes care of all the logic set up for the next state if no user input was entered
+     * Central timer logic for each game. Registers the deadline of the current state on the shared game clock.
+     * If a state is complete before its deadline, the game transitions into the next state and the deadline is replaced,
+     * so a game is not touched at all between two transitions. A reached deadline is posted into the mailbox of the game
+     * and processed in order with the commands of the players.
+     * When a deadline is reached, the timer takes care of all the logic set up for the next state if no user input was entered
      *
-     * @param g - takes a game instance as input
+     * @param game - takes a game instance as input
      */
-    public void timer(Game g) {
-        final Game[] game = {g};
-        TimerTask timerTask = new TimerTask() {
-            @Override
-            public void run() {
-                game[0] = getUpdatedGame(game[0]);
-                game[0].setTime(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) - game[0].getStartTimeSeconds());
-                //PickwordState
-                if(game[0].getTime() >= PICK_WORD_TIME && game[0].getRoundsPlayed() <= game[0].getRounds() && !getCancel(game[0]) && game[0].getGameState().equals(GameState.PICK_WORD_STATE)){
-                    game[0].getTimer().cancel();
-                    game[0].getTimer().purge();
-                    pickWord(game[0]);
-
-                    game[0].setGameState(getNextState(game[0]));
-                    game[0].setStartTimeSeconds(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()));
-
-                    gameRepository.saveAndFlush(game[0]);
-                }
+    public void timer(Game game) {
+        if (game.getRoundsPlayed() > game.getRounds()) {
+            return;
+        }
+        GameState state = game.getGameState();
+        int round = game.getRoundsPlayed();
+        long deadline = TimeUnit.SECONDS.toMillis(game.getStartTimeSeconds() + getMaxTime(game));
+        gameClock.schedule(game.getLobbyId(), () -> gameMailbox.post(game.getLobbyId(), () -> onDeadline(game, state, round)),
+                deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+    }
 
-                //EnterCluesState
-                else if(game[0].getTime() >= ENTER_CLUES_TIME && game[0].getRoundsPlayed() <= game[0].getRounds() && !getCancel(game[0]) && game[0].getGameState().equals(GameState.ENTER_CLUES_STATE)){
-                    game[0].getTimer().cancel();
-                    game[0].getTimer().purge();
-                    sendClue(game[0]);
-                    game[0].setGameState(getNextState(game[0]));
-                    game[0].setStartTimeSeconds(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()));
-                    gameRepository.saveAndFlush(game[0]);
-                }
+    /**
+     * Moves the game into the given state once all players completed the current state before its deadline
+     * and registers the deadline of the new state instead
+     *
+     * @param game the game whose current state is complete
+     * @param nextState the state the game transitions into
+     */
+    public void transition(Game game, GameState nextState) {
+        game.setGameState(nextState);
+        game.setStartTimeSeconds(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()));
+        stateChanged(game);
+        timer(game);
+    }
 
-                //VoteState
-                else if(game[0].getTime() >= VOTE_TIME && game[0].getRoundsPlayed() <= game[0].getRounds() && !getCancel(game[0]) && game[0].getGameState().equals(GameState.VOTE_ON_CLUES_STATE)){
-                    game[0].getTimer().cancel();
-                    game[0].getTimer().purge();
-                    vote(game[0]);
-                    game[0].setGameState(getNextState(game[0]));
-                    game[0].setStartTimeSeconds(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()));
-                    gameRepository.saveAndFlush(game[0]);
-                }
-                //GuessState
-                else if(game[0].getTime() >= GUESS_TIME && game[0].getRoundsPlayed() <= game[0].getRounds() && !getCancel(game[0]) && game[0].getGameState().equals(GameState.ENTER_GUESS_STATE)){
-                    game[0].getTimer().cancel();
-                    game[0].getTimer().purge();
-                    game[0].setGuessCorrect(false);
-                    game[0].setGameState(getNextState(game[0]));
-                    updateScores(game[0]);
-                    guesserScore(game[0], GUESS_TIME);
-
-                    game[0].setStartTimeSeconds(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()));
-                    gameRepository.saveAndFlush(game[0]);
-                }
-                //TransitionState
-                else if(game[0].getTime() >= TRANSITION_TIME && game[0].getRoundsPlayed() <= game[0].getRounds() && !getCancel(game[0]) && game[0].getGameState().equals(GameState.TRANSITION_STATE)){
-                    game[0].getTimer().cancel();
-                    game[0].getTimer().purge();
-                    startNewRound(game[0]);
-                    if(game[0].getRoundsPlayed() > game[0].getRounds()){
-                        game[0].setGameState(GameState.END_GAME_STATE);
-                        game[0].setRoundsPlayed(game[0].getRounds());
-                    } else {
-                        game[0].setGameState(getNextState(game[0]));
-                    }
-                    game[0].setStartTimeSeconds(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()));
-                    gameRepository.saveAndFlush(game[0]);
+    /**
+     * Handles a reached deadline of the given state and registers the deadline of the following state
+     */
+    void onDeadline(Game g, GameState state, int round) {
+        Game game = getUpdatedGame(g);
+        // the deadline is outdated if the players already completed the state
+        if (!game.getGameState().equals(state) || game.getRoundsPlayed() != round) {
+            return;
+        }
+        game.setTime(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) - game.getStartTimeSeconds());
+        switch (state) {
+            case PICK_WORD_STATE:
+                pickWord(game);
+                game.setGameState(getNextState(game));
+                break;
+            case ENTER_CLUES_STATE:
+                sendClue(game);
+                game.setGameState(getNextState(game));
+                break;
+            case VOTE_ON_CLUES_STATE:
+                vote(game);
+                game.setGameState(getNextState(game));
+                break;
+            case ENTER_GUESS_STATE:
+                game.setGuessCorrect(false);
+                game.setGameState(getNextState(game));
+                updateScores(game);
+                guesserScore(game, GUESS_TIME);
+                break;
+            case TRANSITION_STATE:
+                startNewRound(game);
+                if(game.getRoundsPlayed() > game.getRounds()){
+                    game.setGameState(GameState.END_GAME_STATE);
+                    game.setRoundsPlayed(game.getRounds());
+                } else {
+                    game.setGameState(getNextState(game));
                 }
+                break;
+            default:
+                endGame(game);
+                return;
+        }
+        game.setStartTimeSeconds(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()));
+        stateChanged(game);
+        timer(game);
+    }
 
-                //EndGameState
-                else if (game[0].getTime() >= END_TIME && !getCancel(game[0]) && game[0].getGameState().equals(GameState.END_GAME_STATE)){
-                    game[0].getTimer().cancel();
-                    game[0].getTimer().purge();
-                    g.getTimer().cancel();
-                    g.getTimer().purge();
-
-                    updateUserDatabase(game[0]);
-                    Lobby currentLobby = getUpdatedLobby(game[0].getLobbyId());
-                    currentLobby.setGameIsStarted(false);
-                    lobbyRepository.saveAndFlush(currentLobby);
-
-                    LobbyScore lobbyScore = new LobbyScore();
-                    lobbyScore.setLobbyName(game[0].getLobbyName());
-                    lobbyScore.setScore(game[0].getOverallScore());
-                    lobbyScore.setPlayersIdInLobby(game[0].getPlayers());
-                    lobbyScore.setDate(new Date());
-                    lobbyScoreRepository.saveAndFlush(lobbyScore);
-
-                    for(Player p: game[0].getPlayers()){
-                        p.setScore(0);
-                    }
-                    playerRepository.saveAll(game[0].getPlayers());
+    /**
+     * Transfers the scores of the players to their users, stores the score of the lobby and deletes the game
+     */
+    /**
+     * Ends the game. The user scores, the lobby, the lobby score, the reset of the player scores and the removal
+     * of the game are written in one transaction, the leaderboard is updated once it is committed
+     */
+    private void endGame(Game game) {
+        Long lobbyId = game.getLobbyId();
+        gameClock.cancel(lobbyId);
+        gameStateStore.remove(lobbyId);
+        gameStream.close(lobbyId);
+        gameView.forget(lobbyId);
+        botCluePrefetcher.discard(lobbyId);
+
+        LobbyScore lobbyScore = new LobbyScore();
+        lobbyScore.setLobbyName(game.getLobbyName());
+        lobbyScore.setScore(game.getOverallScore());
+        lobbyScore.setPlayersIdInLobby(game.getPlayers());
+        lobbyScore.setDate(new Date());
+
+        Set<Long> playerIds = new HashSet<>();
+        for(Player p: game.getPlayers()){
+            playerIds.add(p.getId());
+        }
+        Map<Long, Integer> scores = transactionTemplate.execute(status -> {
+            Map<Long, Integer> userScores = updateUserDatabase(game);
+            getUpdatedLobby(lobbyId).setGameIsStarted(false);
+            lobbyScoreRepository.save(lobbyScore);
+            playerRepository.resetScores(playerIds);
+            gameRepository.findById(lobbyId).ifPresent(persisted -> {
+                persisted.setPlayers(null);
+                persisted.setCurrentGuesser(null);
+                gameRepository.delete(persisted);
+            });
+            return userScores;
+        });
+        leaderboardService.addUserScores(scores);
+        leaderboardService.addLobbyScore(lobbyScore);
 
-                    game[0].setPlayers(null);
-                    game[0].setCurrentGuesser(null);
-                    gameRepository.saveAndFlush(game[0]);
-                    gameRepository.delete(game[0]);
-                    gameRepository.flush();
-                }
-                //player input cancels timer
-                else if (getCancel(game[0]) && game[0].getRoundsPlayed() <= game[0].getRounds() && !game[0].getGameState().equals(GameState.END_GAME_STATE)) {
-                    game[0].getTimer().cancel();
-                    game[0] = getUpdatedGame(game[0]);
-                    game[0].setStartTimeSeconds(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()));
-                    game[0].getTimer().setCancel(false);
-                    gameRepository.saveAndFlush(game[0]);
-                }
-            }
-        };
-        if(game[0].getRoundsPlayed() <= game[0].getRounds()) {
-            game[0].getTimer().schedule(timerTask, 0, 1000);
+        for(Player p: game.getPlayers()){
+            p.setScore(0);
         }
     }
 
+    /**
+     * Helper function to record a change of the game, it gets a new version, is written behind
+     * and pushed to the subscribed players
+     */
+    private void changed(Game game) {
+        game.setVersion(game.getVersion() + 1);
+        gameStateStore.markDirty(game);
+        gameStream.publish(game);
+    }
+
+    /**
+     * Same as changed, but the game is not written behind, the change is written with the next change of the state
+     */
+    private void changedInMemory(Game game) {
+        game.setVersion(game.getVersion() + 1);
+        gameStream.publish(game);
+    }
+
+    /**
+     * Same as changed, but the game is written to the database right away since it entered a new state
+     */
+    private void stateChanged(Game game) {
+        game.setVersion(game.getVersion() + 1);
+        gameStateStore.persist(game);
+        gameStream.publish(game);
+    }
+
+    /**
+     * Helper function to get the live instance of a player, since the player loaded from the database
+     * does not reflect the changes that are not written behind yet
+     */
+    private Player getPlayerInGame(Game game, Player player) {
+        int index = game.getPlayers().indexOf(player);
+        return index >= 0 ? game.getPlayers().get(index) : player;
+    }
+
     public Lobby getUpdatedLobby(Long lobbyId) {
         Optional<Lobby> currentLobby = lobbyRepository.findByLobbyId(lobbyId);
         if(currentLobby.isPresent()){
@@ -525,16 +613,11 @@ public class GameService{
         throw new NotFoundException(String.format("Lobby with ID %d not found", lobbyId));
     }
 
-    /**
-     * Helper function to get current timer cancel boolean
-     */
-    public boolean getCancel(Game game){
-        Optional<Game> updated = gameRepository.findByLobbyId(game.getLobbyId());
-        return updated.map(value -> value.getTimer().isCancel()).orElse(false);
-
-    }
-
     public Game getUpdatedGame(Game game){
+        Optional<Game> liveGame = gameStateStore.find(game.getLobbyId());
+        if (liveGame.isPresent()) {
+            return liveGame.get();
+        }
         Optional<Game> currentGame = gameRepository.findByLobbyId(game.getLobbyId());
         return currentGame.orElse(game);
     }
@@ -572,7 +655,6 @@ public class GameService{
 
     public void setTimer(Game game) {
         game.setTimer(new InternalTimer());
-        game.getTimer().setCancel(false);
     }
 
     public void generateCluesForBots(Game game) {
@@ -582,53 +664,30 @@ public class GameService{
             lobby = foundLobby.get();
         }
         else { return; }
-        String uri;
-        // The api call is a bit different if the current word consists of two separate words
-        String[] split = game.getCurrentWord().split(" ");
-        if(split.length == 1) {
-            uri = String.format("https://api.datamuse.com/words?ml=%s", split[0]);
-        }
-        else if(split.length == 2) {
-            uri = String.format("https://api.datamuse.com/words?ml=%s+%s", split[0], split[1]);
-        }
-        else { return; }
-        RestTemplate restTemplate = new RestTemplate();
-        String result = restTemplate.getForObject(uri, String.class);
         // In the case of a game with 3 players, a bot submits two clues instead of one
         int amountOfClues = (game.isSpecialGame() ? lobby.getCurrentNumBots()*2 : lobby.getCurrentNumBots());
-        ObjectMapper objectMapper = new ObjectMapper();
-        try {
-            List<APIResponse> response = objectMapper.readValue(result, new TypeReference<>() {
-            });
-            Iterator<APIResponse> iterator = response.iterator();
-            for(int i = 0; i < amountOfClues; i++) {
-                while(iterator.hasNext()) {
-                    APIResponse apiResponse = iterator.next();
-                    String potentialClue = apiResponse.getWord();
-                    if(nlp.checkClue(potentialClue, game.getCurrentWord())) {
-                        Clue clueFromBot = new Clue();
-                        clueFromBot.setPlayerId(0L);
-                        clueFromBot.setActualClue(potentialClue);
-                        if(!game.getEnteredClues().contains(clueFromBot)) {
-                            game.getEnteredClues().add(clueFromBot);
-                            clueRepository.saveAndFlush(clueFromBot);
-                            break;
-                        }
-                    }
+        ClueIndex clueIndex = getClueIndex(game);
+        Iterator<String> potentialClues = botCluePrefetcher.getClues(game.getLobbyId(), game.getCurrentWord()).iterator();
+        for(int i = 0; i < amountOfClues; i++) {
+            while(potentialClues.hasNext()) {
+                Clue clueFromBot = new Clue();
+                clueFromBot.setPlayerId(0L);
+                clueFromBot.setActualClue(potentialClues.next());
+                // bots do not send a clue that would cancel the clue of a player
+                if(clueIndex.add(clueFromBot) == null) {
+                    game.getEnteredClues().add(clueFromBot);
+                    break;
                 }
             }
-        } catch (JsonProcessingException ex) {
-            ex.getMessage();
         }
     }
 
     public boolean vote(Game game, Player player, List<String> invalidWords) {
+        player = getPlayerInGame(game, player);
         if(!player.isVoted()) {
+            int voter = game.getPlayers().indexOf(player);
             for(String s : invalidWords) {
-                Clue clue = new Clue();
-                clue.setPlayerId(player.getId());
-                clue.setActualClue(s);
-                game.addInvalidClue(clue);
+                game.getVoteTally().vote(voter, s);
             }
             player.setVoted(true);
         }
@@ -642,8 +701,6 @@ public class GameService{
         }
         if(counter == game.getPlayers().size() - 1) {
             checkVotes(game, (int)Math.ceil(((float)game.getPlayers().size() - 1 )/2));
-            game.getTimer().setCancel(true);
-            gameRepository.saveAndFlush(game);
         }
         return allSent(game, counter);
     }
@@ -655,55 +712,86 @@ public class GameService{
             }
         }
         checkVotes(game, (int)Math.ceil(((float)game.getPlayers().size() - 1 )/2));
-        gameRepository.saveAndFlush(game);
     }
 
+    /**
+     * Removes the clues voted out by at least threshold players from the entered clues. The invalid clues of the round
+     * are the voted out clues together with the clues rejected before the vote, every clue listed once.
+     */
     public void checkVotes(Game game, int threshold) {
         // If there is only one real player and the rest are bots, voting is not necessary since bots can not vote
         if(game.getPlayers().size() < 2) {
             return;
         }
+        VoteTally voteTally = game.getVoteTally();
         List<Clue> actualInvalidClues = new ArrayList<>();
+        Set<Clue> listedClues = new HashSet<>();
         Iterator<Clue> iterator = game.getEnteredClues().iterator();
         while(iterator.hasNext()) {
             Clue clue = iterator.next();
-            int occurrences = Collections.frequency(game.getInvalidClues(), clue);
-            if(occurrences >=  threshold) {
+            if(voteTally.count(clue.getActualClue()) >= threshold) {
                 iterator.remove();
-                if(!actualInvalidClues.contains(clue)) {
+                if(listedClues.add(clue)) {
                     actualInvalidClues.add(clue);
                 }
             }
         }
-        //Iterate over invalidClues to preserve clues voted out from NLP
-        iterator = game.getInvalidClues().iterator();
-        while(iterator.hasNext()) {
-            Clue invalidClue = iterator.next();
-            if(invalidClue.getPlayerId().equals(-1L) || invalidClue.getPlayerId().equals(0L)) {
-                if(!actualInvalidClues.contains(invalidClue)) {
-                    actualInvalidClues.add(invalidClue);
-                }
+        //preserve clues rejected by NLP or sent twice
+        for(Clue invalidClue : game.getInvalidClues()) {
+            if((invalidClue.getPlayerId().equals(-1L) || invalidClue.getPlayerId().equals(0L)) && listedClues.add(invalidClue)) {
+                actualInvalidClues.add(invalidClue);
             }
         }
-        //Remove duplicates from list of invalid clues to return to client
         game.setInvalidClues(actualInvalidClues);
-        gameRepository.saveAndFlush(game);
+        voteTally.clear();
+        changed(game);
     }
 
+    /**
+     * Adds a clue sent by a player to the entered clues of the round. If the same clue or a clue with the same stem
+     * was sent before, both are cancelled and listed as invalid clues instead.
+     * The clues are kept in memory only and written to the database together with the game when the clue phase closes.
+     */
     public void addClue(Clue clue, Game game) {
-        // if the same clue is sent twice, remove it from list of entered clues
-        if(game.getEnteredClues().contains(clue)) {
-            game.getEnteredClues().remove(clue);
+        ClueIndex clueIndex = getClueIndex(game);
+        Clue earlierClue = clueIndex.add(clue);
+        if(earlierClue == null) {
+            game.addClue(clue);
+        }
+        else {
+            if(clueIndex.cancel(clue)) {
+                game.getEnteredClues().remove(earlierClue);
+                earlierClue.setPlayerId(0L);
+                clueIndex.listInvalid(earlierClue);
+                game.addInvalidClue(earlierClue);
+            }
             clue.setPlayerId(0L);
-            if(!game.getInvalidClues().contains(clue)) {
+            if(clueIndex.listInvalid(clue)) {
                 game.addInvalidClue(clue);
             }
         }
-        //only add the clue to list of entered clues if the same clue wasn't sent before
-        else if(!game.getInvalidClues().contains(clue)) {
-            game.addClue(clue);
+        changedInMemory(game);
+    }
+
+    /**
+     * Returns the clue index of the round, it is rebuilt from the clues of the game if the game was restored from
+     * the database in the middle of a round
+     */
+    private ClueIndex getClueIndex(Game game) {
+        ClueIndex clueIndex = game.getClueIndex();
+        if(clueIndex.isEmpty()) {
+            for(Clue clue : game.getEnteredClues()) {
+                clueIndex.add(clue);
+            }
+            for(Clue clue : game.getInvalidClues()) {
+                if(clue.getPlayerId() != null && clue.getPlayerId().equals(0L)) {
+                    clueIndex.add(clue);
+                    clueIndex.cancel(clue);
+                    clueIndex.listInvalid(clue);
+                }
+            }
         }
-        gameRepository.saveAndFlush(game);
+        return clueIndex;
     }
 
 }
@@ -0,0 +1,179 @@
+package ch.uzh.ifi.seal.soprafs20.service;
+
+import ch.uzh.ifi.seal.soprafs20.entity.Clue;
+import ch.uzh.ifi.seal.soprafs20.entity.Game;
+import ch.uzh.ifi.seal.soprafs20.entity.Player;
+import ch.uzh.ifi.seal.soprafs20.repository.GameRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Game State Store
+ * This class holds the live state of all running games, keyed by lobby id. Commands in the mailbox of a game read and
+ * modify these instances directly, changed games are only marked as dirty and written to the GameRepository
+ * in the background, either periodically or right away when the game changes its state.
+ * The snapshot itself is taken in the mailbox of the game as well, so it never sees a half applied command.
+ * The database therefore always holds a recent snapshot of each game, from which running games are recovered on restart.
+ */
+@Component
+public class GameStateStore implements MeterBinder {
+
+    private final Logger log = LoggerFactory.getLogger(GameStateStore.class);
+
+    private final GameRepository gameRepository;
+    private final GameMailbox gameMailbox;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<Long, Game> games = new ConcurrentHashMap<>();
+    private final Set<Long> dirtyGames = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "game-store-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public GameStateStore(GameRepository gameRepository, GameMailbox gameMailbox, PlatformTransactionManager transactionManager,
+                          @Value("${game.store.flush-interval-ms:1000}") long flushInterval) {
+        this.gameRepository = gameRepository;
+        this.gameMailbox = gameMailbox;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        writer.scheduleWithFixedDelay(this::flushAll, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Registers a game as live game, from now on the store owns its state
+     */
+    public void put(Game game) {
+        games.put(game.getLobbyId(), game);
+    }
+
+    public Optional<Game> find(Long lobbyId) {
+        return Optional.ofNullable(games.get(lobbyId));
+    }
+
+    /**
+     * Removes a game from the store, pending changes of the game are discarded
+     */
+    public void remove(Long lobbyId) {
+        games.remove(lobbyId);
+        dirtyGames.remove(lobbyId);
+    }
+
+    /**
+     * Marks the game as changed, it is written to the database with the next periodic flush
+     */
+    public void markDirty(Game game) {
+        dirtyGames.add(game.getLobbyId());
+    }
+
+    /**
+     * Marks the game as changed and writes it to the database as soon as the current command of the game is processed.
+     * Used whenever a game changes its state, so a recovered game always resumes in the state it was left.
+     */
+    public void persist(Game game) {
+        markDirty(game);
+        gameMailbox.post(game.getLobbyId(), () -> write(game.getLobbyId()));
+    }
+
+    public int getLiveGames() {
+        return games.size();
+    }
+
+    public int getDirtyGames() {
+        return dirtyGames.size();
+    }
+
+    /**
+     * Writes all changed games to the database and waits until they are written
+     */
+    public void flushAll() {
+        for (Long lobbyId : dirtyGames) {
+            if (games.containsKey(lobbyId)) {
+                gameMailbox.run(lobbyId, () -> write(lobbyId));
+            }
+            else {
+                dirtyGames.remove(lobbyId);
+            }
+        }
+    }
+
+    private void write(Long lobbyId) {
+        Game game = games.get(lobbyId);
+        if (game == null || !dirtyGames.remove(lobbyId)) {
+            return;
+        }
+        try {
+            Game persisted = transactionTemplate.execute(status -> gameRepository.saveAndFlush(game));
+            copyGeneratedIds(game, persisted);
+        }
+        catch (RuntimeException ex) {
+            dirtyGames.add(lobbyId);
+            log.error(String.format("Could not write game %d to the database: %s", lobbyId, ex));
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("game.store.live", games, Map::size)
+                .description("Number of games held in memory")
+                .register(registry);
+        Gauge.builder("game.store.dirty", dirtyGames, Set::size)
+                .description("Number of games with changes that are not written to the database yet")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writer.shutdown();
+        flushAll();
+    }
+
+    /**
+     * The repository persists a copy of the live game, so the ids generated for new clues and timers
+     * are handed back to the live instances. Otherwise they would be inserted again with every snapshot.
+     */
+    private static void copyGeneratedIds(Game game, Game persisted) {
+        if (persisted == null) {
+            return;
+        }
+        if (game.getTimer() != null && persisted.getTimer() != null) {
+            game.getTimer().setLobbyId(persisted.getTimer().getLobbyId());
+        }
+        copyClueIds(game.getEnteredClues(), persisted.getEnteredClues());
+        copyClueIds(game.getInvalidClues(), persisted.getInvalidClues());
+        List<Player> players = game.getPlayers();
+        List<Player> persistedPlayers = persisted.getPlayers();
+        if (players == null || persistedPlayers == null) {
+            return;
+        }
+        for (int i = 0; i < Math.min(players.size(), persistedPlayers.size()); i++) {
+            copyClueIds(players.get(i).getClues(), persistedPlayers.get(i).getClues());
+        }
+    }
+
+    private static void copyClueIds(List<Clue> clues, List<Clue> persistedClues) {
+        for (int i = 0; i < Math.min(clues.size(), persistedClues.size()); i++) {
+            if (clues.get(i).getClueId() == null) {
+                clues.get(i).setClueId(persistedClues.get(i).getClueId());
+            }
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package ch.uzh.ifi.seal.soprafs20.service;
+
+import ch.uzh.ifi.seal.soprafs20.entity.Game;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Game Stream
+ * This class pushes the changes of a game to the players as server-sent events, so they do not have to poll the game.
+ * A player receives a "snapshot" event with the whole game when subscribing and afterwards an "update" event with
+ * the changed top-level fields whenever the game changes, both rendered as the player is allowed to see the game.
+ * All changes made by one command of the game are sent as one event.
+ */
+@Component
+public class GameStream implements MeterBinder {
+
+    private final Logger log = LoggerFactory.getLogger(GameStream.class);
+
+    private final GameMailbox gameMailbox;
+    private final GameView gameView;
+    private final ObjectMapper objectMapper;
+    private final long timeout;
+    // only modified by commands in the mailbox of the game
+    private final Map<Long, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final Set<Long> pendingGames = ConcurrentHashMap.newKeySet();
+    // events are written by one thread, so a slow connection does not hold up the mailbox of the game
+    private final ExecutorService sender = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "game-stream-sender");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public GameStream(GameMailbox gameMailbox, GameView gameView, ObjectMapper objectMapper,
+                      @Value("${game.stream.timeout-ms:1800000}") long timeout) {
+        this.gameMailbox = gameMailbox;
+        this.gameView = gameView;
+        this.objectMapper = objectMapper;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Subscribes the player with the given token to the changes of the game.
+     * Has to be called by a command in the mailbox of the game.
+     *
+     * @param game the game to subscribe to
+     * @param token token of the player
+     * @param numBots number of bots in the lobby, shown as players of the game
+     * @return the emitter the events are sent to
+     */
+    public SseEmitter subscribe(Game game, String token, int numBots) {
+        Long lobbyId = game.getLobbyId();
+        ObjectNode view = render(game, token, numBots);
+        SseEmitter emitter = new SseEmitter(timeout);
+        Subscriber subscriber = new Subscriber(token, numBots, emitter, view);
+        subscribers.computeIfAbsent(lobbyId, id -> new ArrayList<>()).add(subscriber);
+
+        Runnable unsubscribe = () -> gameMailbox.post(lobbyId, () -> unsubscribe(lobbyId, subscriber));
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(ex -> unsubscribe.run());
+
+        send(subscriber, "snapshot", view);
+        return emitter;
+    }
+
+    /**
+     * Announces a change of the game. Changes announced while a command is processed are sent once it is done.
+     */
+    public void publish(Game game) {
+        Long lobbyId = game.getLobbyId();
+        if (subscribers.containsKey(lobbyId) && pendingGames.add(lobbyId)) {
+            gameMailbox.post(lobbyId, () -> {
+                pendingGames.remove(lobbyId);
+                push(game);
+            });
+        }
+    }
+
+    /**
+     * Ends the streams of a game that is over
+     */
+    public void close(Long lobbyId) {
+        List<Subscriber> closed = subscribers.remove(lobbyId);
+        if (closed != null) {
+            for (Subscriber subscriber : closed) {
+                sender.execute(subscriber.emitter::complete);
+            }
+        }
+    }
+
+    public int getSubscribers() {
+        return subscribers.values().stream().mapToInt(List::size).sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("game.stream.subscribers", this, GameStream::getSubscribers)
+                .description("Number of players subscribed to a game stream")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+    }
+
+    private void push(Game game) {
+        List<Subscriber> gameSubscribers = subscribers.get(game.getLobbyId());
+        if (gameSubscribers == null) {
+            return;
+        }
+        for (Subscriber subscriber : gameSubscribers) {
+            ObjectNode view;
+            try {
+                view = render(game, subscriber.token, subscriber.numBots);
+            }
+            catch (RuntimeException ex) {
+                // the player is not part of the game anymore
+                sender.execute(subscriber.emitter::complete);
+                continue;
+            }
+            ObjectNode changes = GameView.diff(subscriber.view, view);
+            subscriber.view = view;
+            if (changes.size() > 0) {
+                send(subscriber, "update", changes);
+            }
+        }
+    }
+
+    private void unsubscribe(Long lobbyId, Subscriber subscriber) {
+        List<Subscriber> gameSubscribers = subscribers.get(lobbyId);
+        if (gameSubscribers != null) {
+            gameSubscribers.remove(subscriber);
+            if (gameSubscribers.isEmpty()) {
+                subscribers.remove(lobbyId);
+            }
+        }
+    }
+
+    private ObjectNode render(Game game, String token, int numBots) {
+        ObjectNode view = objectMapper.valueToTree(gameView.render(game, token, numBots));
+        // lets the players show the timer without polling it
+        if (game.getStartTimeSeconds() != null) {
+            view.put("deadline", game.getStartTimeSeconds() + GameService.getMaxTime(game.getGameState()));
+        }
+        return view;
+    }
+
+    private void send(Subscriber subscriber, String event, ObjectNode data) {
+        sender.execute(() -> {
+            try {
+                subscriber.emitter.send(SseEmitter.event().name(event).data(data, MediaType.APPLICATION_JSON));
+            }
+            catch (IOException | IllegalStateException ex) {
+                log.debug(String.format("Could not send game event: %s", ex));
+                subscriber.emitter.completeWithError(ex);
+            }
+        });
+    }
+
+    /**
+     * Player subscribed to a game, together with the view of the game it received last
+     */
+    private static class Subscriber {
+        private final String token;
+        private final int numBots;
+        private final SseEmitter emitter;
+        private ObjectNode view;
+
+        Subscriber(String token, int numBots, SseEmitter emitter, ObjectNode view) {
+            this.token = token;
+            this.numBots = numBots;
+            this.emitter = emitter;
+            this.view = view;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package ch.uzh.ifi.seal.soprafs20.service;
+
+import ch.uzh.ifi.seal.soprafs20.GameLogic.GameState;
+import ch.uzh.ifi.seal.soprafs20.constant.AvatarColor;
+import ch.uzh.ifi.seal.soprafs20.entity.Game;
+import ch.uzh.ifi.seal.soprafs20.entity.Player;
+import ch.uzh.ifi.seal.soprafs20.exceptions.UnauthorizedException;
+import ch.uzh.ifi.seal.soprafs20.rest.dto.GameGetDTO;
+import ch.uzh.ifi.seal.soprafs20.rest.mapper.DTOMapper;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Game View
+ * This class renders the game as one player is allowed to see it.
+ * It is shared by the game endpoint and the game stream, so both hide the same information.
+ * Every change of a game increases its version, which is used as ETag of the rendered game. To answer requests
+ * for the changes since a version, the last few versions of each game are kept as unfiltered snapshots.
+ * All methods taking a game have to be called by a command in the mailbox of the game.
+ */
+@Component
+public class GameView {
+
+    private static final int SNAPSHOTS_PER_GAME = 8;
+
+    private final ObjectMapper objectMapper;
+    private final Map<Long, Map<Long, ObjectNode>> snapshots = new ConcurrentHashMap<>();
+
+    @Autowired
+    public GameView(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @throws UnauthorizedException if the token does not belong to a player of the game
+     */
+    public void checkAccess(Game game, String token) {
+        for (Player player : game.getPlayers()) {
+            if (player.getToken().equals(token)) {
+                return;
+            }
+        }
+        throw new UnauthorizedException("You are not allowed to access this game instance!");
+    }
+
+    public String getETag(Game game) {
+        return "\"" + game.getVersion() + "\"";
+    }
+
+    /**
+     * @param ifNoneMatch value of the If-None-Match header of the request, may be null
+     * @return true if the client already has the current version of the game
+     */
+    public boolean isCurrent(Game game, String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String eTag = getETag(game);
+        for (String tag : ifNoneMatch.split(",")) {
+            String trimmed = tag.trim();
+            if (trimmed.equals(eTag) || trimmed.equals("W/" + eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Renders the game for the player with the given token, including the bots of the lobby
+     *
+     * @throws UnauthorizedException if the token does not belong to a player of the game
+     */
+    public GameGetDTO render(Game game, String token, int numBots) {
+        checkAccess(game, token);
+        GameGetDTO gameGetDTO = DTOMapper.INSTANCE.convertEntityToGameGetDTO(game);
+        //if guesser requests game, eliminate current word from dto
+        if (game.getCurrentGuesser().getToken().equals(token) && !game.getGameState().equals(GameState.TRANSITION_STATE)) {
+            gameGetDTO.setCurrentWord(null);
+            gameGetDTO.getInvalidClues().clear();
+        }
+        //only return invalid clues if the current state is ENTER_GUESS_STATE
+        if(!game.getGameState().equals(GameState.ENTER_GUESS_STATE)) {
+            gameGetDTO.getInvalidClues().clear();
+        }
+        addBots(gameGetDTO, numBots);
+        snapshot(game);
+        return gameGetDTO;
+    }
+
+    /**
+     * Renders only the fields that changed since the given version of the game.
+     * If that version is not known anymore, or the state or the guesser changed in the meantime and with them
+     * the fields the player may see, the whole game is rendered.
+     */
+    public ObjectNode renderSince(Game game, String token, int numBots, long since) {
+        ObjectNode view = objectMapper.valueToTree(render(game, token, numBots));
+        ObjectNode previous = snapshots.getOrDefault(game.getLobbyId(), Map.of()).get(since);
+        if (previous == null) {
+            return view;
+        }
+        ObjectNode changes = diff(previous, snapshot(game));
+        if (changes.has("gameState") || changes.has("currentGuesser")) {
+            return view;
+        }
+        ObjectNode delta = view.objectNode();
+        Iterator<String> fields = changes.fieldNames();
+        while (fields.hasNext()) {
+            String field = fields.next();
+            delta.set(field, view.get(field));
+        }
+        return delta;
+    }
+
+    /**
+     * Drops the snapshots of a game that is over
+     */
+    public void forget(Long lobbyId) {
+        snapshots.remove(lobbyId);
+    }
+
+    /**
+     * Returns the top-level fields of the current view that differ from the previous view
+     */
+    public static ObjectNode diff(ObjectNode previous, ObjectNode current) {
+        ObjectNode changes = current.objectNode();
+        Iterator<Map.Entry<String, JsonNode>> fields = current.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (!field.getValue().equals(previous.get(field.getKey()))) {
+                changes.set(field.getKey(), field.getValue());
+            }
+        }
+        return changes;
+    }
+
+    void addBots(GameGetDTO gameGetDTO, int numBots) {
+        for(int i = 0; i < numBots; i++) {
+            Player botAsPlayer = new Player();
+            botAsPlayer.setId(0L);
+            botAsPlayer.setUsername("bot!");
+            botAsPlayer.setAvatarColor(AvatarColor.BOT);
+            botAsPlayer.setScore(-1);
+            gameGetDTO.addPlayer(botAsPlayer);
+        }
+    }
+
+    /**
+     * Returns the unfiltered snapshot of the current version of the game, it is only created once per version
+     */
+    private ObjectNode snapshot(Game game) {
+        Map<Long, ObjectNode> gameSnapshots = snapshots.computeIfAbsent(game.getLobbyId(), id -> new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, ObjectNode> eldest) {
+                return size() > SNAPSHOTS_PER_GAME;
+            }
+        });
+        return gameSnapshots.computeIfAbsent(game.getVersion(),
+                version -> objectMapper.valueToTree(DTOMapper.INSTANCE.convertEntityToGameGetDTO(game)));
+    }
+}
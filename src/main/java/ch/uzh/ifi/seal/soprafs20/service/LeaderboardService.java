@@ -0,0 +1,215 @@
+package ch.uzh.ifi.seal.soprafs20.service;
+
+import ch.uzh.ifi.seal.soprafs20.GameLogic.Leaderboard;
+import ch.uzh.ifi.seal.soprafs20.GameLogic.WindowedLeaderboard;
+import ch.uzh.ifi.seal.soprafs20.constant.ScorePeriod;
+import ch.uzh.ifi.seal.soprafs20.constant.UserStatus;
+import ch.uzh.ifi.seal.soprafs20.entity.LobbyScore;
+import ch.uzh.ifi.seal.soprafs20.entity.User;
+import ch.uzh.ifi.seal.soprafs20.exceptions.BadRequestException;
+import ch.uzh.ifi.seal.soprafs20.repository.LobbyScoreRepository;
+import ch.uzh.ifi.seal.soprafs20.repository.UserRepository;
+import ch.uzh.ifi.seal.soprafs20.rest.dto.LobbyScoreGetDTO;
+import ch.uzh.ifi.seal.soprafs20.rest.dto.UserGetDTO;
+import ch.uzh.ifi.seal.soprafs20.rest.mapper.DTOMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+/**
+ * Leaderboard Service
+ * This class ranks the users and the lobby scores in memory, so the scoreboards are served without the database.
+ * Both leaderboards are loaded once at startup, afterwards the games update them when they end
+ * and the user service when a user is created or changed.
+ * Besides all time, users and lobby scores are ranked by the points of the current day and of the last seven days.
+ * Since only the total score of a user is stored, the daily and weekly points of the users start over on restart,
+ * the lobby scores are loaded into them by their date.
+ */
+@Service
+public class LeaderboardService {
+
+    private final UserRepository userRepository;
+    private final LobbyScoreRepository lobbyScoreRepository;
+    // read-modify-write updates of a user hold the lock of the leaderboard, so concurrent updates are not lost
+    private final Leaderboard<UserGetDTO> users = new Leaderboard<>();
+    private final Leaderboard<LobbyScoreGetDTO> lobbyScores = new Leaderboard<>();
+    private final Map<ScorePeriod, WindowedLeaderboard<UserGetDTO>> usersInPeriod = new EnumMap<>(ScorePeriod.class);
+    private final Map<ScorePeriod, WindowedLeaderboard<LobbyScoreGetDTO>> lobbyScoresInPeriod = new EnumMap<>(ScorePeriod.class);
+    private final Clock clock;
+
+    @Autowired
+    public LeaderboardService(UserRepository userRepository, LobbyScoreRepository lobbyScoreRepository) {
+        this(userRepository, lobbyScoreRepository, Clock.systemDefaultZone());
+    }
+
+    LeaderboardService(UserRepository userRepository, LobbyScoreRepository lobbyScoreRepository, Clock clock) {
+        this.userRepository = userRepository;
+        this.lobbyScoreRepository = lobbyScoreRepository;
+        this.clock = clock;
+        for (ScorePeriod period : List.of(ScorePeriod.DAILY, ScorePeriod.WEEKLY)) {
+            usersInPeriod.put(period, new WindowedLeaderboard<>(period.getDays()));
+            lobbyScoresInPeriod.put(period, new WindowedLeaderboard<>(period.getDays()));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        for (User user : userRepository.findAll()) {
+            users.put(user.getId(), user.getScore(), DTOMapper.INSTANCE.convertEntityToUserGetDTO(user));
+        }
+        for (LobbyScore lobbyScore : lobbyScoreRepository.findAll()) {
+            addLobbyScore(lobbyScore);
+        }
+    }
+
+    /**
+     * Adds a new user or updates the shown information of a user, the score on the leaderboard is kept
+     */
+    public void updateUser(User user) {
+        UserGetDTO userGetDTO = DTOMapper.INSTANCE.convertEntityToUserGetDTO(user);
+        synchronized (users) {
+            int score = users.get(user.getId()).map(Leaderboard.Entry::getScore).orElse(user.getScore());
+            userGetDTO.setScore(score);
+            users.put(user.getId(), score, userGetDTO);
+        }
+    }
+
+    /**
+     * Updates the shown status of a user, e.g. when its session expired
+     */
+    public void updateStatus(Long userId, UserStatus status) {
+        synchronized (users) {
+            Optional<Leaderboard.Entry<UserGetDTO>> entry = users.get(userId);
+            if (entry.isPresent()) {
+                UserGetDTO userGetDTO = withScore(entry.get().getValue(), entry.get().getScore());
+                userGetDTO.setStatus(status);
+                users.put(userId, entry.get().getScore(), userGetDTO);
+            }
+        }
+    }
+
+    /**
+     * Adds the points the users gained in a game today to their scores
+     *
+     * @param scores points to add, keyed by the id of the user
+     */
+    public void addUserScores(Map<Long, Integer> scores) {
+        long today = today();
+        for (Map.Entry<Long, Integer> score : scores.entrySet()) {
+            UserGetDTO userGetDTO;
+            synchronized (users) {
+                Optional<Leaderboard.Entry<UserGetDTO>> entry = users.get(score.getKey());
+                if (entry.isEmpty()) {
+                    continue;
+                }
+                int newScore = entry.get().getScore() + score.getValue();
+                userGetDTO = withScore(entry.get().getValue(), newScore);
+                users.put(score.getKey(), newScore, userGetDTO);
+            }
+            for (WindowedLeaderboard<UserGetDTO> leaderboard : usersInPeriod.values()) {
+                leaderboard.add(today, score.getKey(), score.getValue(), userGetDTO);
+            }
+        }
+    }
+
+    public void addLobbyScore(LobbyScore lobbyScore) {
+        LobbyScoreGetDTO lobbyScoreGetDTO = DTOMapper.INSTANCE.convertEntityToLobbyScoreGetDTO(lobbyScore);
+        lobbyScores.put(lobbyScore.getScoreId(), lobbyScore.getScore(), lobbyScoreGetDTO);
+        long day = lobbyScore.getDate() == null ? today() :
+                lobbyScore.getDate().toInstant().atZone(clock.getZone()).toLocalDate().toEpochDay();
+        for (WindowedLeaderboard<LobbyScoreGetDTO> leaderboard : lobbyScoresInPeriod.values()) {
+            leaderboard.add(day, lobbyScore.getScoreId(), lobbyScore.getScore(), lobbyScoreGetDTO);
+        }
+    }
+
+    /**
+     * @return the users on the given page, highest score in the period first
+     */
+    public List<UserGetDTO> getUsers(ScorePeriod period, int page, int size) {
+        int offset = offset(page, size);
+        if (period == ScorePeriod.ALL_TIME) {
+            return values(users.page(offset, size));
+        }
+        List<UserGetDTO> usersOnPage = new ArrayList<>();
+        for (Leaderboard.Entry<UserGetDTO> entry : usersInPeriod.get(period).page(today(), offset, size)) {
+            // shows the current information of the user with the points of the period
+            UserGetDTO user = users.get(entry.getId()).map(Leaderboard.Entry::getValue).orElse(entry.getValue());
+            usersOnPage.add(withScore(user, entry.getScore()));
+        }
+        return usersOnPage;
+    }
+
+    /**
+     * @return the rank of the user in the period starting at 1, or empty if the user has no points in the period
+     */
+    public OptionalInt getUserRank(ScorePeriod period, Long userId) {
+        if (period == ScorePeriod.ALL_TIME) {
+            return users.rank(userId);
+        }
+        return usersInPeriod.get(period).rank(today(), userId);
+    }
+
+    public int getNumberOfUsers(ScorePeriod period) {
+        if (period == ScorePeriod.ALL_TIME) {
+            return users.size();
+        }
+        return usersInPeriod.get(period).size(today());
+    }
+
+    /**
+     * @return the lobby scores of the period on the given page, highest score first
+     */
+    public List<LobbyScoreGetDTO> getLobbyScores(ScorePeriod period, int page, int size) {
+        int offset = offset(page, size);
+        if (period == ScorePeriod.ALL_TIME) {
+            return values(lobbyScores.page(offset, size));
+        }
+        return values(lobbyScoresInPeriod.get(period).page(today(), offset, size));
+    }
+
+    private long today() {
+        return LocalDate.now(clock).toEpochDay();
+    }
+
+    private static int offset(int page, int size) {
+        if (page < 0 || size < 1) {
+            throw new BadRequestException("The page has to be at least 0 and its size at least 1!");
+        }
+        return (int) Math.min((long) page * size, Integer.MAX_VALUE);
+    }
+
+    private static <V> List<V> values(List<Leaderboard.Entry<V>> entries) {
+        List<V> values = new ArrayList<>(entries.size());
+        for (Leaderboard.Entry<V> entry : entries) {
+            values.add(entry.getValue());
+        }
+        return values;
+    }
+
+    /**
+     * Copies the shown information of a user with a new score, the entries on the leaderboard are never modified
+     */
+    private static UserGetDTO withScore(UserGetDTO user, int score) {
+        UserGetDTO userGetDTO = new UserGetDTO();
+        userGetDTO.setId(user.getId());
+        userGetDTO.setUsername(user.getUsername());
+        userGetDTO.setStatus(user.getStatus() ? UserStatus.ONLINE : UserStatus.OFFLINE);
+        userGetDTO.setAvatarColor(user.getAvatarColor());
+        userGetDTO.setCreationDate(user.getCreationDate());
+        userGetDTO.setBirthday(user.getBirthday());
+        userGetDTO.setScore(score);
+        return userGetDTO;
+    }
+}
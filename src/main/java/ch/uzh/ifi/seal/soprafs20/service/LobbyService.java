@@ -26,11 +26,13 @@ public class LobbyService {
 
     private final LobbyRepository lobbyRepository;
     private final PlayerRepository playerRepository;
+    private final SessionRegistry sessionRegistry;
 
     @Autowired
-    public LobbyService(LobbyRepository lobbyRepository,PlayerRepository playerRepository) {
+    public LobbyService(LobbyRepository lobbyRepository,PlayerRepository playerRepository, SessionRegistry sessionRegistry) {
         this.lobbyRepository = lobbyRepository;
         this.playerRepository = playerRepository;
+        this.sessionRegistry = sessionRegistry;
     }
 
     public List<Lobby> getLobbies() {
@@ -62,6 +64,7 @@ public class LobbyService {
         newLobby.setCurrentNumBots(0);
         newLobby = lobbyRepository.save(newLobby);
         lobbyRepository.flush();
+        sessionRegistry.joinLobby(host.getToken(), newLobby.getLobbyId());
         return newLobby;
     }
 
@@ -130,6 +133,7 @@ public class LobbyService {
         lobby.addPlayerToLobby(playerToAdd);
         lobby.setCurrentNumPlayers(lobby.getPlayersInLobby().size());
         lobbyRepository.save(lobby);
+        sessionRegistry.joinLobby(playerToken, lobby.getLobbyId());
     }
 
     public void removePlayerFromLobby(Player playerToRemove, Lobby lobby){
@@ -185,6 +189,7 @@ public class LobbyService {
     }
 
     public void deletePlayer(Player player) {
+        sessionRegistry.leaveLobby(player.getToken());
         try {
             playerRepository.delete(player);
         }
@@ -2,25 +2,173 @@ package ch.uzh.ifi.seal.soprafs20.service;
 
 import ch.uzh.ifi.seal.soprafs20.entity.Message;
 import ch.uzh.ifi.seal.soprafs20.repository.MessageRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
 
-@Service
-@Transactional
-public class MessageService {
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Message Service
+ * Chat messages are written behind: a new message gets its id right away and is appended to a queue, the queue is
+ * written to the database in batches, periodically. The ids are allocated in blocks of Message.ID_ALLOCATION_SIZE
+ * from the sequence of the messages, so only every 50th message needs a round trip before it is returned.
+ * Until the next flush, a message is only in the queue and in the ChatBuffer of its chat. The queue is kept per chat,
+ * so the messages of one chat can be written on their own before its buffer is loaded from the database.
+ */
+@Component
+public class MessageService implements MeterBinder {
+
+    static final int BATCH_SIZE = 500;
+
+    private final Logger log = LoggerFactory.getLogger(MessageService.class);
 
     private final MessageRepository messageRepository;
+    // queued messages by lobby id, a queue is only modified inside compute of its entry and taken out as a whole
+    private final Map<Long, List<Message>> pendingMessages = new ConcurrentHashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    // the ids from nextId to lastId are allocated but not used yet, guarded by idLock so a flush does not hold them up
+    private final Object idLock = new Object();
+    private long nextId = 1;
+    private long lastId = 0;
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "message-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     @Autowired
-    public MessageService(MessageRepository messageRepository) {
+    public MessageService(MessageRepository messageRepository,
+                          @Value("${chat.flush-interval-ms:200}") long flushInterval) {
+        this(messageRepository);
+        writer.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+    }
+
+    MessageService(MessageRepository messageRepository) {
         this.messageRepository = messageRepository;
     }
 
+    /**
+     * Assigns an id and a creation date to the message and queues it to be written to the database
+     *
+     * @return the message, with its id
+     */
     public Message createMessage(Message newMessage) {
         newMessage.setCreationDate();
-        newMessage = messageRepository.saveAndFlush(newMessage);
+        newMessage.setMessageId(allocateId());
+        queue(List.of(newMessage));
 
         return newMessage;
     }
+
+    public int getPendingMessages() {
+        return pending.get();
+    }
+
+    /**
+     * Writes all queued messages to the database and waits until they are written.
+     * Messages that could not be written stay queued for the next flush.
+     */
+    public synchronized void flush() {
+        List<Message> batch = new ArrayList<>(BATCH_SIZE);
+        for (Long lobbyId : pendingMessages.keySet()) {
+            List<Message> messages = take(lobbyId);
+            for (int i = 0; i < messages.size(); i++) {
+                batch.add(messages.get(i));
+                if (batch.size() == BATCH_SIZE) {
+                    if (!write(batch)) {
+                        queue(messages.subList(i + 1, messages.size()));
+                        return;
+                    }
+                    batch = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    /**
+     * Writes the queued messages of one chat to the database and waits until they are written,
+     * including those a running flush of all messages is writing at the moment
+     */
+    public synchronized void flush(Long lobbyId) {
+        List<Message> messages = take(lobbyId);
+        for (int from = 0; from < messages.size(); from += BATCH_SIZE) {
+            int to = Math.min(from + BATCH_SIZE, messages.size());
+            if (!write(new ArrayList<>(messages.subList(from, to)))) {
+                queue(messages.subList(to, messages.size()));
+                return;
+            }
+        }
+    }
+
+    private List<Message> take(Long lobbyId) {
+        List<Message> messages = pendingMessages.remove(lobbyId);
+        if (messages == null) {
+            return List.of();
+        }
+        pending.addAndGet(-messages.size());
+        return messages;
+    }
+
+    private void queue(List<Message> messages) {
+        for (Message message : messages) {
+            pendingMessages.compute(message.getLobbyId(), (id, queued) -> {
+                List<Message> target = queued == null ? new ArrayList<>() : queued;
+                target.add(message);
+                return target;
+            });
+        }
+        pending.addAndGet(messages.size());
+    }
+
+    private boolean write(List<Message> batch) {
+        try {
+            messageRepository.insertMessages(batch);
+            return true;
+        }
+        catch (RuntimeException ex) {
+            queue(batch);
+            log.error(String.format("Could not write %d messages to the database: %s", batch.size(), ex));
+            return false;
+        }
+    }
+
+    private long allocateId() {
+        synchronized (idLock) {
+            if (nextId > lastId) {
+                lastId = messageRepository.allocateMessageIds();
+                nextId = lastId - Message.ID_ALLOCATION_SIZE + 1;
+            }
+            return nextId++;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("chat.pending", pending, AtomicInteger::get)
+                .description("Number of chat messages that are not written to the database yet")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writer.shutdown();
+        flush();
+    }
 }
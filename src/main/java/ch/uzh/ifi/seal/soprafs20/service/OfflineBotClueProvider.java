@@ -0,0 +1,115 @@
+package ch.uzh.ifi.seal.soprafs20.service;
+
+import ch.uzh.ifi.seal.soprafs20.GameLogic.NLP;
+import ch.uzh.ifi.seal.soprafs20.GameLogic.WordDictionary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Offline Bot Clue Provider
+ * Gives the clues of the bots from the word associations in associations.txt, so no external service is called.
+ * The associations are checked against their word once at startup and kept in three arrays:
+ * the sorted words, and for each word the range of its clues in one shared array of clues.
+ */
+@Component
+@ConditionalOnProperty(name = "bot.clue-provider", havingValue = "offline", matchIfMissing = true)
+public class OfflineBotClueProvider implements BotClueProvider {
+
+    private static final String ASSOCIATIONS = "/associations.txt";
+
+    private final Logger log = LoggerFactory.getLogger(OfflineBotClueProvider.class);
+
+    private final String[] words;
+    // the clues of words[i] are clues[offsets[i]] up to clues[offsets[i + 1]]
+    private final int[] offsets;
+    private final String[] clues;
+
+    @Autowired
+    public OfflineBotClueProvider(WordDictionary wordDictionary) {
+        Map<String, List<String>> associations = readAssociations(ASSOCIATIONS);
+        NLP nlp = new NLP();
+        Map<String, String> uniqueClues = new HashMap<>();
+        List<String> allClues = new ArrayList<>();
+
+        words = associations.keySet().toArray(new String[0]);
+        offsets = new int[words.length + 1];
+        for (int i = 0; i < words.length; i++) {
+            offsets[i] = allClues.size();
+            NLP.CurrentWord word = nlp.prepare(words[i]);
+            for (String clue : associations.get(words[i])) {
+                if (nlp.checkClue(clue, word)) {
+                    allClues.add(uniqueClues.computeIfAbsent(clue, c -> c));
+                }
+            }
+        }
+        offsets[words.length] = allClues.size();
+        clues = allClues.toArray(new String[0]);
+
+        for (String word : wordDictionary.getWords()) {
+            if (getClues(word).isEmpty()) {
+                log.warn(String.format("The bots know no clue for the word %s", word));
+            }
+        }
+    }
+
+    @Override
+    public List<String> getClues(String word) {
+        int index = Arrays.binarySearch(words, word.toLowerCase());
+        if (index < 0) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(Arrays.asList(clues).subList(offsets[index], offsets[index + 1]));
+    }
+
+    /**
+     * Reads lines of the form word:association,association,... into a map sorted by word
+     */
+    private static Map<String, List<String>> readAssociations(String resource) {
+        Map<String, List<String>> associations = new TreeMap<>();
+        InputStream inputStream = OfflineBotClueProvider.class.getResourceAsStream(resource);
+        if (inputStream == null) {
+            throw new IllegalStateException(String.format("Resource %s not found", resource));
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int separator = line.indexOf(':');
+                if (line.startsWith("#") || separator < 0) {
+                    continue;
+                }
+                String word = line.substring(0, separator).trim().toLowerCase();
+                // a word listed twice keeps the order of its first line
+                Set<String> wordAssociations = new LinkedHashSet<>(associations.getOrDefault(word, List.of()));
+                for (String association : line.substring(separator + 1).split(",")) {
+                    if (!association.isBlank()) {
+                        wordAssociations.add(association.trim().toLowerCase());
+                    }
+                }
+                associations.put(word, new ArrayList<>(wordAssociations));
+            }
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return associations;
+    }
+}
@@ -17,9 +17,13 @@ import java.util.Optional;
 public class PlayerService {
 
     private final PlayerRepository playerRepository;
+    private final TokenService tokenService;
 
     @Autowired
-    public PlayerService(PlayerRepository playerRepository) { this.playerRepository = playerRepository; }
+    public PlayerService(PlayerRepository playerRepository, TokenService tokenService) {
+        this.playerRepository = playerRepository;
+        this.tokenService = tokenService;
+    }
 
     public Player getPlayer(Long id) {
         Player player;
@@ -34,8 +38,19 @@ public class PlayerService {
     }
 
     public Player getPlayerByToken(String token) {
+        // a signed token is verified without the database and names the player, a forged or expired one is rejected
+        Optional<Player> optional;
+        if(TokenService.isSignedToken(token)) {
+            Optional<TokenService.Claims> claims = tokenService.verify(token);
+            if(claims.isEmpty()) {
+                throw new NotFoundException("Couldn't find player.");
+            }
+            optional = playerRepository.findById(claims.get().getUserId());
+        }
+        else {
+            optional = playerRepository.findByToken(token);
+        }
         Player player;
-        Optional<Player> optional = playerRepository.findByToken(token);
         if(optional.isPresent()) {
             player = optional.get();
             return player;
@@ -0,0 +1,267 @@
+package ch.uzh.ifi.seal.soprafs20.service;
+
+import ch.uzh.ifi.seal.soprafs20.GameLogic.TimingWheel;
+import ch.uzh.ifi.seal.soprafs20.constant.UserStatus;
+import ch.uzh.ifi.seal.soprafs20.repository.UserRepository;
+import ch.uzh.ifi.seal.soprafs20.rest.dto.PresenceGetDTO;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Presence Service
+ * This class keeps track of which users are online. A user is online from its login until it logs out or until it
+ * did not send a heartbeat for the timeout, e.g. because it closed the tab. The sessions are expired by a timing wheel
+ * that is advanced once per tick, so a heartbeat only moves the deadline of one session.
+ * Whenever a user comes online or goes offline, its friends that subscribed to the presence of their friends are
+ * notified. The new statuses are written to the database in batches, periodically.
+ */
+@Component
+public class PresenceService implements MeterBinder {
+
+    private final Logger log = LoggerFactory.getLogger(PresenceService.class);
+
+    private final UserRepository userRepository;
+    private final FriendService friendService;
+    private final LeaderboardService leaderboardService;
+    private final Clock clock;
+    private final long timeout;
+    private final long tick;
+    private final long streamTimeout;
+    // guarded by itself
+    private final TimingWheel<Long> sessions;
+    // statuses that are not written to the database yet, keyed by the id of the user
+    private final Map<Long, UserStatus> pendingStatuses = new ConcurrentHashMap<>();
+    private final Map<Long, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "presence");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // events are written by one thread, so a slow connection does not hold up a heartbeat
+    private final ExecutorService sender = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "presence-sender");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public PresenceService(UserRepository userRepository, FriendService friendService, LeaderboardService leaderboardService,
+                           @Value("${presence.timeout-ms:60000}") long timeout,
+                           @Value("${presence.tick-ms:1000}") long tick,
+                           @Value("${presence.flush-interval-ms:5000}") long flushInterval,
+                           @Value("${presence.stream.timeout-ms:1800000}") long streamTimeout) {
+        this(userRepository, friendService, leaderboardService, Clock.systemUTC(), timeout, tick, streamTimeout);
+        scheduler.scheduleWithFixedDelay(this::expire, tick, tick, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+    }
+
+    PresenceService(UserRepository userRepository, FriendService friendService, LeaderboardService leaderboardService,
+                    Clock clock, long timeout, long tick, long streamTimeout) {
+        this.userRepository = userRepository;
+        this.friendService = friendService;
+        this.leaderboardService = leaderboardService;
+        this.clock = clock;
+        this.timeout = timeout;
+        this.tick = tick;
+        this.streamTimeout = streamTimeout;
+        this.sessions = new TimingWheel<>((int) (timeout / tick) + 1, currentTick());
+    }
+
+    /**
+     * Users that were online when the server stopped get one timeout to send a heartbeat
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<Long> onlineUsers = userRepository.findIdsByStatus(UserStatus.ONLINE);
+        synchronized (sessions) {
+            for (Long userId : onlineUsers) {
+                sessions.schedule(userId, deadline());
+            }
+        }
+    }
+
+    /**
+     * Keeps the user online for another timeout, a user that was offline comes online
+     */
+    public void heartbeat(Long userId) {
+        boolean cameOnline;
+        synchronized (sessions) {
+            cameOnline = sessions.schedule(userId, deadline());
+        }
+        if (cameOnline) {
+            changed(userId, UserStatus.ONLINE);
+        }
+    }
+
+    /**
+     * Starts the session of a user that logged in
+     */
+    public void connected(Long userId) {
+        synchronized (sessions) {
+            sessions.schedule(userId, deadline());
+        }
+        changed(userId, UserStatus.ONLINE);
+    }
+
+    /**
+     * Ends the session of a user that logged out
+     */
+    public void disconnected(Long userId) {
+        synchronized (sessions) {
+            sessions.cancel(userId);
+        }
+        changed(userId, UserStatus.OFFLINE);
+    }
+
+    public boolean isOnline(Long userId) {
+        synchronized (sessions) {
+            return sessions.contains(userId);
+        }
+    }
+
+    /**
+     * Subscribes a user to the presence of its friends. It receives a "snapshot" event with its friends that are online
+     * right away and an "update" event whenever one of its friends comes online or goes offline.
+     */
+    public SseEmitter subscribe(Long userId) {
+        SseEmitter emitter = new SseEmitter(streamTimeout);
+        subscribers.computeIfAbsent(userId, id -> new CopyOnWriteArrayList<>()).add(emitter);
+        Runnable unsubscribe = () -> unsubscribe(userId, emitter);
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(ex -> unsubscribe.run());
+
+        List<PresenceGetDTO> onlineFriends = new ArrayList<>();
+        for (Long friendId : friendService.getFriendIds(userId)) {
+            if (isOnline(friendId)) {
+                onlineFriends.add(new PresenceGetDTO(friendId, UserStatus.ONLINE));
+            }
+        }
+        send(emitter, "snapshot", onlineFriends);
+        return emitter;
+    }
+
+    /**
+     * Ends the sessions whose timeout is reached
+     */
+    public void expire() {
+        // an exception would cancel the periodic task, no session would ever expire again
+        try {
+            List<Long> expired;
+            synchronized (sessions) {
+                expired = sessions.advance(currentTick());
+            }
+            for (Long userId : expired) {
+                log.debug("Session of user {} expired.", userId);
+                changed(userId, UserStatus.OFFLINE);
+            }
+        }
+        catch (RuntimeException ex) {
+            log.error(String.format("Could not expire the sessions: %s", ex));
+        }
+    }
+
+    /**
+     * Writes the changed statuses to the database in one batch
+     */
+    public void flush() {
+        Map<Long, UserStatus> statuses = new HashMap<>(pendingStatuses);
+        if (statuses.isEmpty()) {
+            return;
+        }
+        // a status that changed again in the meantime stays pending
+        statuses.forEach(pendingStatuses::remove);
+        try {
+            userRepository.updateStatuses(statuses);
+        }
+        catch (RuntimeException ex) {
+            statuses.forEach(pendingStatuses::putIfAbsent);
+            log.error(String.format("Could not write the statuses of %d users to the database: %s", statuses.size(), ex));
+        }
+    }
+
+    public int getOnlineUsers() {
+        synchronized (sessions) {
+            return sessions.size();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("presence.online", this, PresenceService::getOnlineUsers)
+                .description("Number of users with a session")
+                .register(registry);
+        Gauge.builder("presence.pending", pendingStatuses, Map::size)
+                .description("Number of statuses that are not written to the database yet")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        sender.shutdownNow();
+        flush();
+    }
+
+    private void changed(Long userId, UserStatus status) {
+        pendingStatuses.put(userId, status);
+        leaderboardService.updateStatus(userId, status);
+        PresenceGetDTO presence = new PresenceGetDTO(userId, status);
+        for (Long friendId : friendService.getFriendIds(userId)) {
+            for (SseEmitter emitter : subscribers.getOrDefault(friendId, List.of())) {
+                send(emitter, "update", presence);
+            }
+        }
+    }
+
+    private void unsubscribe(Long userId, SseEmitter emitter) {
+        subscribers.computeIfPresent(userId, (id, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+
+    private void send(SseEmitter emitter, String event, Object data) {
+        sender.execute(() -> {
+            try {
+                emitter.send(SseEmitter.event().name(event).data(data, MediaType.APPLICATION_JSON));
+            }
+            catch (IOException | IllegalStateException ex) {
+                log.debug(String.format("Could not send presence event: %s", ex));
+                emitter.completeWithError(ex);
+            }
+        });
+    }
+
+    private long currentTick() {
+        return clock.millis() / tick;
+    }
+
+    private long deadline() {
+        return currentTick() + (timeout + tick - 1) / tick;
+    }
+}
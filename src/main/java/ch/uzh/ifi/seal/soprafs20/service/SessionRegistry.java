@@ -0,0 +1,225 @@
+package ch.uzh.ifi.seal.soprafs20.service;
+
+import ch.uzh.ifi.seal.soprafs20.exceptions.NotFoundException;
+import ch.uzh.ifi.seal.soprafs20.repository.LobbyRepository;
+import ch.uzh.ifi.seal.soprafs20.repository.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Session Registry
+ * This class maps the tokens of the users to their sessions, so a request is authenticated without the database.
+ * A session is registered when a user is created or logs in and removed when it logs out. Joining and leaving a lobby
+ * updates the lobby of the session. A token that is not registered, e.g. after a restart, is looked up in the database
+ * once and registered afterwards, replacing the previous session of the user. A token that is not found is remembered
+ * for a few seconds, so repeating an unknown token does not hit the database every time. A signed token (see TokenService) is verified without the database instead, so it is
+ * accepted by every server, even one it was not registered on. Such a server does not see the user join or leave
+ * lobbies, so it checks the lobby of the user in the database whenever the lobby matters.
+ */
+@Component
+public class SessionRegistry implements MeterBinder {
+
+    private static final long MISS_TTL_MS = 5000;
+    private static final int MAX_MISSES = 10000;
+
+    private final UserRepository userRepository;
+    private final LobbyRepository lobbyRepository;
+    private final TokenService tokenService;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    // user id -> token of its session, to remove the session when the user gets a new token
+    private final Map<Long, String> tokens = new ConcurrentHashMap<>();
+    // signed tokens of users that logged out on this server, until they expire
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    // tokens not found in the database -> time until they are not looked up again
+    private final Map<String, Long> misses = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SessionRegistry(UserRepository userRepository, LobbyRepository lobbyRepository, TokenService tokenService) {
+        this.userRepository = userRepository;
+        this.lobbyRepository = lobbyRepository;
+        this.tokenService = tokenService;
+    }
+
+    /**
+     * Registers the token of a user, the previous session of the user is removed
+     */
+    public void register(String token, Long userId) {
+        invalidate(userId);
+        misses.remove(token);
+        tokens.put(userId, token);
+        sessions.put(token, new Session(userId, null));
+    }
+
+    /**
+     * Removes the session of a user, e.g. when it logs out
+     */
+    public void invalidate(Long userId) {
+        String token = tokens.remove(userId);
+        if (token != null) {
+            remove(token);
+        }
+    }
+
+    public void joinLobby(String token, Long lobbyId) {
+        if (token == null) {
+            return;
+        }
+        sessions.computeIfPresent(token, (t, session) -> new Session(session.getUserId(), lobbyId));
+    }
+
+    public void leaveLobby(String token) {
+        // bots have no token
+        if (token == null) {
+            return;
+        }
+        sessions.computeIfPresent(token, (t, session) -> new Session(session.getUserId(), null));
+    }
+
+    public Optional<Session> find(String token) {
+        if (token == null) {
+            return Optional.empty();
+        }
+        if (TokenService.isSignedToken(token)) {
+            return findSigned(token);
+        }
+        Session session = sessions.get(token);
+        if (session != null) {
+            return Optional.of(session);
+        }
+        long now = System.currentTimeMillis();
+        Long missExpiresAt = misses.get(token);
+        if (missExpiresAt != null && missExpiresAt > now) {
+            return Optional.empty();
+        }
+        Optional<Long> userId = userRepository.findIdByToken(token);
+        if (userId.isEmpty()) {
+            addMiss(token, now);
+            return Optional.empty();
+        }
+        misses.remove(token);
+        session = new Session(userId.get(), lobbyRepository.findLobbyIdByPlayerId(userId.get()).orElse(null));
+        // the token in the database is the current one, a session of a previous token is stale
+        String previous = tokens.put(userId.get(), token);
+        if (previous != null && !previous.equals(token)) {
+            remove(previous);
+        }
+        Session registered = sessions.putIfAbsent(token, session);
+        return Optional.of(registered == null ? session : registered);
+    }
+
+    /**
+     * @throws NotFoundException if no user has the given token
+     */
+    public Session getSession(String token) {
+        return find(token).orElseThrow(() -> new NotFoundException("Couldn't find user."));
+    }
+
+    /**
+     * @return true if the token belongs to the user with the given id
+     */
+    public boolean isUser(String token, Long userId) {
+        return find(token).map(session -> session.getUserId().equals(userId)).orElse(false);
+    }
+
+    /**
+     * @return true if the token belongs to a player of the lobby with the given id
+     */
+    public boolean isInLobby(String token, Long lobbyId) {
+        Optional<Session> session = find(token);
+        if (session.isEmpty()) {
+            return false;
+        }
+        if (lobbyId.equals(session.get().getLobbyId())) {
+            return true;
+        }
+        // a signed token registered on another server, the user may have joined the lobby there
+        if (TokenService.isSignedToken(token) && !sessions.containsKey(token)) {
+            return lobbyRepository.findLobbyIdByPlayerId(session.get().getUserId()).map(lobbyId::equals).orElse(false);
+        }
+        return false;
+    }
+
+    public int getSessions() {
+        return sessions.size();
+    }
+
+    private void remove(String token) {
+        sessions.remove(token);
+        tokenService.verify(token).ifPresent(claims -> revoked.put(token, claims.getExpiresAt()));
+        // expired tokens are rejected by their signature anyway
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+    }
+
+    private void addMiss(String token, long now) {
+        if (misses.size() >= MAX_MISSES) {
+            misses.values().removeIf(expiresAt -> expiresAt <= now);
+            // still full of fresh misses, e.g. many forged tokens, start over instead of growing
+            if (misses.size() >= MAX_MISSES) {
+                misses.clear();
+            }
+        }
+        misses.put(token, now + MISS_TTL_MS);
+    }
+
+    private Optional<Session> findSigned(String token) {
+        Optional<TokenService.Claims> claims = tokenService.verify(token);
+        if (claims.isEmpty() || revoked.containsKey(token)) {
+            sessions.remove(token);
+            return Optional.empty();
+        }
+        Session session = sessions.get(token);
+        if (session != null) {
+            return Optional.of(session);
+        }
+        // issued by another server, the token itself says who the user is
+        return Optional.of(new Session(claims.get().getUserId(), claims.get().getLobbyId()));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("session.registered", this, SessionRegistry::getSessions)
+                .description("Number of tokens resolved without the database")
+                .register(registry);
+    }
+
+    /**
+     * User a token belongs to, together with the lobby it is a player of
+     */
+    public static final class Session {
+        private final Long userId;
+        private final Long lobbyId;
+
+        public Session(Long userId, Long lobbyId) {
+            this.userId = userId;
+            this.lobbyId = lobbyId;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        /**
+         * A player has the id of its user, it only exists while the user is in a lobby
+         *
+         * @return the id of the player, or null if the user is not in a lobby
+         */
+        public Long getPlayerId() {
+            return lobbyId == null ? null : userId;
+        }
+
+        /**
+         * @return the id of the lobby, or null if the user is not in a lobby
+         */
+        public Long getLobbyId() {
+            return lobbyId;
+        }
+    }
+}
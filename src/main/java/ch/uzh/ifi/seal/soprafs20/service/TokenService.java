@@ -0,0 +1,179 @@
+package ch.uzh.ifi.seal.soprafs20.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token Service
+ * Issues the tokens of the users. By default a token is a random UUID that is resolved through the database.
+ * With token.signed=true, a token contains the id of the user, the id of its lobby (if any) and an expiry, signed with
+ * HMAC-SHA256. A signed token is verified without the database, so every server sharing the secret accepts it.
+ * Format: "s1." + base64url("userId:lobbyId:expiresAt") + "." + base64url(signature), lobbyId is empty if the token is
+ * not bound to a lobby.
+ */
+@Component
+public class TokenService {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String PREFIX = "s1.";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final Logger log = LoggerFactory.getLogger(TokenService.class);
+
+    private final boolean signed;
+    private final SecretKeySpec key;
+    private final long timeToLive;
+    private final Clock clock;
+    // a Mac is not thread safe, every request thread gets its own
+    private final ThreadLocal<Mac> macs;
+
+    @Autowired
+    public TokenService(@Value("${token.signed:false}") boolean signed,
+                        @Value("${token.secret:}") String secret,
+                        @Value("${token.ttl-hours:24}") long timeToLiveHours) {
+        this(signed, secret, TimeUnit.HOURS.toMillis(timeToLiveHours), Clock.systemUTC());
+    }
+
+    TokenService(boolean signed, String secret, long timeToLiveMillis, Clock clock) {
+        this.signed = signed;
+        this.timeToLive = timeToLiveMillis;
+        this.clock = clock;
+        byte[] keyBytes;
+        if (secret == null || secret.isEmpty()) {
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+            if (signed) {
+                log.warn("No token.secret is set, signed tokens are only valid on this server until it restarts.");
+            }
+        }
+        else {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+        this.macs = ThreadLocal.withInitial(this::createMac);
+    }
+
+    public boolean isSigned() {
+        return signed;
+    }
+
+    /**
+     * @param userId id of the user the token is issued to
+     * @param lobbyId id of the lobby the token is bound to, null if it is not bound to a lobby
+     * @return a signed token if signed tokens are enabled, a random UUID otherwise
+     */
+    public String newToken(Long userId, Long lobbyId) {
+        if (!signed) {
+            return UUID.randomUUID().toString();
+        }
+        long expiresAt = clock.millis() + timeToLive;
+        String claims = userId + ":" + (lobbyId == null ? "" : lobbyId.toString()) + ":" + expiresAt;
+        String payload = ENCODER.encodeToString(claims.getBytes(StandardCharsets.UTF_8));
+        return PREFIX + payload + "." + ENCODER.encodeToString(sign(payload));
+    }
+
+    /**
+     * @return true if the token has the format of a signed token, it is not verified
+     */
+    public static boolean isSignedToken(String token) {
+        return token != null && token.startsWith(PREFIX);
+    }
+
+    /**
+     * Verifies the signature and the expiry of a signed token, without accessing the database
+     *
+     * @return the claims of the token, empty if it is not a signed token, its signature is invalid or it expired
+     */
+    public Optional<Claims> verify(String token) {
+        if (!isSignedToken(token)) {
+            return Optional.empty();
+        }
+        int separator = token.indexOf('.', PREFIX.length());
+        if (separator < 0) {
+            return Optional.empty();
+        }
+        String payload = token.substring(PREFIX.length(), separator);
+        try {
+            byte[] signature = DECODER.decode(token.substring(separator + 1));
+            // constant time, so the signature cannot be guessed byte by byte
+            if (!MessageDigest.isEqual(sign(payload), signature)) {
+                return Optional.empty();
+            }
+            String[] claims = new String(DECODER.decode(payload), StandardCharsets.UTF_8).split(":", -1);
+            if (claims.length != 3) {
+                return Optional.empty();
+            }
+            long expiresAt = Long.parseLong(claims[2]);
+            if (clock.millis() >= expiresAt) {
+                return Optional.empty();
+            }
+            Long lobbyId = claims[1].isEmpty() ? null : Long.valueOf(claims[1]);
+            return Optional.of(new Claims(Long.valueOf(claims[0]), lobbyId, expiresAt));
+        }
+        catch (IllegalArgumentException ex) {
+            // malformed base64 or numbers
+            return Optional.empty();
+        }
+    }
+
+    private byte[] sign(String payload) {
+        return macs.get().doFinal(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Mac createMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        }
+        catch (GeneralSecurityException ex) {
+            throw new IllegalStateException(String.format("Could not create %s: %s", ALGORITHM, ex));
+        }
+    }
+
+    /**
+     * Content of a verified signed token
+     */
+    public static final class Claims {
+        private final Long userId;
+        private final Long lobbyId;
+        private final long expiresAt;
+
+        public Claims(Long userId, Long lobbyId, long expiresAt) {
+            this.userId = userId;
+            this.lobbyId = lobbyId;
+            this.expiresAt = expiresAt;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        /**
+         * @return the id of the lobby the token is bound to, or null if it is not bound to a lobby
+         */
+        public Long getLobbyId() {
+            return lobbyId;
+        }
+
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+    }
+}
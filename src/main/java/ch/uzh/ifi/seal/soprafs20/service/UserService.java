@@ -6,13 +6,13 @@ import ch.uzh.ifi.seal.soprafs20.entity.Lobby;
 import ch.uzh.ifi.seal.soprafs20.entity.User;
 import ch.uzh.ifi.seal.soprafs20.exceptions.*;
 import ch.uzh.ifi.seal.soprafs20.repository.UserRepository;
-import ch.uzh.ifi.seal.soprafs20.rest.dto.FriendPutDTO;
 import ch.uzh.ifi.seal.soprafs20.rest.dto.LobbyAcceptancePutDTO;
-import ch.uzh.ifi.seal.soprafs20.rest.dto.RequestPutDTO;
+import ch.uzh.ifi.seal.soprafs20.rest.dto.UserGetDTO;
 import ch.uzh.ifi.seal.soprafs20.rest.dto.UserPutDTO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -30,17 +30,39 @@ public class UserService {
     private final Logger log = LoggerFactory.getLogger(UserService.class);
 
     private final UserRepository userRepository;
+    private final LeaderboardService leaderboardService;
+    private final PresenceService presenceService;
+    private final SessionRegistry sessionRegistry;
+    private final TokenService tokenService;
     private final Random random = new Random();
 
     @Autowired
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, LeaderboardService leaderboardService, PresenceService presenceService,
+                       SessionRegistry sessionRegistry, TokenService tokenService) {
         this.userRepository = userRepository;
+        this.leaderboardService = leaderboardService;
+        this.presenceService = presenceService;
+        this.sessionRegistry = sessionRegistry;
+        this.tokenService = tokenService;
     }
 
     public List<User> getUsers() {
         return this.userRepository.findAll();
     }
 
+    /**
+     * Returns the users with an id greater than after, ordered by id. The last id of a page is the after of the next page.
+     *
+     * @param after id of the last user of the previous page, null for the first page
+     * @param size maximum number of users returned
+     */
+    public List<UserGetDTO> getUsers(Long after, int size) {
+        if (size < 1) {
+            throw new BadRequestException("The size of the page has to be at least 1!");
+        }
+        return this.userRepository.findUsersAfter(after == null ? Long.MIN_VALUE : after, PageRequest.of(0, size));
+    }
+
     public User getUser(Long id) {
         User user;
         Optional<User> optional = userRepository.findById(id);
@@ -54,8 +76,19 @@ public class UserService {
     }
 
     public User getUserByToken(String token){
+        // a signed token is verified without the database and names the user, a forged or expired one is rejected
+        Optional<User> optionalUser;
+        if(TokenService.isSignedToken(token)) {
+            Optional<TokenService.Claims> claims = tokenService.verify(token);
+            if(claims.isEmpty()) {
+                throw new NotFoundException("Couldn't find user.");
+            }
+            optionalUser = userRepository.findById(claims.get().getUserId());
+        }
+        else {
+            optionalUser = userRepository.findByToken(token);
+        }
         User user;
-        Optional<User> optionalUser = userRepository.findByToken(token);
         if(optionalUser.isPresent()){
             user = optionalUser.get();
             return user;
@@ -75,6 +108,12 @@ public class UserService {
         // saves the given entity but data is only persisted in the database once flush() is called
         newUser = userRepository.save(newUser);
         userRepository.flush();
+        if (tokenService.isSigned()) {
+            // a signed token contains the id, which is only known once the user is saved
+            newUser.setToken(tokenService.newToken(newUser.getId(), null));
+        }
+        leaderboardService.updateUser(newUser);
+        sessionRegistry.register(newUser.getToken(), newUser.getId());
 
         log.debug("Created Information for User: {}", newUser);
         return newUser;
@@ -94,17 +133,27 @@ public class UserService {
         }
         isAlreadyLoggedIn(foundUser);
 
-        foundUser.setToken(UUID.randomUUID().toString());
+        foundUser.setToken(tokenService.newToken(foundUser.getId(), null));
         foundUser.setStatus(UserStatus.ONLINE);
+        leaderboardService.updateUser(foundUser);
+        presenceService.connected(foundUser.getId());
+        sessionRegistry.register(foundUser.getToken(), foundUser.getId());
         log.debug("User {} has logged in.", user);
         return foundUser;
     }
 
+    /**
+     * Ends the session of the user. An expired presence only shows the user as offline, the token stays valid until
+     * the user logs out, so the status is not checked here.
+     */
     public void logoutUser(User findUser) {
         User user = getUser(findUser.getId());
-        if (user.getStatus() == UserStatus.ONLINE && user.getToken().equals(findUser.getToken())) {
+        if (user.getToken() != null && user.getToken().equals(findUser.getToken())) {
             user.setStatus(UserStatus.OFFLINE);
             user.setToken(null);
+            leaderboardService.updateUser(user);
+            presenceService.disconnected(user.getId());
+            sessionRegistry.invalidate(user.getId());
             log.debug("User {} has logged out.", user);
         }
         else {
@@ -133,38 +182,7 @@ public class UserService {
             checkAvatarColor(receivedValues.getAvatarColor());
             user.setAvatarColor(receivedValues.getAvatarColor());
         }
-    }
-
-    public void addFriendRequest(User receiver, RequestPutDTO requestPutDTO) {
-        User sender = getUser(requestPutDTO.getSenderID());
-        if (userRepository.findByUsername(receiver.getUsername()) == null) {
-            String exceptionMessage = "User with id %s does not exist!";
-            throw new NotFoundException(String.format(exceptionMessage, receiver.getId().toString()));
-        }
-        if (!sender.getToken().equals(requestPutDTO.getToken())) {
-            throw new UnauthorizedException("You are not allowed to send a friend request!");
-        }
-        if(receiver.getFriendRequests().contains(sender)) {
-            throw new NoContentException("This user already got a friend request from you!");
-        }
-        receiver.setFriendRequests(sender);
-    }
-
-    public void acceptOrDeclineFriendRequest(User receiver, FriendPutDTO friendPutDTO) {
-        if(!receiver.getToken().equals(friendPutDTO.getAccepterToken())){
-            throw new UnauthorizedException("Not allowed to accept/deny friend request!");
-        }
-        User sender = getUser(friendPutDTO.getRequesterID());
-        if (receiver.getFriendRequests().contains(sender)) {
-            if (friendPutDTO.getAccepted()) {
-                receiver.addFriend(sender);
-                sender.addFriend(receiver);
-            }
-            receiver.getFriendRequests().remove(sender);
-        }
-        else {
-            throw new NotFoundException(String.format("No friend request from user with id %s was found!", sender.getId().toString()));
-        }
+        leaderboardService.updateUser(user);
     }
 
     public User addLobbyInvite(User receiver, Lobby lobby, User sender) {
@@ -225,7 +243,4 @@ public class UserService {
         throw new NotAcceptableException("This is an invalid color. Please choose from the following colors: " + Arrays.toString(AvatarColor.values()));
     }
 
-    public List<User> getUsersByScore() {
-        return this.userRepository.findAllByOrderByScoreDesc();
-    }
 }
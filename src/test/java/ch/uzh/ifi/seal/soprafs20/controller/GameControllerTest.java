@@ -7,9 +7,13 @@ import ch.uzh.ifi.seal.soprafs20.exceptions.UnauthorizedException;
 import ch.uzh.ifi.seal.soprafs20.rest.dto.CluePutDTO;
 import ch.uzh.ifi.seal.soprafs20.rest.dto.MessagePutDTO;
 import ch.uzh.ifi.seal.soprafs20.rest.dto.VotePutDTO;
+import ch.uzh.ifi.seal.soprafs20.service.GameMailbox;
 import ch.uzh.ifi.seal.soprafs20.service.GameService;
+import ch.uzh.ifi.seal.soprafs20.service.GameStream;
+import ch.uzh.ifi.seal.soprafs20.service.GameView;
 import ch.uzh.ifi.seal.soprafs20.service.LobbyService;
 import ch.uzh.ifi.seal.soprafs20.service.PlayerService;
+import ch.uzh.ifi.seal.soprafs20.service.SessionRegistry;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
@@ -17,20 +21,26 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
 import java.util.ArrayList;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.BDDMockito.given;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(GameController.class)
+@Import({GameMailbox.class, GameView.class, GameStream.class})
 class GameControllerTest {
 
     @Autowired
@@ -41,6 +51,12 @@ class GameControllerTest {
     private GameService gameService;
     @MockBean
     private LobbyService lobbyService;
+    @MockBean
+    private SessionRegistry sessionRegistry;
+    @Autowired
+    private GameMailbox gameMailbox;
+    @Autowired
+    private GameStream gameStream;
 
 
     @Test
@@ -204,6 +220,171 @@ class GameControllerTest {
                 .andExpect(status().isUnauthorized());
     }
 
+    @Test
+    void getGame_currentVersion_notModified() throws Exception {
+        Player player1 = new Player();
+        player1.setId(1L);
+        player1.setToken("token1");
+
+        Game game = new Game();
+        game.setLobbyId(1L);
+        game.setRoundsPlayed(1);
+        game.addPlayer(player1);
+        game.setCurrentGuesser(player1);
+        game.setGameState(GameState.PICK_WORD_STATE);
+        game.setVersion(7);
+
+        given(gameService.getGame(Mockito.anyLong())).willReturn(game);
+
+        MockHttpServletRequestBuilder getRequest = get("/lobbies/{lobbyId}/game", game.getLobbyId())
+                .param("token", player1.getToken())
+                .header("If-None-Match", "\"7\"");
+
+        mockMvc.perform(getRequest)
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"7\""))
+                .andExpect(content().string(""));
+        // the lobby is only needed to render the game
+        Mockito.verify(lobbyService, Mockito.never()).getLobby(Mockito.anyLong());
+    }
+
+    @Test
+    void getGame_outdatedVersion_returnJsonWithETag() throws Exception {
+        Player player1 = new Player();
+        player1.setId(1L);
+        player1.setToken("token1");
+
+        Lobby lobby = new Lobby();
+        lobby.setCurrentNumBots(0);
+
+        Game game = new Game();
+        game.setLobbyId(1L);
+        game.setRoundsPlayed(1);
+        game.addPlayer(player1);
+        game.setCurrentGuesser(player1);
+        game.setGameState(GameState.PICK_WORD_STATE);
+        game.setVersion(8);
+
+        given(gameService.getGame(Mockito.anyLong())).willReturn(game);
+        given(lobbyService.getLobby(Mockito.anyLong())).willReturn(lobby);
+
+        MockHttpServletRequestBuilder getRequest = get("/lobbies/{lobbyId}/game", game.getLobbyId())
+                .param("token", player1.getToken())
+                .header("If-None-Match", "\"7\"");
+
+        mockMvc.perform(getRequest)
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"8\""))
+                .andExpect(jsonPath("$.version", is(8)));
+    }
+
+    @Test
+    void getGame_since_returnsChangedFields() throws Exception {
+        Player player1 = new Player();
+        player1.setId(1L);
+        player1.setToken("token1");
+
+        Lobby lobby = new Lobby();
+        lobby.setCurrentNumBots(0);
+
+        Game game = new Game();
+        game.setLobbyId(2L);
+        game.setRoundsPlayed(1);
+        game.addPlayer(player1);
+        game.setCurrentGuesser(player1);
+        game.setGameState(GameState.PICK_WORD_STATE);
+        game.setVersion(1);
+
+        given(gameService.getGame(Mockito.anyLong())).willReturn(game);
+        given(lobbyService.getLobby(Mockito.anyLong())).willReturn(lobby);
+
+        mockMvc.perform(get("/lobbies/{lobbyId}/game", game.getLobbyId()).param("token", player1.getToken()))
+                .andExpect(status().isOk());
+
+        game.setOverallScore(20);
+        game.setVersion(2);
+
+        mockMvc.perform(get("/lobbies/{lobbyId}/game", game.getLobbyId()).param("token", player1.getToken())
+                .param("since", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.overallScore", is(20)))
+                .andExpect(jsonPath("$.version", is(2)))
+                .andExpect(jsonPath("$.players").doesNotExist());
+    }
+
+    @Test
+    void streamGame_validToken_pushesSnapshotAndUpdates() throws Exception {
+        Player player1 = new Player();
+        player1.setId(1L);
+        player1.setToken("token1");
+
+        Player player2 = new Player();
+        player2.setId(2L);
+        player2.setToken("token2");
+
+        Lobby lobby = new Lobby();
+        lobby.setCurrentNumBots(0);
+
+        Game game = new Game();
+        game.setLobbyId(1L);
+        game.setRoundsPlayed(1);
+        game.addPlayer(player1);
+        game.addPlayer(player2);
+        game.setCurrentGuesser(player1);
+        game.setCurrentWord("Erdbeermarmeladebrot");
+        game.setGameState(GameState.PICK_WORD_STATE);
+
+        given(gameService.getGame(Mockito.anyLong())).willReturn(game);
+        given(lobbyService.getLobby(Mockito.anyLong())).willReturn(lobby);
+
+        MockHttpServletRequestBuilder getRequest = get("/lobbies/{lobbyId}/game/stream", game.getLobbyId())
+                .param("token", player2.getToken());
+
+        MvcResult result = mockMvc.perform(getRequest)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        awaitContent(result, "event:snapshot");
+        assertTrue(result.getResponse().getContentAsString().contains("\"currentWord\":\"erdbeermarmeladebrot\""));
+
+        gameMailbox.run(game.getLobbyId(), () -> {
+            game.setGameState(GameState.ENTER_CLUES_STATE);
+            gameStream.publish(game);
+        });
+
+        awaitContent(result, "event:update");
+        String update = result.getResponse().getContentAsString().split("event:update")[1];
+        assertTrue(update.contains("\"gameState\":\"ENTER_CLUES_STATE\""));
+        // fields that did not change are not sent again
+        assertFalse(update.contains("currentWord"));
+    }
+
+    @Test
+    void streamGame_invalidToken_throwsException() throws Exception {
+        Player player1 = new Player();
+        player1.setId(1L);
+        player1.setToken("token1");
+
+        Lobby lobby = new Lobby();
+        lobby.setCurrentNumBots(0);
+
+        Game game = new Game();
+        game.setLobbyId(1L);
+        game.setRoundsPlayed(1);
+        game.addPlayer(player1);
+        game.setCurrentGuesser(player1);
+        game.setGameState(GameState.PICK_WORD_STATE);
+
+        given(gameService.getGame(Mockito.anyLong())).willReturn(game);
+        given(lobbyService.getLobby(Mockito.anyLong())).willReturn(lobby);
+
+        MockHttpServletRequestBuilder getRequest = get("/lobbies/{lobbyId}/game/stream", game.getLobbyId())
+                .param("token", "wrongToken");
+
+        mockMvc.perform(getRequest)
+                .andExpect(status().isUnauthorized());
+    }
+
     @Test
     void sendClue_validInput() throws Exception{
         Player player1 = new Player();
@@ -263,7 +444,7 @@ class GameControllerTest {
         cluePutDTO.setPlayerId(player2.getId());
         cluePutDTO.setPlayerToken(player2.getToken());
 
-        //given(gameService.getGame(Mockito.anyLong())).willReturn(game);
+        given(gameService.getGame(Mockito.anyLong())).willReturn(game);
         given(playerService.getPlayer(Mockito.any())).willReturn(player1);
 
         given(gameService.sendClue(Mockito.any(), Mockito.any(), Mockito.any())).willThrow(new UnauthorizedException("ex"));
@@ -393,7 +574,7 @@ class GameControllerTest {
         votePutDTO.setInvalidClues(invalidClues);
 
         given(gameService.getGame(Mockito.anyLong())).willReturn(game);
-        given(playerService.getPlayerByToken(Mockito.any())).willReturn(player1);
+        given(sessionRegistry.find(player1.getToken())).willReturn(Optional.of(new SessionRegistry.Session(player1.getId(), game.getLobbyId())));
         given(gameService.vote(Mockito.any(), Mockito.any(), Mockito.any())).willReturn(true);
 
         MockHttpServletRequestBuilder putRequest = put("/lobbies/{lobbyId}/game/vote", game.getLobbyId())
@@ -430,7 +611,7 @@ class GameControllerTest {
         votePutDTO.setInvalidClues(invalidClues);
 
         given(gameService.getGame(Mockito.anyLong())).willReturn(game);
-        given(playerService.getPlayerByToken(Mockito.any())).willReturn(player1);
+        given(sessionRegistry.find(player1.getToken())).willReturn(Optional.of(new SessionRegistry.Session(player1.getId(), game.getLobbyId())));
 
         MockHttpServletRequestBuilder putRequest = put("/lobbies/{lobbyId}/game/vote", game.getLobbyId())
                 .contentType(MediaType.APPLICATION_JSON)
@@ -464,7 +645,7 @@ class GameControllerTest {
         votePutDTO.setInvalidClues(invalidClues);
 
         given(gameService.getGame(Mockito.anyLong())).willReturn(game);
-        given(playerService.getPlayerByToken(Mockito.any())).willReturn(player1);
+        given(sessionRegistry.find(player1.getToken())).willReturn(Optional.of(new SessionRegistry.Session(player1.getId(), game.getLobbyId())));
 
         MockHttpServletRequestBuilder putRequest = put("/lobbies/{lobbyId}/game/vote", game.getLobbyId())
                 .contentType(MediaType.APPLICATION_JSON)
@@ -489,6 +670,7 @@ class GameControllerTest {
         game.setGameState(GameState.VOTE_ON_CLUES_STATE);
         game.setTimer(timer);
         game.setStartTimeSeconds(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()));
+        given(sessionRegistry.find("token1")).willReturn(Optional.of(new SessionRegistry.Session(player1.getId(), game.getLobbyId())));
         given(gameService.getGame(Mockito.anyLong())).willReturn(game);
 
 
@@ -542,6 +724,7 @@ class GameControllerTest {
         game.setGameState(GameState.END_GAME_STATE);
         game.setTimer(timer);
         game.setStartTimeSeconds(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()));
+        given(sessionRegistry.find("token1")).willReturn(Optional.of(new SessionRegistry.Session(player1.getId(), game.getLobbyId())));
         given(gameService.getGame(Mockito.anyLong())).willReturn(game);
 
 
@@ -568,6 +751,7 @@ class GameControllerTest {
         game.setGameState(GameState.PICK_WORD_STATE);
         game.setTimer(timer);
         game.setStartTimeSeconds(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()));
+        given(sessionRegistry.find("token1")).willReturn(Optional.of(new SessionRegistry.Session(player1.getId(), game.getLobbyId())));
         given(gameService.getGame(Mockito.anyLong())).willReturn(game);
         given(gameService.getMaxTime(game)).willReturn(10);
         Thread.sleep(3000);
@@ -579,6 +763,13 @@ class GameControllerTest {
                 .andExpect(content().string("7"));
     }
 
+    private void awaitContent(MvcResult result, String content) throws Exception {
+        for (int i = 0; i < 100 && !result.getResponse().getContentAsString().contains(content); i++) {
+            Thread.sleep(20);
+        }
+        assertTrue(result.getResponse().getContentAsString().contains(content));
+    }
+
     private String asJsonString(final Object object) {
         try {
             return new ObjectMapper().writeValueAsString(object);
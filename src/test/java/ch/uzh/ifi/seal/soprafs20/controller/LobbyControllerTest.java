@@ -50,10 +50,14 @@ class LobbyControllerTest {
     @MockBean
     private GameService gameService;
     @MockBean
-    private MessageService messageService;
-    @MockBean
     private LobbyScoreService lobbyScoreService;
 
+    @MockBean
+    private LeaderboardService leaderboardService;
+
+    @MockBean
+    private SessionRegistry sessionRegistry;
+
 
     @Test
     void givenLobbies_whenGetLobbies_thenReturnJsonArray() throws Exception {
@@ -84,6 +88,18 @@ class LobbyControllerTest {
                 .andExpect(jsonPath(("$[0].hostId"), is(lobby.getHostId().intValue())));
     }
 
+    @Test
+    void getLobbies_unknownToken_notFound() throws Exception {
+        given(sessionRegistry.getSession("unknownToken")).willThrow(new NotFoundException("Couldn't find user."));
+
+        MockHttpServletRequestBuilder getRequest = get("/lobbies")
+                .contentType(MediaType.APPLICATION_JSON)
+                .param("token", "unknownToken");
+
+        mockMvc.perform(getRequest).andExpect(status().isNotFound());
+        Mockito.verify(lobbyService, Mockito.never()).getLobbies();
+    }
+
     @Test
     public void givenLobby_whenGetLobby_returnJson() throws Exception {
         Player player1 = new Player();
@@ -317,14 +333,6 @@ class LobbyControllerTest {
 
     @Test
     void getChat_validInput_returnsJson() throws Exception {
-
-        Player player = new Player();
-        player.setToken("hostToken");
-
-        Lobby lobby = new Lobby();
-        lobby.setLobbyId(1L);
-        lobby.addPlayerToLobby(player);
-
         Message message1 = new Message();
         message1.setAuthorId(1L);
         message1.setMessageId(2L);
@@ -337,53 +345,49 @@ class LobbyControllerTest {
         message2.setCreationDate();
         message2.setText("Hello world");
 
-        Chat chat = new Chat();
-        chat.setLobbyId(3L);
-        chat.setMessages(message1);
-        chat.setMessages(message2);
+        given(sessionRegistry.isInLobby("hostToken", 3L)).willReturn(true);
+        given(chatService.getMessages(3L, null)).willReturn(List.of(message1, message2));
 
-        given(chatService.getChat(Mockito.any())).willReturn(chat);
-        given(lobbyService.getLobby(Mockito.any())).willReturn(lobby);
-
-        MockHttpServletRequestBuilder getRequest = get("/lobbies/" + chat.getLobbyId() + "/chat")
+        MockHttpServletRequestBuilder getRequest = get("/lobbies/3/chat")
                 .contentType(MediaType.APPLICATION_JSON)
                 .param("token", "hostToken");
 
-
         mockMvc.perform(getRequest)
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.lobbyId", is(chat.getLobbyId().intValue())))
+                .andExpect(jsonPath("$.lobbyId", is(3)))
                 .andExpect(jsonPath("$.messages[0].messageId", is(message1.getMessageId().intValue())))
                 .andExpect(jsonPath("$.messages[0].authorId", is(message1.getAuthorId().intValue())))
                 .andExpect(jsonPath("$.messages[0].text", is(message1.getText())))
                 .andExpect(jsonPath("$.messages[1].messageId", is(message2.getMessageId().intValue())))
                 .andExpect(jsonPath("$.messages[1].authorId", is(message2.getAuthorId().intValue())))
                 .andExpect(jsonPath("$.messages[1].text", is(message2.getText())));
+        Mockito.verify(lobbyService, Mockito.never()).getLobby(Mockito.any());
     }
 
     @Test
-    void getChat_invalidLobbyId_throwsException() throws Exception {
+    void getChat_after_returnsNewMessages() throws Exception {
+        Message message = new Message();
+        message.setAuthorId(1L);
+        message.setMessageId(5L);
+        message.setCreationDate();
+        message.setText("Hello world");
 
-        given(lobbyService.getLobby(Mockito.anyLong())).willThrow(new NotFoundException("ex"));
+        given(sessionRegistry.isInLobby("hostToken", 1L)).willReturn(true);
+        given(chatService.getMessages(1L, 4L)).willReturn(List.of(message));
 
         MockHttpServletRequestBuilder getRequest = get("/lobbies/1/chat")
-                .contentType(MediaType.APPLICATION_JSON)
-                .param("token", "anyToken");
+                .param("token", "hostToken")
+                .param("after", "4");
 
         mockMvc.perform(getRequest)
-                .andExpect(status().isNotFound());
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.messages", hasSize(1)))
+                .andExpect(jsonPath("$.messages[0].messageId", is(5)));
     }
 
     @Test
     void getChat_playerNotInLobby_throwsException() throws Exception {
-        Player player = new Player();
-        player.setToken("wrongToken");
-
-        Lobby lobby = new Lobby();
-        lobby.setLobbyId(1L);
-        lobby.addPlayerToLobby(player);
-
-        given(lobbyService.getLobby(Mockito.anyLong())).willReturn(lobby);
+        given(sessionRegistry.isInLobby("anyToken", 1L)).willReturn(false);
 
         MockHttpServletRequestBuilder getRequest = get("/lobbies/1/chat")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -391,6 +395,29 @@ class LobbyControllerTest {
 
         mockMvc.perform(getRequest)
                 .andExpect(status().isUnauthorized());
+        Mockito.verify(chatService, Mockito.never()).getMessages(Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    void getChatHistory_validInput_returnsPage() throws Exception {
+        Message message = new Message();
+        message.setAuthorId(1L);
+        message.setMessageId(2L);
+        message.setCreationDate();
+        message.setText("Hello world");
+
+        given(sessionRegistry.isInLobby("hostToken", 1L)).willReturn(true);
+        given(chatService.getMessagesBefore(1L, 10L, 20)).willReturn(List.of(message));
+
+        MockHttpServletRequestBuilder getRequest = get("/lobbies/1/chat/history")
+                .param("token", "hostToken")
+                .param("before", "10")
+                .param("size", "20");
+
+        mockMvc.perform(getRequest)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].messageId", is(2)));
     }
 
     @Test
@@ -418,6 +445,23 @@ class LobbyControllerTest {
                 .andExpect(status().is2xxSuccessful());
     }
 
+    @Test
+    public void addChatMessage_tooLong_droppedWithoutLookup() throws Exception {
+        MessagePutDTO messagePutDTO = new MessagePutDTO();
+        messagePutDTO.setMessage("a".repeat(52));
+        messagePutDTO.setPlayerId(1L);
+        messagePutDTO.setPlayerToken("testToken");
+
+        MockHttpServletRequestBuilder putRequest = put("/lobbies/{lobbyId}/chat", "1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(messagePutDTO));
+
+        mockMvc.perform(putRequest)
+                .andExpect(status().is2xxSuccessful());
+
+        Mockito.verifyNoInteractions(userService, lobbyService, chatService);
+    }
+
     @Test
     void invitePlayerToLobby_success() throws Exception {
         Lobby lobby = new Lobby();
@@ -1,11 +1,17 @@
 package ch.uzh.ifi.seal.soprafs20.controller;
 
+import ch.uzh.ifi.seal.soprafs20.constant.ScorePeriod;
 import ch.uzh.ifi.seal.soprafs20.constant.UserStatus;
 import ch.uzh.ifi.seal.soprafs20.entity.Lobby;
 import ch.uzh.ifi.seal.soprafs20.entity.User;
 import ch.uzh.ifi.seal.soprafs20.exceptions.*;
 import ch.uzh.ifi.seal.soprafs20.repository.UserRepository;
 import ch.uzh.ifi.seal.soprafs20.rest.dto.*;
+import ch.uzh.ifi.seal.soprafs20.rest.mapper.DTOMapper;
+import ch.uzh.ifi.seal.soprafs20.service.FriendService;
+import ch.uzh.ifi.seal.soprafs20.service.LeaderboardService;
+import ch.uzh.ifi.seal.soprafs20.service.PresenceService;
+import ch.uzh.ifi.seal.soprafs20.service.SessionRegistry;
 import ch.uzh.ifi.seal.soprafs20.service.UserService;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -24,6 +30,7 @@ import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilde
 import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
@@ -49,6 +56,18 @@ class UserControllerTest {
     @MockBean
     private UserService userService;
 
+    @MockBean
+    private LeaderboardService leaderboardService;
+
+    @MockBean
+    private FriendService friendService;
+
+    @MockBean
+    private PresenceService presenceService;
+
+    @MockBean
+    private SessionRegistry sessionRegistry;
+
     @Test
     void givenUsers_whenGetUsers_thenReturnJsonArray() throws Exception {
         // given
@@ -59,10 +78,10 @@ class UserControllerTest {
         user.setCreationDate();
         user.setToken("1");
 
-        List<User> allUsers = Collections.singletonList(user);
+        List<UserGetDTO> allUsers = Collections.singletonList(DTOMapper.INSTANCE.convertEntityToUserGetDTO(user));
 
         // this mocks the UserService -> we define above what the userService should return when getUsers() is called
-        given(userService.getUsers()).willReturn(allUsers);
+        given(userService.getUsers(null, Integer.MAX_VALUE)).willReturn(allUsers);
 
         // when
         MockHttpServletRequestBuilder getRequest = get("/users").contentType(MediaType.APPLICATION_JSON);
@@ -74,6 +93,22 @@ class UserControllerTest {
                 .andExpect(jsonPath("$[0].logged_in", is(user.getStatus() == UserStatus.ONLINE)));
     }
 
+    @Test
+    void givenUsers_whenGetUsersAfter_thenReturnPage() throws Exception {
+        UserGetDTO userGetDTO = new UserGetDTO();
+        userGetDTO.setId(21L);
+        userGetDTO.setUsername("next");
+
+        given(userService.getUsers(20L, 10)).willReturn(List.of(userGetDTO));
+
+        MockHttpServletRequestBuilder getRequest = get("/users?after=20&size=10").contentType(MediaType.APPLICATION_JSON);
+
+        mockMvc.perform(getRequest).andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(21)))
+                .andExpect(jsonPath("$[0].username", is("next")));
+    }
+
     @Test
     void givenUser_whenGetUser_thenReturnJson() throws Exception {
         User user = new User();
@@ -269,12 +304,10 @@ class UserControllerTest {
         user1.setId(1L);
         user1.setToken("testToken");
 
-        User user2 = new User();
-        user2.setId(2L);
+        RequestGetDTO user2 = new RequestGetDTO(2L, "requester", UserStatus.ONLINE);
 
-        user1.setFriendRequests(user2);
-
-        given(userService.getUser(Mockito.any())).willReturn(user1);
+        given(sessionRegistry.isUser(user1.getToken(), user1.getId())).willReturn(true);
+        given(friendService.getFriendRequests(user1.getId())).willReturn(List.of(user2));
 
         // when
         MockHttpServletRequestBuilder getRequest = get("/users/" + user1.getId() + "/friendRequests")
@@ -293,12 +326,7 @@ class UserControllerTest {
         user1.setId(1L);
         user1.setToken("testToken");
 
-        User user2 = new User();
-        user2.setId(2L);
-
-        user1.setFriendRequests(user2);
-
-        given(userService.getUser(Mockito.any())).willReturn(user1);
+        given(sessionRegistry.isUser(user1.getToken(), user1.getId())).willReturn(true);
 
         // when
         MockHttpServletRequestBuilder getRequest = get("/users/" + user1.getId() + "/friendRequests")
@@ -337,13 +365,10 @@ class UserControllerTest {
         user1.setUsername("BadBunny");
         user1.setToken("token");
 
-        User user2 = new User();
-        user2.setId(2L);
-        user2.setUsername("SadBunny");
-
-        user1.addFriend(user2);
+        RequestGetDTO user2 = new RequestGetDTO(2L, "SadBunny", UserStatus.OFFLINE);
 
-        given(userService.getUser(Mockito.anyLong())).willReturn(user1);
+        given(sessionRegistry.isUser(user1.getToken(), user1.getId())).willReturn(true);
+        given(friendService.getFriends(user1.getId())).willReturn(List.of(user2));
 
         MockHttpServletRequestBuilder getRequest = get("/users/{id}/friends", user1.getId())
                 .contentType(MediaType.APPLICATION_JSON)
@@ -351,23 +376,39 @@ class UserControllerTest {
 
         mockMvc.perform(getRequest).andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(1)))
-                .andExpect(jsonPath("$[0].username", is(user2.getUsername())));
+                .andExpect(jsonPath("$[0].username", is(user2.getUsername())))
+                .andExpect(jsonPath("$[0].status", is("OFFLINE")));
     }
 
     @Test
-    void getFriends_unauthorized_throwsException() throws Exception {
+    void givenOnlineFriends_whenGetOnlineFriends_thenReturnJsonArray() throws Exception {
         User user1 = new User();
         user1.setId(1L);
-        user1.setUsername("BadBunny");
         user1.setToken("token");
 
-        User user2 = new User();
-        user2.setId(2L);
-        user2.setUsername("SadBunny");
+        RequestGetDTO user2 = new RequestGetDTO(2L, "SadBunny", UserStatus.ONLINE);
+
+        given(sessionRegistry.isUser(user1.getToken(), user1.getId())).willReturn(true);
+        given(friendService.getOnlineFriends(user1.getId())).willReturn(List.of(user2));
+
+        MockHttpServletRequestBuilder getRequest = get("/users/{id}/friends/online", user1.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .param("token", "token");
 
-        user1.addFriend(user2);
+        mockMvc.perform(getRequest).andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(2)))
+                .andExpect(jsonPath("$[0].status", is("ONLINE")));
+    }
 
-        given(userService.getUser(Mockito.anyLong())).willReturn(user1);
+    @Test
+    void getFriends_unauthorized_throwsException() throws Exception {
+        User user1 = new User();
+        user1.setId(1L);
+        user1.setUsername("BadBunny");
+        user1.setToken("token");
+
+        given(sessionRegistry.isUser(user1.getToken(), user1.getId())).willReturn(true);
 
         MockHttpServletRequestBuilder getRequest = get("/users/{id}/friends", user1.getId())
                 .contentType(MediaType.APPLICATION_JSON)
@@ -376,6 +417,36 @@ class UserControllerTest {
         mockMvc.perform(getRequest).andExpect(status().isUnauthorized());
     }
 
+    @Test
+    void heartbeat_validToken_success() throws Exception {
+        User user = new User();
+        user.setId(1L);
+        user.setToken("token");
+
+        given(sessionRegistry.isUser(user.getToken(), user.getId())).willReturn(true);
+
+        MockHttpServletRequestBuilder putRequest = put("/users/{id}/heartbeat", user.getId())
+                .param("token", "token");
+
+        mockMvc.perform(putRequest).andExpect(status().isNoContent());
+        Mockito.verify(presenceService).heartbeat(user.getId());
+    }
+
+    @Test
+    void heartbeat_invalidToken_unauthorized() throws Exception {
+        User user = new User();
+        user.setId(1L);
+        user.setToken("token");
+
+        given(sessionRegistry.isUser(user.getToken(), user.getId())).willReturn(true);
+
+        MockHttpServletRequestBuilder putRequest = put("/users/{id}/heartbeat", user.getId())
+                .param("token", "wrongToken");
+
+        mockMvc.perform(putRequest).andExpect(status().isUnauthorized());
+        Mockito.verify(presenceService, Mockito.never()).heartbeat(Mockito.any());
+    }
+
     @Test
     void handleFriendRequest_accept_success() throws Exception {
         User sender = new User();
@@ -384,7 +455,6 @@ class UserControllerTest {
         User accepter = new User();
         accepter.setId(2L);
         accepter.setToken("receiverToken");
-        accepter.setFriendRequests(sender);
 
         FriendPutDTO friendPutDTO = new FriendPutDTO();
         friendPutDTO.setAccepted(true);
@@ -413,7 +483,7 @@ class UserControllerTest {
         user.setToken("userToken");
         user.setLobbyInvites(lobby);
 
-        given(userService.getUserByToken(Mockito.any())).willReturn(user);
+        given(sessionRegistry.find(Mockito.any())).willReturn(Optional.of(new SessionRegistry.Session(user.getId(), null)));
         given(userService.getUser(Mockito.any())).willReturn(user);
 
         MockHttpServletRequestBuilder getRequest = get("/users/{userId}/invitations", user.getId())
@@ -441,7 +511,7 @@ class UserControllerTest {
         user.setToken("userToken");
         user.setLobbyInvites(lobby);
 
-        given(userService.getUserByToken(Mockito.any())).willThrow(new NotFoundException("ex"));
+        given(sessionRegistry.find(Mockito.any())).willReturn(Optional.empty());
 
         MockHttpServletRequestBuilder getRequest = get("/users/{userId}/invitations", user.getId())
                 .contentType(MediaType.APPLICATION_JSON)
@@ -463,7 +533,7 @@ class UserControllerTest {
         user.setToken("userToken");
         user.setLobbyInvites(lobby);
 
-        given(userService.getUserByToken(Mockito.any())).willReturn(user);
+        given(sessionRegistry.find(Mockito.any())).willReturn(Optional.of(new SessionRegistry.Session(user.getId(), null)));
 
         MockHttpServletRequestBuilder getRequest = get("/users/{userId}/invitations", "2")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -480,4 +550,51 @@ class UserControllerTest {
             throw new BadRequestException(String.format("The request body could not be created.%s", e.toString()));
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void getUserScoreboard_page() throws Exception {
+        User user = new User();
+        user.setId(1L);
+        user.setToken("1");
+        UserGetDTO userGetDTO = new UserGetDTO();
+        userGetDTO.setId(2L);
+        userGetDTO.setUsername("best");
+        userGetDTO.setScore(500);
+
+        given(sessionRegistry.find("1")).willReturn(Optional.of(new SessionRegistry.Session(user.getId(), null)));
+        given(leaderboardService.getUsers(ScorePeriod.ALL_TIME, 2, 5)).willReturn(List.of(userGetDTO));
+
+        MockHttpServletRequestBuilder getRequest = get("/users/scores?token=1&page=2&size=5");
+
+        mockMvc.perform(getRequest).andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].username", is("best")))
+                .andExpect(jsonPath("$[0].score", is(500)));
+    }
+
+    @Test
+    void getUserRank_success() throws Exception {
+        User user = new User();
+        user.setId(1L);
+        user.setToken("1");
+
+        given(sessionRegistry.find("1")).willReturn(Optional.of(new SessionRegistry.Session(user.getId(), null)));
+        given(leaderboardService.getUserRank(ScorePeriod.WEEKLY, 1L)).willReturn(java.util.OptionalInt.of(3));
+        given(leaderboardService.getNumberOfUsers(ScorePeriod.WEEKLY)).willReturn(10);
+
+        MockHttpServletRequestBuilder getRequest = get("/users/scores/rank?token=1&period=WEEKLY");
+
+        mockMvc.perform(getRequest).andExpect(status().isOk())
+                .andExpect(jsonPath("$.rank", is(3)))
+                .andExpect(jsonPath("$.total", is(10)));
+    }
+
+    @Test
+    void getUserRank_invalidToken() throws Exception {
+        given(sessionRegistry.find("1")).willReturn(Optional.empty());
+
+        MockHttpServletRequestBuilder getRequest = get("/users/scores/rank?token=1");
+
+        mockMvc.perform(getRequest).andExpect(status().isNotFound());
+    }
+}
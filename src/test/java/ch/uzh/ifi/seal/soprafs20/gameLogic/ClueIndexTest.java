@@ -0,0 +1,74 @@
+package ch.uzh.ifi.seal.soprafs20.gameLogic;
+
+import ch.uzh.ifi.seal.soprafs20.GameLogic.ClueIndex;
+import ch.uzh.ifi.seal.soprafs20.entity.Clue;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClueIndexTest {
+
+    @Test
+    void add_firstClue_returnsNull() {
+        ClueIndex clueIndex = new ClueIndex();
+
+        assertNull(clueIndex.add(clue("star")));
+        assertTrue(clueIndex.contains("star"));
+    }
+
+    @Test
+    void add_variantOfClue_returnsEarlierClue() {
+        ClueIndex clueIndex = new ClueIndex();
+        Clue star = clue("star");
+        clueIndex.add(star);
+
+        assertSame(star, clueIndex.add(clue("Stars")));
+        assertSame(star, clueIndex.add(clue(" STAR ")));
+        assertNull(clueIndex.add(clue("planet")));
+    }
+
+    @Test
+    void key_sameStem() {
+        assertEquals(ClueIndex.key("running"), ClueIndex.key("Runs"));
+        assertNotEquals(ClueIndex.key("star"), ClueIndex.key("start"));
+    }
+
+    @Test
+    void cancel_onlyFirstTime() {
+        ClueIndex clueIndex = new ClueIndex();
+        Clue star = clue("star");
+        clueIndex.add(star);
+
+        assertTrue(clueIndex.cancel(star));
+        assertFalse(clueIndex.cancel(clue("stars")));
+    }
+
+    @Test
+    void listInvalid_ignoresCase() {
+        ClueIndex clueIndex = new ClueIndex();
+
+        assertTrue(clueIndex.listInvalid(clue("star")));
+        assertFalse(clueIndex.listInvalid(clue("STAR")));
+        assertTrue(clueIndex.listInvalid(clue("stars")));
+    }
+
+    @Test
+    void clear_removesAllClues() {
+        ClueIndex clueIndex = new ClueIndex();
+        Clue star = clue("star");
+        clueIndex.add(star);
+        clueIndex.cancel(star);
+
+        clueIndex.clear();
+
+        assertTrue(clueIndex.isEmpty());
+        assertNull(clueIndex.add(star));
+        assertTrue(clueIndex.cancel(star));
+    }
+
+    private static Clue clue(String actualClue) {
+        Clue clue = new Clue();
+        clue.setActualClue(actualClue);
+        return clue;
+    }
+}
@@ -0,0 +1,111 @@
+package ch.uzh.ifi.seal.soprafs20.gameLogic;
+
+import ch.uzh.ifi.seal.soprafs20.GameLogic.Leaderboard;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeaderboardTest {
+
+    @Test
+    void page_highestScoreFirst() {
+        Leaderboard<String> leaderboard = new Leaderboard<>();
+        leaderboard.put(1L, 10, "a");
+        leaderboard.put(2L, 30, "b");
+        leaderboard.put(3L, 20, "c");
+
+        assertEquals(List.of("b", "c", "a"), values(leaderboard.page(0, 10)));
+        assertEquals(List.of("c"), values(leaderboard.page(1, 1)));
+        assertTrue(leaderboard.page(3, 10).isEmpty());
+    }
+
+    @Test
+    void page_sameScore_orderedById() {
+        Leaderboard<String> leaderboard = new Leaderboard<>();
+        leaderboard.put(2L, 10, "b");
+        leaderboard.put(1L, 10, "a");
+
+        assertEquals(List.of("a", "b"), values(leaderboard.page(0, 2)));
+    }
+
+    @Test
+    void put_existingId_entryReplaced() {
+        Leaderboard<String> leaderboard = new Leaderboard<>();
+        leaderboard.put(1L, 10, "a");
+        leaderboard.put(2L, 20, "b");
+
+        leaderboard.put(1L, 30, "a2");
+
+        assertEquals(2, leaderboard.size());
+        assertEquals(List.of("a2", "b"), values(leaderboard.page(0, 2)));
+        assertEquals(30, leaderboard.get(1L).orElseThrow().getScore());
+    }
+
+    @Test
+    void rank_success() {
+        Leaderboard<String> leaderboard = new Leaderboard<>();
+        leaderboard.put(1L, 10, "a");
+        leaderboard.put(2L, 30, "b");
+        leaderboard.put(3L, 20, "c");
+
+        assertEquals(1, leaderboard.rank(2L).getAsInt());
+        assertEquals(2, leaderboard.rank(3L).getAsInt());
+        assertEquals(3, leaderboard.rank(1L).getAsInt());
+        assertTrue(leaderboard.rank(4L).isEmpty());
+    }
+
+    @Test
+    void remove_success() {
+        Leaderboard<String> leaderboard = new Leaderboard<>();
+        leaderboard.put(1L, 10, "a");
+        leaderboard.put(2L, 30, "b");
+
+        assertTrue(leaderboard.remove(2L));
+        assertFalse(leaderboard.remove(2L));
+
+        assertEquals(1, leaderboard.size());
+        assertEquals(1, leaderboard.rank(1L).getAsInt());
+    }
+
+    @Test
+    void randomUpdates_sameAsSortedList() {
+        Leaderboard<Long> leaderboard = new Leaderboard<>();
+        Map<Long, Integer> scores = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            long id = random.nextInt(300);
+            if (random.nextInt(10) == 0) {
+                leaderboard.remove(id);
+                scores.remove(id);
+            }
+            else {
+                int score = random.nextInt(100);
+                leaderboard.put(id, score, id);
+                scores.put(id, score);
+            }
+        }
+        List<Long> expected = new ArrayList<>(scores.keySet());
+        expected.sort(Comparator.comparing((Long id) -> -scores.get(id)).thenComparing(id -> id));
+
+        assertEquals(expected, values(leaderboard.page(0, Integer.MAX_VALUE)));
+        assertEquals(expected.subList(20, 45), values(leaderboard.page(20, 25)));
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(i + 1, leaderboard.rank(expected.get(i)).getAsInt());
+        }
+    }
+
+    private static <V> List<V> values(List<Leaderboard.Entry<V>> entries) {
+        List<V> values = new ArrayList<>();
+        for (Leaderboard.Entry<V> entry : entries) {
+            values.add(entry.getValue());
+        }
+        return values;
+    }
+}
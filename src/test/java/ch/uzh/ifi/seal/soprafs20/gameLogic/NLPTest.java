@@ -87,4 +87,50 @@ class NLPTest {
         assertFalse(nlp.checkClue(clue, word));
     }
 
+    @Test
+    void editDistance_firstLetterIgnored() {
+        String clue = "bat";
+        String word = "cat";
+
+        assertFalse(nlp.checkClue(clue, word));
+    }
+
+    @Test
+    void emptyClue() {
+        assertFalse(nlp.checkClue("", "piano"));
+    }
+
+    @Test
+    void clueTooLong() {
+        assertFalse(nlp.checkClue("a".repeat(31), "piano"));
+    }
+
+    @Test
+    void sameStem() {
+        String clue = "laughing";
+        String word = "laughs";
+
+        assertFalse(nlp.checkClue(clue, word));
+    }
+
+    @Test
+    void preparedWord_sameResult() {
+        NLP.CurrentWord word = nlp.prepare("Electricity");
+
+        assertEquals("electricity", word.getWord());
+        assertEquals(nlp.stemWord("electricity"), word.getStem());
+        assertFalse(nlp.checkClue("electric", word));
+        assertTrue(nlp.checkClue("power", word));
+    }
+
+    @Test
+    void isWithinOneEdit_sameAsEditDistance() {
+        String[] words = {"syrup", "sirup", "sirups", "tool", "tools", "stool", "cat", "bat", "cart", "act", "a", "ab", "ba", "music", "piano"};
+        for (String first : words) {
+            for (String second : words) {
+                boolean expected = nlp.getDistance(first.substring(1), second.substring(1)) <= 1;
+                assertEquals(expected, NLP.isWithinOneEdit(first, second, 1), first + " " + second);
+            }
+        }
+    }
 }
@@ -0,0 +1,82 @@
+package ch.uzh.ifi.seal.soprafs20.gameLogic;
+
+import ch.uzh.ifi.seal.soprafs20.GameLogic.Stemmer;
+import ch.uzh.ifi.seal.soprafs20.GameLogic.WordReader;
+import opennlp.tools.stemmer.PorterStemmer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StemmerTest {
+
+    private static final String[] CLUES = {"laughing", "relational", "conditional", "hopefully", "generalizations",
+            "caresses", "ponies", "electricity", "a", "suilon", "a-really-long-clue-that-needs-a-bigger-buffer-than-32"};
+
+    @Test
+    void stem_sameAsPorterStemmer() {
+        Stemmer stemmer = new Stemmer(0);
+        for (String word : words()) {
+            assertEquals(new PorterStemmer().stem(word), stemmer.stem(word), word);
+        }
+    }
+
+    @Test
+    void stem_unchangedWord_sameInstance() {
+        String word = "suilon";
+
+        assertSame(word, new Stemmer(0).stem(word));
+    }
+
+    @Test
+    void stem_manyThreads_sameResults() throws Exception {
+        List<String> words = words();
+        List<String> expected = new ArrayList<>();
+        for (String word : words) {
+            expected.add(new PorterStemmer().stem(word));
+        }
+        // without cache, every call runs the stemmer of its thread
+        Stemmer stemmer = new Stemmer(0);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            results.add(executor.submit(() -> {
+                start.await();
+                int mismatches = 0;
+                for (int round = 0; round < 200; round++) {
+                    for (int i = 0; i < words.size(); i++) {
+                        int index = (i + offset * 7) % words.size();
+                        if (!expected.get(index).equals(stemmer.stem(words.get(index)))) {
+                            mismatches++;
+                        }
+                    }
+                }
+                return mismatches;
+            }));
+        }
+        start.countDown();
+        for (Future<Integer> result : results) {
+            assertEquals(0, result.get(30, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+    }
+
+    private static List<String> words() {
+        List<String> words = new ArrayList<>();
+        for (String word : new WordReader().getWords()) {
+            words.add(word.toLowerCase());
+        }
+        words.addAll(List.of(CLUES));
+        return words;
+    }
+}
@@ -0,0 +1,108 @@
+package ch.uzh.ifi.seal.soprafs20.gameLogic;
+
+import ch.uzh.ifi.seal.soprafs20.GameLogic.TimingWheel;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    @Test
+    void advance_expiresReachedDeadlines() {
+        TimingWheel<String> wheel = new TimingWheel<>(8, 0);
+        assertTrue(wheel.schedule("a", 3));
+        assertTrue(wheel.schedule("b", 5));
+
+        assertTrue(wheel.advance(2).isEmpty());
+        assertEquals(List.of("a"), wheel.advance(4));
+        assertEquals(List.of("b"), wheel.advance(5));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void schedule_laterDeadline_keyMovedWhenSlotReached() {
+        TimingWheel<String> wheel = new TimingWheel<>(8, 0);
+        wheel.schedule("a", 3);
+        assertFalse(wheel.schedule("a", 6));
+
+        assertTrue(wheel.advance(3).isEmpty());
+        assertTrue(wheel.contains("a"));
+        assertEquals(List.of("a"), wheel.advance(6));
+    }
+
+    @Test
+    void schedule_deadlineBeyondOneTurn_expiresOnTime() {
+        TimingWheel<String> wheel = new TimingWheel<>(4, 0);
+        wheel.schedule("a", 10);
+
+        assertTrue(wheel.advance(2).isEmpty());
+        assertTrue(wheel.advance(9).isEmpty());
+        assertEquals(List.of("a"), wheel.advance(10));
+    }
+
+    @Test
+    void schedule_earlierDeadline_expiresEarlier() {
+        TimingWheel<String> wheel = new TimingWheel<>(8, 0);
+        wheel.schedule("a", 6);
+        wheel.schedule("a", 2);
+
+        assertEquals(List.of("a"), wheel.advance(2));
+    }
+
+    @Test
+    void schedule_deadlineReached_expiresWithNextTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(8, 10);
+        wheel.schedule("a", 4);
+
+        assertEquals(List.of("a"), wheel.advance(11));
+    }
+
+    @Test
+    void advance_moreThanOneTurn_allExpired() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(4, 0);
+        for (int i = 1; i <= 4; i++) {
+            wheel.schedule(i, i);
+        }
+
+        assertEquals(4, wheel.advance(100).size());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cancel_notExpired() {
+        TimingWheel<String> wheel = new TimingWheel<>(8, 0);
+        wheel.schedule("a", 3);
+
+        assertTrue(wheel.cancel("a"));
+        assertFalse(wheel.cancel("a"));
+        assertTrue(wheel.advance(5).isEmpty());
+        assertFalse(wheel.contains("a"));
+    }
+
+    @Test
+    void cancel_afterLaterDeadline_removedFromOldSlot() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(128, 0);
+        // login, heartbeat and logout
+        wheel.schedule(1, 60);
+        wheel.advance(10);
+        wheel.schedule(1, 70);
+
+        assertTrue(wheel.cancel(1));
+        assertTrue(wheel.advance(65).isEmpty());
+        assertTrue(wheel.advance(80).isEmpty());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void schedule_laterThenEarlierDeadline_expiresOnce() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(128, 0);
+        wheel.schedule(1, 60);
+        wheel.schedule(1, 70);
+        wheel.schedule(1, 20);
+
+        assertEquals(List.of(1), wheel.advance(20));
+        assertTrue(wheel.advance(80).isEmpty());
+    }
+}
@@ -0,0 +1,65 @@
+package ch.uzh.ifi.seal.soprafs20.gameLogic;
+
+import ch.uzh.ifi.seal.soprafs20.GameLogic.VoteTally;
+import ch.uzh.ifi.seal.soprafs20.entity.Clue;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VoteTallyTest {
+
+    @Test
+    void count_distinctVoters() {
+        VoteTally voteTally = new VoteTally();
+        voteTally.vote(0, "apple");
+        voteTally.vote(1, "apple");
+        voteTally.vote(2, "banana");
+
+        assertEquals(2, voteTally.count("apple"));
+        assertEquals(1, voteTally.count("banana"));
+        assertEquals(0, voteTally.count("cherry"));
+    }
+
+    @Test
+    void count_sameVoterTwice_countedOnce() {
+        VoteTally voteTally = new VoteTally();
+        voteTally.vote(3, "apple");
+        voteTally.vote(3, "apple");
+
+        assertEquals(1, voteTally.count("apple"));
+    }
+
+    @Test
+    void count_ignoresCaseAndWhitespace() {
+        VoteTally voteTally = new VoteTally();
+        voteTally.vote(0, "Apple ");
+        voteTally.vote(1, "APPLE");
+
+        assertEquals(2, voteTally.count("apple"));
+    }
+
+    @Test
+    void clear_removesAllVotes() {
+        VoteTally voteTally = new VoteTally();
+        voteTally.vote(0, "apple");
+        assertFalse(voteTally.isEmpty());
+
+        voteTally.clear();
+
+        assertTrue(voteTally.isEmpty());
+        assertEquals(0, voteTally.count("apple"));
+    }
+
+    @Test
+    void clue_equalClues_sameHashCode() {
+        Clue clue1 = new Clue();
+        clue1.setPlayerId(1L);
+        clue1.setActualClue("Apple");
+        Clue clue2 = new Clue();
+        clue2.setPlayerId(2L);
+        clue2.setActualClue("apple");
+
+        assertEquals(clue1, clue2);
+        assertEquals(clue1.hashCode(), clue2.hashCode());
+    }
+}
@@ -0,0 +1,72 @@
+package ch.uzh.ifi.seal.soprafs20.gameLogic;
+
+import ch.uzh.ifi.seal.soprafs20.GameLogic.Leaderboard;
+import ch.uzh.ifi.seal.soprafs20.GameLogic.WindowedLeaderboard;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WindowedLeaderboardTest {
+
+    @Test
+    void add_pointsOfDaysInWindowSummedUp() {
+        WindowedLeaderboard<String> leaderboard = new WindowedLeaderboard<>(7);
+        leaderboard.add(100, 1L, 10, "a");
+        leaderboard.add(102, 1L, 20, "a");
+        leaderboard.add(102, 2L, 25, "b");
+
+        List<Leaderboard.Entry<String>> page = leaderboard.page(102, 0, 10);
+
+        assertEquals(2, page.size());
+        assertEquals(1L, page.get(0).getId());
+        assertEquals(30, page.get(0).getScore());
+        assertEquals(25, page.get(1).getScore());
+    }
+
+    @Test
+    void roll_expiredDaysSubtracted() {
+        WindowedLeaderboard<String> leaderboard = new WindowedLeaderboard<>(7);
+        leaderboard.add(100, 1L, 10, "a");
+        leaderboard.add(103, 1L, 5, "a");
+        leaderboard.add(100, 2L, 50, "b");
+
+        assertEquals(1, leaderboard.rank(106, 2L).getAsInt());
+        assertEquals(2, leaderboard.size(106));
+
+        // day 100 left the window
+        List<Leaderboard.Entry<String>> page = leaderboard.page(107, 0, 10);
+        assertEquals(1, page.size());
+        assertEquals(5, page.get(0).getScore());
+        assertTrue(leaderboard.rank(107, 2L).isEmpty());
+
+        assertEquals(0, leaderboard.size(110));
+    }
+
+    @Test
+    void add_dayOutsideWindow_ignored() {
+        WindowedLeaderboard<String> leaderboard = new WindowedLeaderboard<>(1);
+        leaderboard.add(100, 1L, 10, "a");
+
+        leaderboard.add(99, 2L, 20, "b");
+
+        assertEquals(1, leaderboard.size(100));
+        assertTrue(leaderboard.rank(100, 2L).isEmpty());
+    }
+
+    @Test
+    void add_zeroPoints_expiresWithItsDay() {
+        WindowedLeaderboard<String> leaderboard = new WindowedLeaderboard<>(1);
+        leaderboard.add(100, 1L, 0, "a");
+        leaderboard.add(100, 1L, 0, "a");
+
+        assertEquals(1, leaderboard.size(100));
+        assertEquals(0, leaderboard.size(101));
+    }
+
+    @Test
+    void constructor_noDays_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> new WindowedLeaderboard<String>(0));
+    }
+}
@@ -0,0 +1,75 @@
+package ch.uzh.ifi.seal.soprafs20.gameLogic;
+
+import ch.uzh.ifi.seal.soprafs20.GameLogic.NLP;
+import ch.uzh.ifi.seal.soprafs20.GameLogic.WordDictionary;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WordDictionaryTest {
+
+    private final WordDictionary wordDictionary = new WordDictionary(List.of("Tool", "Tower", "Rose", "Roses", "tool"));
+
+    @Test
+    void readWords_commentsEmptyAndLongWordsSkipped() {
+        ByteArrayResource resource = new ByteArrayResource(
+                "# words\nTool\n\nEmperor penguin\n Rose \n".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(List.of("Tool", "Rose"), WordDictionary.readWords(resource));
+    }
+
+    @Test
+    void constructor_defaultWords_distinct() {
+        WordDictionary defaultWords = new WordDictionary(new ClassPathResource("words.txt"));
+
+        assertTrue(defaultWords.size() > 200);
+        assertTrue(defaultWords.contains("alcatraz"));
+        assertEquals(defaultWords.size(), new HashSet<>(defaultWords.getWords()).size());
+    }
+
+    @Test
+    void constructor_duplicateWords_keptOnce() {
+        assertEquals(List.of("Tool", "Tower", "Rose", "Roses"), wordDictionary.getWords());
+        assertTrue(wordDictionary.contains("TOOL"));
+        assertFalse(wordDictionary.contains("Moon"));
+    }
+
+    @Test
+    void indexes() {
+        assertEquals(List.of("Tool", "Rose"), wordDictionary.getWordsOfLength(4));
+        assertEquals(List.of("Tool", "Tower"), wordDictionary.getWordsStartingWith('T'));
+        assertEquals(List.of("Rose", "Roses"), wordDictionary.getWordsWithStem(new NLP().stemWord("roses")));
+        assertTrue(wordDictionary.getWordsOfLength(20).isEmpty());
+    }
+
+    @Test
+    void sample_distinctWords() {
+        for (int i = 0; i < 100; i++) {
+            List<String> sample = wordDictionary.sample(4);
+
+            assertEquals(4, sample.size());
+            assertEquals(4, new HashSet<>(sample).size());
+        }
+    }
+
+    @Test
+    void sample_everyWordDrawn() {
+        HashSet<String> drawn = new HashSet<>();
+        for (int i = 0; i < 200; i++) {
+            drawn.addAll(wordDictionary.sample(1));
+        }
+
+        assertEquals(new HashSet<>(wordDictionary.getWords()), drawn);
+    }
+
+    @Test
+    void sample_tooManyWords_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> wordDictionary.sample(5));
+    }
+}
@@ -1,7 +1,6 @@
 package ch.uzh.ifi.seal.soprafs20.repository;
 
 import ch.uzh.ifi.seal.soprafs20.entity.Chat;
-import ch.uzh.ifi.seal.soprafs20.entity.Message;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
@@ -22,18 +21,8 @@ class ChatRepositoryIntegrationTest {
 
     @Test
     void findById_success() {
-        Message message = new Message();
-        message.setAuthorId(2L);
-        message.setAuthorUsername("Mark Twain");
-        message.setText("Hello world");
-        message.setCreationDate();
-
-        entityManager.persist(message);
-        entityManager.flush();
-
         Chat chat = new Chat();
         chat.setLobbyId(1L);
-        chat.setMessages(message);
 
         entityManager.persist(chat);
         entityManager.flush();
@@ -43,23 +32,12 @@ class ChatRepositoryIntegrationTest {
         assertTrue(foundChat.isPresent());
         Chat actualChat = foundChat.get();
         assertEquals(actualChat.getLobbyId(), chat.getLobbyId());
-        assertTrue(actualChat.getMessages().contains(message));
     }
 
     @Test
     void findById_unsuccessful() {
-        Message message = new Message();
-        message.setAuthorId(2L);
-        message.setAuthorUsername("Mark Twain");
-        message.setText("Hello world");
-        message.setCreationDate();
-
-        entityManager.persist(message);
-        entityManager.flush();
-
         Chat chat = new Chat();
         chat.setLobbyId(1L);
-        chat.setMessages(message);
 
         entityManager.persist(chat);
         entityManager.flush();
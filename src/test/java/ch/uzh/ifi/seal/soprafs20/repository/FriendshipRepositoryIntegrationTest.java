@@ -0,0 +1,77 @@
+package ch.uzh.ifi.seal.soprafs20.repository;
+
+import ch.uzh.ifi.seal.soprafs20.constant.UserStatus;
+import ch.uzh.ifi.seal.soprafs20.entity.Friendship;
+import ch.uzh.ifi.seal.soprafs20.entity.User;
+import ch.uzh.ifi.seal.soprafs20.rest.dto.RequestGetDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class FriendshipRepositoryIntegrationTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private FriendshipRepository friendshipRepository;
+
+    @Test
+    void findFriends_acceptedAndRequested_success() {
+        User user = persistUser("user", UserStatus.ONLINE);
+        User friend = persistUser("friend", UserStatus.ONLINE);
+        User requester = persistUser("requester", UserStatus.OFFLINE);
+        persistEdge(user, friend, true);
+        persistEdge(friend, user, true);
+        persistEdge(user, requester, false);
+        entityManager.flush();
+
+        List<RequestGetDTO> friends = friendshipRepository.findFriends(user.getId(), true);
+        List<RequestGetDTO> requests = friendshipRepository.findFriends(user.getId(), false);
+
+        assertEquals(1, friends.size());
+        assertEquals(friend.getId(), friends.get(0).getId());
+        assertEquals("friend", friends.get(0).getUsername());
+        assertEquals(UserStatus.ONLINE, friends.get(0).getStatus());
+        assertEquals(1, requests.size());
+        assertEquals("requester", requests.get(0).getUsername());
+        assertEquals(List.of(friend.getId()), friendshipRepository.findFriendIds(user.getId()));
+        assertTrue(friendshipRepository.findFriendIds(requester.getId()).isEmpty());
+    }
+
+    @Test
+    void findByUserIdAndFriendId_success() {
+        User user = persistUser("user", UserStatus.ONLINE);
+        User requester = persistUser("requester", UserStatus.ONLINE);
+        persistEdge(user, requester, false);
+        entityManager.flush();
+
+        assertTrue(friendshipRepository.findByUserIdAndFriendId(user.getId(), requester.getId()).isPresent());
+        assertTrue(friendshipRepository.findByUserIdAndFriendId(requester.getId(), user.getId()).isEmpty());
+    }
+
+    private User persistUser(String username, UserStatus status) {
+        User user = new User();
+        user.setUsername(username);
+        user.setStatus(status);
+        user.setPassword("test");
+        user.setToken(username + "Token");
+        user.setCreationDate();
+        entityManager.persist(user);
+        return user;
+    }
+
+    private void persistEdge(User user, User friend, boolean accepted) {
+        Friendship friendship = new Friendship();
+        friendship.setUserId(user.getId());
+        friendship.setFriendId(friend.getId());
+        friendship.setAccepted(accepted);
+        entityManager.persist(friendship);
+    }
+}
@@ -143,4 +143,32 @@ class LobbyRepositoryIntegrationTest {
         assertTrue(foundLobby.isEmpty());
     }
 
+    @Test
+    void findLobbyIdByPlayerId_success() {
+        Player player = new Player();
+        player.setId(1L);
+        player.setToken("hostToken");
+        player.setUsername("Bad Bunny");
+
+        entityManager.persist(player);
+        entityManager.flush();
+
+        Lobby lobby = new Lobby();
+        lobby.setLobbyName("Ballerz");
+        lobby.setHostToken("hostToken");
+        lobby.setHostId(1L);
+        lobby.addPlayerToLobby(player);
+        lobby.setRounds(13);
+        lobby.setPrivate(false);
+        lobby.setCurrentNumPlayers(1);
+        lobby.setCurrentNumBots(0);
+        lobby.setMaxPlayersAndBots(7);
+
+        entityManager.persist(lobby);
+        entityManager.flush();
+
+        assertEquals(Optional.of(lobby.getLobbyId()), lobbyRepository.findLobbyIdByPlayerId(1L));
+        assertTrue(lobbyRepository.findLobbyIdByPlayerId(2L).isEmpty());
+    }
+
 }
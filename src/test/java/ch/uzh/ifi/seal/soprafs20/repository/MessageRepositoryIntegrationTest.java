@@ -5,7 +5,10 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -54,5 +57,67 @@ class MessageRepositoryIntegrationTest {
         Optional<Message> foundMessage = messageRepository.findByMessageId(100L);
         assertTrue(foundMessage.isEmpty());
     }
-}
 
+    @Test
+    void findByLobbyId_cursor_pagesInOrder() {
+        for (int i = 0; i < 5; i++) {
+            Message message = new Message();
+            message.setLobbyId(i % 2 == 0 ? 1L : 2L);
+            message.setAuthorId(1L);
+            message.setText("message " + i);
+            message.setCreationDate();
+            entityManager.persist(message);
+        }
+        entityManager.flush();
+
+        List<Message> latest = messageRepository.findByLobbyIdAndMessageIdLessThanOrderByMessageIdDesc(1L, Long.MAX_VALUE, PageRequest.of(0, 2));
+        assertEquals(2, latest.size());
+        assertEquals("message 4", latest.get(0).getText());
+        assertEquals("message 2", latest.get(1).getText());
+
+        List<Message> older = messageRepository.findByLobbyIdAndMessageIdLessThanOrderByMessageIdDesc(1L, latest.get(1).getMessageId(), PageRequest.of(0, 2));
+        assertEquals(1, older.size());
+        assertEquals("message 0", older.get(0).getText());
+
+        List<Message> newer = messageRepository.findByLobbyIdAndMessageIdGreaterThanOrderByMessageIdAsc(1L, older.get(0).getMessageId(), PageRequest.of(0, 10));
+        assertEquals(2, newer.size());
+        assertEquals("message 2", newer.get(0).getText());
+        assertEquals("message 4", newer.get(1).getText());
+    }
+
+    @Test
+    void insertMessages_allocatedIds_readByJpa() {
+        long last = messageRepository.allocateMessageIds();
+        assertEquals(last + Message.ID_ALLOCATION_SIZE, messageRepository.allocateMessageIds());
+
+        List<Message> messages = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Message message = new Message();
+            message.setMessageId(last - i);
+            message.setLobbyId(1L);
+            message.setAuthorId(1L);
+            message.setAuthorUsername("Shakespeare");
+            message.setText("message " + i);
+            message.setCreationDate();
+            messages.add(message);
+        }
+        messageRepository.insertMessages(messages);
+
+        List<Message> stored = messageRepository.findByLobbyIdAndMessageIdGreaterThanOrderByMessageIdAsc(1L, 0L, PageRequest.of(0, 10));
+        assertEquals(3, stored.size());
+        assertEquals(last - 2, stored.get(0).getMessageId());
+        assertEquals("message 2", stored.get(0).getText());
+        assertEquals("Shakespeare", stored.get(0).getAuthorUsername());
+        assertEquals(messages.get(2).getCreationDate().withNano(0), stored.get(0).getCreationDate().withNano(0));
+
+        // an id generated by JPA is outside the two blocks allocated above
+        Message persisted = new Message();
+        persisted.setAuthorId(1L);
+        persisted.setText("To be or not to be");
+        persisted.setCreationDate();
+        entityManager.persist(persisted);
+        entityManager.flush();
+        assertTrue(persisted.getMessageId() <= last - Message.ID_ALLOCATION_SIZE
+                || persisted.getMessageId() > last + Message.ID_ALLOCATION_SIZE);
+    }
+}
@@ -8,6 +8,7 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -55,4 +56,31 @@ class PlayerRepositoryIntegrationTest {
         Optional<Player> foundPlayer = playerRepository.findById(100L);
         assertTrue(foundPlayer.isEmpty());
     }
+
+    @Test
+    void resetScores_onlyGivenPlayers() {
+        Player playa = new Player();
+        playa.setId(1L);
+        playa.setUsername("Bad Bunny");
+        playa.setToken("playaToken");
+        playa.setAvatarColor(AvatarColor.BLUE);
+        playa.setScore(40);
+        Player other = new Player();
+        other.setId(2L);
+        other.setUsername("J Balvin");
+        other.setToken("otherToken");
+        other.setAvatarColor(AvatarColor.RED);
+        other.setScore(25);
+
+        entityManager.persist(playa);
+        entityManager.persist(other);
+        entityManager.flush();
+
+        int updated = playerRepository.resetScores(Set.of(playa.getId()));
+        entityManager.clear();
+
+        assertEquals(1, updated);
+        assertEquals(0, playerRepository.findById(playa.getId()).get().getScore());
+        assertEquals(25, playerRepository.findById(other.getId()).get().getScore());
+    }
 }
@@ -2,11 +2,15 @@ package ch.uzh.ifi.seal.soprafs20.repository;
 
 import ch.uzh.ifi.seal.soprafs20.constant.UserStatus;
 import ch.uzh.ifi.seal.soprafs20.entity.User;
+import ch.uzh.ifi.seal.soprafs20.rest.dto.UserGetDTO;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -120,6 +124,24 @@ class UserRepositoryIntegrationTest {
         assertTrue(found.isEmpty());
     }
 
+    @Test
+    void findIdByToken_success() {
+        // given
+        User user = new User();
+        user.setUsername("firstname@lastname");
+        user.setStatus(UserStatus.OFFLINE);
+        user.setPassword("test");
+        user.setToken("1");
+        user.setCreationDate();
+
+        entityManager.persist(user);
+        entityManager.flush();
+
+        // then
+        assertEquals(Optional.of(user.getId()), userRepository.findIdByToken("1"));
+        assertTrue(userRepository.findIdByToken("unsuccessful").isEmpty());
+    }
+
     @Test
     void findByUsername_unsuccessful() {
         // given
@@ -179,4 +201,87 @@ class UserRepositoryIntegrationTest {
         // then
         assertFalse(found.isPresent());
     }
+
+    @Test
+    void addScores_success() {
+        // given
+        User user1 = new User();
+        user1.setUsername("first");
+        user1.setStatus(UserStatus.OFFLINE);
+        user1.setPassword("test");
+        user1.setToken("1");
+        user1.setCreationDate();
+        user1.setScore(10);
+        User user2 = new User();
+        user2.setUsername("second");
+        user2.setStatus(UserStatus.OFFLINE);
+        user2.setPassword("test");
+        user2.setToken("2");
+        user2.setCreationDate();
+
+        entityManager.persist(user1);
+        entityManager.persist(user2);
+        entityManager.flush();
+        entityManager.clear();
+
+        // when
+        userRepository.addScores(Map.of(user1.getId(), 25, user2.getId(), 40, 999L, 5));
+
+        // then
+        assertEquals(35, userRepository.findById(user1.getId()).orElseThrow().getScore());
+        assertEquals(40, userRepository.findById(user2.getId()).orElseThrow().getScore());
+    }
+
+    @Test
+    void updateStatuses_success() {
+        // given
+        User user = new User();
+        user.setUsername("first");
+        user.setStatus(UserStatus.ONLINE);
+        user.setPassword("test");
+        user.setToken("1");
+        user.setCreationDate();
+
+        entityManager.persist(user);
+        entityManager.flush();
+        entityManager.clear();
+
+        // when
+        userRepository.updateStatuses(Map.of(user.getId(), UserStatus.OFFLINE));
+
+        // then
+        assertEquals(UserStatus.OFFLINE, userRepository.findById(user.getId()).orElseThrow().getStatus());
+        assertTrue(userRepository.findIdsByStatus(UserStatus.ONLINE).isEmpty());
+    }
+
+    @Test
+    void findUsersAfter_pagesById() {
+        // given
+        Long[] ids = new Long[5];
+        for (int i = 0; i < 5; i++) {
+            User user = new User();
+            user.setUsername("user" + i);
+            user.setStatus(UserStatus.OFFLINE);
+            user.setPassword("test");
+            user.setToken("token" + i);
+            user.setCreationDate();
+            user.setScore(i * 10);
+            entityManager.persist(user);
+            ids[i] = user.getId();
+        }
+        entityManager.flush();
+
+        // when
+        List<UserGetDTO> firstPage = userRepository.findUsersAfter(Long.MIN_VALUE, PageRequest.of(0, 2));
+        List<UserGetDTO> lastPage = userRepository.findUsersAfter(firstPage.get(1).getId(), PageRequest.of(0, 10));
+
+        // then
+        assertEquals(2, firstPage.size());
+        assertEquals(ids[0], firstPage.get(0).getId());
+        assertEquals("user1", firstPage.get(1).getUsername());
+        assertEquals(10, firstPage.get(1).getScore());
+        assertNotNull(firstPage.get(0).getCreationDate());
+        assertEquals(3, lastPage.size());
+        assertEquals(ids[2], lastPage.get(0).getId());
+    }
 }
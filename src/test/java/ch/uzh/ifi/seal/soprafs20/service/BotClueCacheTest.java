@@ -0,0 +1,49 @@
+package ch.uzh.ifi.seal.soprafs20.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BotClueCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final BotClueCache botClueCache = new BotClueCache(2, 100, now::get);
+
+    @Test
+    void find_cachedWord_hit() {
+        botClueCache.put("Tool", List.of("instrument", "prick"));
+
+        assertEquals(List.of("instrument", "prick"), botClueCache.find("tool").orElseThrow());
+        assertTrue(botClueCache.find("rose").isEmpty());
+        assertEquals(1, botClueCache.getHits());
+        assertEquals(1, botClueCache.getMisses());
+    }
+
+    @Test
+    void put_full_leastRecentlyUsedEvicted() {
+        botClueCache.put("tool", List.of("instrument"));
+        botClueCache.put("rose", List.of("flower"));
+        botClueCache.find("tool");
+
+        botClueCache.put("moon", List.of("lunar"));
+
+        assertTrue(botClueCache.find("tool").isPresent());
+        assertTrue(botClueCache.find("rose").isEmpty());
+        assertTrue(botClueCache.find("moon").isPresent());
+        assertEquals(2, botClueCache.getSize());
+        assertEquals(1, botClueCache.getEvictions());
+    }
+
+    @Test
+    void find_expired_evicted() {
+        botClueCache.put("tool", List.of("instrument"));
+        now.set(101);
+
+        assertTrue(botClueCache.find("tool").isEmpty());
+        assertEquals(0, botClueCache.getSize());
+        assertEquals(1, botClueCache.getEvictions());
+    }
+}
@@ -0,0 +1,133 @@
+package ch.uzh.ifi.seal.soprafs20.service;
+
+import ch.uzh.ifi.seal.soprafs20.GameLogic.WordDictionary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BotCluePrefetcherTest {
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final BotClueCache botClueCache = new BotClueCache(16, 60);
+    private final WordDictionary wordDictionary = new WordDictionary(new ClassPathResource("words.txt"));
+    private BotCluePrefetcher botCluePrefetcher;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        botCluePrefetcher.shutdown();
+    }
+
+    @Test
+    void getClues_prefetched_providerAskedOnce() {
+        botCluePrefetcher = new BotCluePrefetcher(word -> {
+            requests.incrementAndGet();
+            return List.of("instrument", "prick");
+        }, botClueCache, wordDictionary, 1, 1000, false);
+
+        botCluePrefetcher.prefetch(1L, "tool");
+
+        assertEquals(List.of("instrument", "prick"), botCluePrefetcher.getClues(1L, "tool"));
+        assertEquals(1, requests.get());
+        assertEquals(0, botCluePrefetcher.getPrefetches());
+    }
+
+    @Test
+    void getClues_notPrefetched_requestedNow() {
+        botCluePrefetcher = new BotCluePrefetcher(word -> List.of(word + "s"), botClueCache, wordDictionary, 1, 1000, false);
+
+        assertEquals(List.of("tools"), botCluePrefetcher.getClues(1L, "tool"));
+    }
+
+    @Test
+    void getClues_wordChanged_prefetchNotUsed() {
+        botCluePrefetcher = new BotCluePrefetcher(word -> List.of(word + "s"), botClueCache, wordDictionary, 1, 1000, false);
+
+        botCluePrefetcher.prefetch(1L, "tool");
+
+        assertEquals(List.of("roses"), botCluePrefetcher.getClues(1L, "rose"));
+    }
+
+    @Test
+    void getClues_slowProvider_noClues() {
+        botCluePrefetcher = new BotCluePrefetcher(word -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return List.of("instrument");
+        }, botClueCache, wordDictionary, 1, 50, false);
+
+        botCluePrefetcher.prefetch(1L, "tool");
+
+        assertTrue(botCluePrefetcher.getClues(1L, "tool").isEmpty());
+        assertEquals(1, botCluePrefetcher.getTimeouts());
+    }
+
+    @Test
+    void getClues_providerFails_noClues() {
+        botCluePrefetcher = new BotCluePrefetcher(word -> {
+            throw new IllegalStateException("offline");
+        }, botClueCache, wordDictionary, 1, 1000, false);
+
+        assertTrue(botCluePrefetcher.getClues(1L, "tool").isEmpty());
+    }
+
+    @Test
+    void discard_prefetchRemoved() {
+        botCluePrefetcher = new BotCluePrefetcher(word -> List.of("instrument"), botClueCache, wordDictionary, 1, 1000, false);
+
+        botCluePrefetcher.prefetch(1L, "tool");
+        botCluePrefetcher.discard(1L);
+
+        assertEquals(0, botCluePrefetcher.getPrefetches());
+    }
+
+    @Test
+    void getClues_cachedWord_providerAskedOnce() {
+        botCluePrefetcher = new BotCluePrefetcher(word -> {
+            requests.incrementAndGet();
+            return List.of("instrument");
+        }, botClueCache, wordDictionary, 1, 1000, false);
+
+        botCluePrefetcher.getClues(1L, "tool");
+        botCluePrefetcher.prefetch(2L, "Tool");
+
+        assertEquals(List.of("instrument"), botCluePrefetcher.getClues(2L, "Tool"));
+        assertEquals(1, requests.get());
+        assertEquals(1, botClueCache.getHits());
+    }
+
+    @Test
+    void getClues_noClues_notCached() {
+        botCluePrefetcher = new BotCluePrefetcher(word -> List.of(), botClueCache, wordDictionary, 1, 1000, false);
+
+        botCluePrefetcher.getClues(1L, "tool");
+
+        assertEquals(0, botClueCache.getSize());
+    }
+
+    @Test
+    void warmUp_enabled_allWordsCached() throws InterruptedException {
+        BotClueCache cache = new BotClueCache(1000, 60);
+        botCluePrefetcher = new BotCluePrefetcher(new OfflineBotClueProvider(wordDictionary), cache, wordDictionary, 1, 1000, true);
+        int words = wordDictionary.size();
+
+        botCluePrefetcher.warmUp();
+        for (int i = 0; i < 100 && cache.getSize() < words; i++) {
+            Thread.sleep(20);
+        }
+
+        assertEquals(words, cache.getSize());
+    }
+}
@@ -0,0 +1,74 @@
+package ch.uzh.ifi.seal.soprafs20.service;
+
+import ch.uzh.ifi.seal.soprafs20.entity.Message;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatBufferTest {
+
+    @Test
+    void after_cursor_newerMessagesOldestFirst() {
+        ChatBuffer buffer = new ChatBuffer(5, 0);
+        for (long id = 1; id <= 4; id++) {
+            buffer.append(message(id * 10));
+        }
+
+        assertEquals(List.of(10L, 20L, 30L, 40L), ids(buffer.after(null).orElseThrow()));
+        assertEquals(List.of(30L, 40L), ids(buffer.after(25L).orElseThrow()));
+        assertEquals(List.of(30L, 40L), ids(buffer.after(20L).orElseThrow()));
+        assertTrue(buffer.after(40L).orElseThrow().isEmpty());
+        assertEquals(List.of(10L, 20L, 30L, 40L), ids(buffer.after(0L).orElseThrow()));
+    }
+
+    @Test
+    void append_full_oldestOverwritten() {
+        ChatBuffer buffer = new ChatBuffer(3, 0);
+        for (long id = 1; id <= 5; id++) {
+            buffer.append(message(id));
+        }
+
+        assertEquals(3, buffer.size());
+        assertEquals(List.of(3L, 4L, 5L), ids(buffer.after(null).orElseThrow()));
+        assertEquals(List.of(3L, 4L, 5L), ids(buffer.after(2L).orElseThrow()));
+        // message 2 was overwritten
+        assertTrue(buffer.after(1L).isEmpty());
+    }
+
+    @Test
+    void after_olderThanLoaded_empty() {
+        ChatBuffer buffer = new ChatBuffer(3, 7);
+        buffer.append(message(8));
+
+        assertTrue(buffer.after(6L).isEmpty());
+        assertEquals(List.of(8L), ids(buffer.after(7L).orElseThrow()));
+    }
+
+    @Test
+    void close_bufferMarkedClosed() {
+        ChatBuffer buffer = new ChatBuffer(2, 0);
+        assertFalse(buffer.isClosed());
+
+        buffer.close();
+
+        assertTrue(buffer.isClosed());
+    }
+
+    @Test
+    void newBuffer_noCapacity_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> new ChatBuffer(0, 0));
+    }
+
+    private Message message(long id) {
+        Message message = new Message();
+        message.setMessageId(id);
+        return message;
+    }
+
+    private List<Long> ids(List<Message> messages) {
+        return messages.stream().map(Message::getMessageId).collect(Collectors.toList());
+    }
+}
@@ -1,37 +1,71 @@
 package ch.uzh.ifi.seal.soprafs20.service;
 
 import ch.uzh.ifi.seal.soprafs20.entity.*;
+import ch.uzh.ifi.seal.soprafs20.exceptions.BadRequestException;
 import ch.uzh.ifi.seal.soprafs20.exceptions.UnauthorizedException;
 import ch.uzh.ifi.seal.soprafs20.repository.ChatRepository;
+import ch.uzh.ifi.seal.soprafs20.repository.MessageRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
 
-import static org.junit.jupiter.api.Assertions.assertThrows;
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 class ChatServiceTest {
 
     @Mock
     private ChatRepository chatRepository;
 
-    @InjectMocks
+    @Mock
+    private MessageRepository messageRepository;
+
+    @Mock
+    private MessageService messageService;
+
     private ChatService chatService;
 
     private Chat testChat;
 
+    private Lobby lobby;
+
+    private long nextMessageId = 1;
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.initMocks(this);
+        chatService = new ChatService(chatRepository, messageRepository, messageService, 3, 10);
 
         testChat = new Chat();
         testChat.setLobbyId(1L);
 
+        Player testPlayer = new Player();
+        testPlayer.setToken("testToken");
+        testPlayer.setUsername("testUsername");
+
+        lobby = new Lobby();
+        lobby.setLobbyId(1L);
+        lobby.setHostToken("testToken");
+        lobby.addPlayerToLobby(testPlayer);
+
         Mockito.when(chatRepository.save(Mockito.any())).thenReturn(testChat);
         Mockito.when(chatRepository.findById(Mockito.any())).thenReturn(java.util.Optional.ofNullable(testChat));
+        // the message service allocates increasing ids
+        Mockito.when(messageService.createMessage(Mockito.any())).thenAnswer(invocation -> {
+            Message message = invocation.getArgument(0);
+            message.setMessageId(nextMessageId++);
+            return message;
+        });
     }
 
     @Test
@@ -43,21 +77,16 @@ class ChatServiceTest {
 
     @Test
     void addMessage_validInput_success() {
+        chatService.createChat(1L);
         Message message = new Message();
         message.setText("Hello world");
 
-        Player testPlayer = new Player();
-        testPlayer.setToken("testToken");
-        testPlayer.setUsername("testUsername");
-
-        Lobby lobby = new Lobby();
-        lobby.setHostToken("testToken");
-        lobby.addPlayerToLobby(testPlayer);
-
-        Mockito.when(chatRepository.findById(Mockito.any())).thenReturn(java.util.Optional.ofNullable(testChat));
-
         chatService.addChatMessage(lobby, lobby.getHostToken(), message);
-        assertTrue(testChat.getMessages().contains(message));
+
+        assertEquals("testUsername", message.getAuthorUsername());
+        assertEquals(1L, message.getLobbyId());
+        assertEquals(List.of(message), chatService.getMessages(1L, null));
+        Mockito.verify(messageService).createMessage(message);
     }
 
     @Test
@@ -65,16 +94,122 @@ class ChatServiceTest {
         Message message = new Message();
         message.setText("Hello world");
 
-        Player testPlayer = new Player();
-        testPlayer.setToken("testToken");
-        testPlayer.setUsername("testUsername");
-
-        Lobby lobby = new Lobby();
         lobby.setHostToken("wrongToken");
-        lobby.addPlayerToLobby(testPlayer);
-
-        Mockito.when(chatRepository.findById(Mockito.any())).thenReturn(java.util.Optional.ofNullable(testChat));
 
         assertThrows(UnauthorizedException.class, () -> chatService.addChatMessage(lobby, lobby.getHostToken(), message));
+        Mockito.verify(messageService, Mockito.never()).createMessage(Mockito.any());
+    }
+
+    @Test
+    void getMessages_after_onlyNewMessagesFromBuffer() {
+        chatService.createChat(1L);
+        List<Message> sent = send(3);
+
+        assertEquals(sent.subList(1, 3), chatService.getMessages(1L, sent.get(0).getMessageId()));
+        assertTrue(chatService.getMessages(1L, sent.get(2).getMessageId()).isEmpty());
+        Mockito.verifyNoInteractions(messageRepository);
+    }
+
+    @Test
+    void getMessages_cursorOlderThanBuffer_readFromDatabase() {
+        chatService.createChat(1L);
+        List<Message> sent = send(5);
+        Mockito.when(messageRepository.findByLobbyIdAndMessageIdGreaterThanOrderByMessageIdAsc(1L, 1L, PageRequest.of(0, 3)))
+                .thenReturn(sent.subList(1, 4));
+
+        // the buffer holds the last three messages, the second one was overwritten
+        assertEquals(sent.subList(1, 4), chatService.getMessages(1L, 1L));
+        assertEquals(sent.subList(2, 5), chatService.getMessages(1L, null));
+    }
+
+    @Test
+    void getMessages_notBuffered_latestLoadedFromDatabase() {
+        List<Message> stored = new ArrayList<>();
+        for (long id = 6; id >= 4; id--) {
+            Message message = new Message();
+            message.setMessageId(id);
+            stored.add(message);
+        }
+        Mockito.when(messageRepository.findByLobbyIdAndMessageIdLessThanOrderByMessageIdDesc(1L, Long.MAX_VALUE, PageRequest.of(0, 3)))
+                .thenReturn(stored);
+
+        List<Message> messages = chatService.getMessages(1L, 4L);
+
+        assertEquals(2, messages.size());
+        assertEquals(5L, messages.get(0).getMessageId());
+        assertEquals(6L, messages.get(1).getMessageId());
+        // queued messages are written before the buffer is loaded
+        Mockito.verify(messageService).flush(1L);
+        // the messages before the buffer may be missing from it
+        chatService.getMessages(1L, 2L);
+        Mockito.verify(messageRepository).findByLobbyIdAndMessageIdGreaterThanOrderByMessageIdAsc(1L, 2L, PageRequest.of(0, 3));
+    }
+
+    @Test
+    void addMessage_bufferDropped_appendedToReloadedBuffer() {
+        chatService.createChat(1L);
+        Message first = send(1).get(0);
+        // more chats than buffers, the buffer of the first chat is dropped
+        for (long lobbyId = 2; lobbyId <= 11; lobbyId++) {
+            chatService.createChat(lobbyId);
+        }
+        Mockito.when(messageRepository.findByLobbyIdAndMessageIdLessThanOrderByMessageIdDesc(1L, Long.MAX_VALUE, PageRequest.of(0, 3)))
+                .thenReturn(List.of(first));
+
+        Message second = send(1).get(0);
+
+        assertEquals(List.of(first, second), chatService.getMessages(1L, null));
+        Mockito.verify(messageService).flush(1L);
+    }
+
+    @Test
+    void getMessages_bufferLoading_otherChatsNotBlocked() throws Exception {
+        chatService.createChat(2L);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(messageService).flush(1L);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<List<Message>> cold = executor.submit(() -> chatService.getMessages(1L, null));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+            // answered while the buffer of the first chat is loaded
+            assertTrue(chatService.getMessages(2L, null).isEmpty());
+
+            release.countDown();
+            assertTrue(cold.get(5, TimeUnit.SECONDS).isEmpty());
+        }
+        finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void getMessagesBefore_oldestFirst() {
+        Message older = new Message();
+        older.setMessageId(1L);
+        Message newer = new Message();
+        newer.setMessageId(2L);
+        Mockito.when(messageRepository.findByLobbyIdAndMessageIdLessThanOrderByMessageIdDesc(1L, 3L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(newer, older));
+
+        assertEquals(List.of(older, newer), chatService.getMessagesBefore(1L, 3L, 2));
+        assertThrows(BadRequestException.class, () -> chatService.getMessagesBefore(1L, 3L, 0));
+    }
+
+    private List<Message> send(int count) {
+        List<Message> sent = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Message message = new Message();
+            message.setText("message " + i);
+            chatService.addChatMessage(lobby, "testToken", message);
+            sent.add(message);
+        }
+        return sent;
     }
 }
@@ -0,0 +1,245 @@
+package ch.uzh.ifi.seal.soprafs20.service;
+
+import ch.uzh.ifi.seal.soprafs20.constant.UserStatus;
+import ch.uzh.ifi.seal.soprafs20.entity.Friendship;
+import ch.uzh.ifi.seal.soprafs20.entity.User;
+import ch.uzh.ifi.seal.soprafs20.exceptions.NoContentException;
+import ch.uzh.ifi.seal.soprafs20.exceptions.NotFoundException;
+import ch.uzh.ifi.seal.soprafs20.exceptions.UnauthorizedException;
+import ch.uzh.ifi.seal.soprafs20.repository.FriendshipRepository;
+import ch.uzh.ifi.seal.soprafs20.repository.UserRepository;
+import ch.uzh.ifi.seal.soprafs20.rest.dto.FriendPutDTO;
+import ch.uzh.ifi.seal.soprafs20.rest.dto.RequestGetDTO;
+import ch.uzh.ifi.seal.soprafs20.rest.dto.RequestPutDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FriendServiceTest {
+
+    @Mock
+    private FriendshipRepository friendshipRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private FriendService friendService;
+
+    private User testUser;
+    private User testUser2;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.initMocks(this);
+
+        testUser = new User();
+        testUser.setId(1L);
+        testUser.setUsername("testname");
+        testUser.setToken("testToken");
+
+        testUser2 = new User();
+        testUser2.setId(2L);
+        testUser2.setToken("testToken2");
+
+        Mockito.when(userRepository.findById(2L)).thenReturn(Optional.of(testUser2));
+        Mockito.when(friendshipRepository.findByUserIdAndFriendId(Mockito.any(), Mockito.any())).thenReturn(Optional.empty());
+    }
+
+    @Test
+    public void addFriendRequest_validInput_success() {
+        RequestPutDTO requestPutDTO = new RequestPutDTO();
+        requestPutDTO.setSenderID(2L);
+        requestPutDTO.setToken("testToken2");
+
+        friendService.addFriendRequest(testUser, requestPutDTO);
+
+        ArgumentCaptor<Friendship> captor = ArgumentCaptor.forClass(Friendship.class);
+        Mockito.verify(friendshipRepository).save(captor.capture());
+        assertEquals(testUser.getId(), captor.getValue().getUserId());
+        assertEquals(testUser2.getId(), captor.getValue().getFriendId());
+        assertFalse(captor.getValue().isAccepted());
+    }
+
+    @Test
+    public void addFriendRequest_alreadyAdded_throwsException() {
+        RequestPutDTO requestPutDTO = new RequestPutDTO();
+        requestPutDTO.setSenderID(2L);
+        requestPutDTO.setToken("testToken2");
+
+        Mockito.when(friendshipRepository.findByUserIdAndFriendId(1L, 2L)).thenReturn(Optional.of(edge(1L, 2L, false)));
+
+        assertThrows(NoContentException.class, () -> friendService.addFriendRequest(testUser, requestPutDTO));
+        Mockito.verify(friendshipRepository, Mockito.never()).save(Mockito.any());
+    }
+
+    @Test
+    public void addFriendRequest_invalidToken_throwsException() {
+        RequestPutDTO requestPutDTO = new RequestPutDTO();
+        requestPutDTO.setSenderID(2L);
+        requestPutDTO.setToken("wrongToken");
+
+        assertThrows(UnauthorizedException.class, () -> friendService.addFriendRequest(testUser, requestPutDTO));
+        Mockito.verify(friendshipRepository, Mockito.never()).save(Mockito.any());
+    }
+
+    @Test
+    public void addFriendRequest_userNotFound_throwsException() {
+        RequestPutDTO requestPutDTO = new RequestPutDTO();
+        requestPutDTO.setSenderID(5L);
+        requestPutDTO.setToken("testToken2");
+
+        assertThrows(NotFoundException.class, () -> friendService.addFriendRequest(testUser, requestPutDTO));
+    }
+
+    @Test
+    public void acceptFriendRequest_validInput_success() {
+        Friendship request = edge(1L, 2L, false);
+        Mockito.when(friendshipRepository.findByUserIdAndFriendId(1L, 2L)).thenReturn(Optional.of(request));
+        Mockito.when(friendshipRepository.findFriendIds(1L)).thenReturn(List.of());
+
+        // the friends of the receiver are cached before the request is accepted
+        assertFalse(friendService.areFriends(1L, 2L));
+
+        friendService.acceptOrDeclineFriendRequest(testUser, friendPutDTO(true, testUser.getToken()));
+
+        ArgumentCaptor<Friendship> captor = ArgumentCaptor.forClass(Friendship.class);
+        Mockito.verify(friendshipRepository, Mockito.times(2)).save(captor.capture());
+        assertTrue(request.isAccepted());
+        Friendship reverse = captor.getAllValues().get(1);
+        assertEquals(2L, reverse.getUserId());
+        assertEquals(1L, reverse.getFriendId());
+        assertTrue(reverse.isAccepted());
+        assertTrue(friendService.areFriends(1L, 2L));
+        Mockito.verify(friendshipRepository, Mockito.times(1)).findFriendIds(1L);
+    }
+
+    @Test
+    public void acceptFriendRequest_inTransaction_cachedAfterCommit() {
+        Mockito.when(friendshipRepository.findByUserIdAndFriendId(1L, 2L)).thenReturn(Optional.of(edge(1L, 2L, false)));
+        Mockito.when(friendshipRepository.findFriendIds(1L)).thenReturn(List.of());
+        assertFalse(friendService.areFriends(1L, 2L));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            friendService.acceptOrDeclineFriendRequest(testUser, friendPutDTO(true, testUser.getToken()));
+            assertFalse(friendService.areFriends(1L, 2L));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertTrue(friendService.areFriends(1L, 2L));
+        }
+        finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void acceptFriendRequest_duringLoad_notLost() throws Exception {
+        Mockito.when(friendshipRepository.findByUserIdAndFriendId(1L, 2L)).thenReturn(Optional.of(edge(1L, 2L, false)));
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // the friends of the receiver are read before the request is accepted, but cached after it
+        Mockito.when(friendshipRepository.findFriendIds(1L)).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+
+        Thread load = new Thread(() -> friendService.getFriendIds(1L));
+        load.start();
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        Thread accept = new Thread(() -> friendService.acceptOrDeclineFriendRequest(testUser, friendPutDTO(true, testUser.getToken())));
+        accept.start();
+        accept.join(200);
+        release.countDown();
+        load.join(5000);
+        accept.join(5000);
+
+        assertTrue(friendService.areFriends(1L, 2L));
+        Mockito.verify(friendshipRepository, Mockito.times(1)).findFriendIds(1L);
+    }
+
+    @Test
+    public void declineFriendRequest_validInput_success() {
+        Friendship request = edge(1L, 2L, false);
+        Mockito.when(friendshipRepository.findByUserIdAndFriendId(1L, 2L)).thenReturn(Optional.of(request));
+
+        friendService.acceptOrDeclineFriendRequest(testUser, friendPutDTO(false, testUser.getToken()));
+
+        Mockito.verify(friendshipRepository).delete(request);
+        Mockito.verify(friendshipRepository, Mockito.never()).save(Mockito.any());
+    }
+
+    @Test
+    public void declineFriendRequest_validInput_unauthorizedUser() {
+        Friendship request = edge(1L, 2L, false);
+        Mockito.when(friendshipRepository.findByUserIdAndFriendId(1L, 2L)).thenReturn(Optional.of(request));
+
+        assertThrows(UnauthorizedException.class, () -> friendService.acceptOrDeclineFriendRequest(testUser, friendPutDTO(false, "WrongToken")));
+        Mockito.verify(friendshipRepository, Mockito.never()).delete(Mockito.any());
+        assertFalse(request.isAccepted());
+    }
+
+    @Test
+    public void handleFriendRequest_invalidInput_throwsException() {
+        assertThrows(NotFoundException.class, () -> friendService.acceptOrDeclineFriendRequest(testUser, friendPutDTO(true, testUser.getToken())));
+    }
+
+    @Test
+    public void getFriendIds_readOnce() {
+        Mockito.when(friendshipRepository.findFriendIds(1L)).thenReturn(List.of(2L, 3L));
+
+        assertEquals(Set.of(2L, 3L), friendService.getFriendIds(1L));
+        assertTrue(friendService.areFriends(1L, 3L));
+        assertFalse(friendService.areFriends(1L, 4L));
+
+        Mockito.verify(friendshipRepository, Mockito.times(1)).findFriendIds(1L);
+    }
+
+    @Test
+    public void getOnlineFriends_success() {
+        RequestGetDTO online = new RequestGetDTO(2L, "online", UserStatus.ONLINE);
+        Mockito.when(friendshipRepository.findFriendIds(1L)).thenReturn(List.of(2L, 3L));
+        Mockito.when(userRepository.findUsersByStatus(Set.of(2L, 3L), UserStatus.ONLINE)).thenReturn(List.of(online));
+
+        assertEquals(List.of(online), friendService.getOnlineFriends(1L));
+    }
+
+    @Test
+    public void getOnlineFriends_noFriends_noQuery() {
+        Mockito.when(friendshipRepository.findFriendIds(1L)).thenReturn(List.of());
+
+        assertTrue(friendService.getOnlineFriends(1L).isEmpty());
+        Mockito.verify(userRepository, Mockito.never()).findUsersByStatus(Mockito.any(), Mockito.any());
+    }
+
+    private Friendship edge(Long userId, Long friendId, boolean accepted) {
+        Friendship friendship = new Friendship();
+        friendship.setUserId(userId);
+        friendship.setFriendId(friendId);
+        friendship.setAccepted(accepted);
+        return friendship;
+    }
+
+    private FriendPutDTO friendPutDTO(boolean accepted, String token) {
+        FriendPutDTO friendPutDTO = new FriendPutDTO();
+        friendPutDTO.setAccepted(accepted);
+        friendPutDTO.setAccepterToken(token);
+        friendPutDTO.setRequesterID(testUser2.getId());
+        return friendPutDTO;
+    }
+}
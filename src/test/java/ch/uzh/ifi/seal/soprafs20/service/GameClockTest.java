@@ -0,0 +1,100 @@
+package ch.uzh.ifi.seal.soprafs20.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameClockTest {
+
+    private GameClock gameClock;
+
+    @BeforeEach
+    void setUp() {
+        gameClock = new GameClock(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        gameClock.shutdown();
+    }
+
+    @Test
+    void schedule_runsOnce_andUnregisters() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+
+        gameClock.schedule(1L, latch::countDown, 10, TimeUnit.MILLISECONDS);
+
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertFalse(gameClock.isScheduled(1L));
+        assertEquals(0, gameClock.getScheduledGames());
+    }
+
+    @Test
+    void schedule_sameGame_replacesPreviousTask() throws InterruptedException {
+        AtomicInteger first = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(1);
+
+        gameClock.schedule(1L, first::incrementAndGet, 200, TimeUnit.MILLISECONDS);
+        gameClock.schedule(1L, latch::countDown, 10, TimeUnit.MILLISECONDS);
+
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Thread.sleep(300);
+        assertEquals(0, first.get());
+    }
+
+    @Test
+    void cancel_taskNotRun() throws InterruptedException {
+        AtomicInteger runs = new AtomicInteger();
+
+        gameClock.schedule(1L, runs::incrementAndGet, 50, TimeUnit.MILLISECONDS);
+        gameClock.cancel(1L);
+
+        assertFalse(gameClock.isScheduled(1L));
+        Thread.sleep(150);
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    void schedule_taskThrows_clockKeepsRunning() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+
+        gameClock.schedule(1L, () -> {
+            throw new IllegalStateException("timer task failed");
+        }, 0, TimeUnit.MILLISECONDS);
+        gameClock.schedule(2L, latch::countDown, 10, TimeUnit.MILLISECONDS);
+
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void manyGames_shareTheClock() {
+        for (long lobbyId = 1; lobbyId <= 500; lobbyId++) {
+            gameClock.schedule(lobbyId, () -> {}, 1, TimeUnit.SECONDS);
+        }
+
+        assertEquals(500, gameClock.getScheduledGames());
+
+        gameClock.cancel(1L);
+
+        assertEquals(499, gameClock.getScheduledGames());
+    }
+
+    @Test
+    void bindTo_exposesScheduledGames() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        gameClock.bindTo(registry);
+
+        gameClock.schedule(1L, () -> {}, 1, TimeUnit.SECONDS);
+        gameClock.schedule(2L, () -> {}, 1, TimeUnit.SECONDS);
+
+        assertEquals(2.0, registry.get("game.clock.scheduled").gauge().value());
+    }
+}
@@ -0,0 +1,175 @@
+package ch.uzh.ifi.seal.soprafs20.service;
+
+import ch.uzh.ifi.seal.soprafs20.exceptions.NotFoundException;
+import ch.uzh.ifi.seal.soprafs20.exceptions.UnauthorizedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameMailboxTest {
+
+    private GameMailbox gameMailbox;
+
+    @BeforeEach
+    void setUp() {
+        gameMailbox = new GameMailbox(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        gameMailbox.shutdown();
+    }
+
+    @Test
+    void post_commandsProcessedInOrder() throws InterruptedException {
+        List<Integer> processed = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(1);
+
+        for (int i = 0; i < 1000; i++) {
+            int command = i;
+            gameMailbox.post(1L, () -> processed.add(command));
+        }
+        gameMailbox.post(1L, latch::countDown);
+
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, processed.get(i));
+        }
+    }
+
+    @Test
+    void call_returnsResult() {
+        assertEquals("result", gameMailbox.call(1L, () -> "result"));
+    }
+
+    @Test
+    void call_commandThrows_exceptionRethrown() {
+        assertThrows(UnauthorizedException.class, () -> gameMailbox.run(1L, () -> {
+            throw new UnauthorizedException("not allowed");
+        }));
+        // the mailbox keeps processing commands afterwards
+        assertEquals(1, gameMailbox.call(1L, () -> 1));
+    }
+
+    @Test
+    void call_fromCommandOfSameGame_executedRightAway() {
+        assertEquals(2, gameMailbox.call(1L, () -> gameMailbox.call(1L, () -> 2)));
+    }
+
+    @Test
+    void concurrentCommands_sameGame_neverOverlap() throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean();
+        AtomicInteger overlaps = new AtomicInteger();
+        int[] counter = new int[1];
+        ExecutorService requests = Executors.newFixedThreadPool(8);
+
+        for (int i = 0; i < 8; i++) {
+            requests.execute(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    gameMailbox.run(1L, () -> {
+                        if (!running.compareAndSet(false, true)) {
+                            overlaps.incrementAndGet();
+                        }
+                        counter[0]++;
+                        running.set(false);
+                    });
+                }
+            });
+        }
+        requests.shutdown();
+
+        assertTrue(requests.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(0, overlaps.get());
+        assertEquals(8000, gameMailbox.call(1L, () -> counter[0]));
+    }
+
+    @Test
+    void differentGames_processedInParallel() throws InterruptedException {
+        CountDownLatch bothRunning = new CountDownLatch(2);
+        CountDownLatch done = new CountDownLatch(2);
+
+        for (long lobbyId = 1; lobbyId <= 2; lobbyId++) {
+            gameMailbox.post(lobbyId, () -> {
+                bothRunning.countDown();
+                try {
+                    // only returns if the other game is processed at the same time
+                    if (bothRunning.await(1, TimeUnit.SECONDS)) {
+                        done.countDown();
+                    }
+                }
+                catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void bindTo_exposesMailboxes() throws InterruptedException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        gameMailbox.bindTo(registry);
+        CountDownLatch running = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+
+        for (long lobbyId = 1; lobbyId <= 2; lobbyId++) {
+            gameMailbox.post(lobbyId, () -> {
+                running.countDown();
+                try {
+                    release.await(1, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        assertTrue(running.await(1, TimeUnit.SECONDS));
+
+        assertEquals(2.0, registry.get("game.mailbox.count").gauge().value());
+
+        release.countDown();
+        awaitNoMailboxes();
+    }
+
+    @Test
+    void call_unknownGame_noMailboxLeft() throws InterruptedException {
+        for (long i = 1; i <= 100; i++) {
+            long lobbyId = i;
+            assertThrows(NotFoundException.class, () -> gameMailbox.run(lobbyId, () -> {
+                throw new NotFoundException("no game");
+            }));
+        }
+
+        awaitNoMailboxes();
+    }
+
+    @Test
+    void post_afterMailboxRetired_processedByNewMailbox() throws InterruptedException {
+        gameMailbox.run(1L, () -> {});
+        awaitNoMailboxes();
+
+        assertEquals(2, gameMailbox.call(1L, () -> 2));
+    }
+
+    private void awaitNoMailboxes() throws InterruptedException {
+        // a mailbox retires right after its last command completed
+        for (int i = 0; i < 100 && gameMailbox.getMailboxes() > 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, gameMailbox.getMailboxes());
+    }
+}
@@ -1,5 +1,6 @@
 package ch.uzh.ifi.seal.soprafs20.service;
 
+import ch.uzh.ifi.seal.soprafs20.GameLogic.WordDictionary;
 import ch.uzh.ifi.seal.soprafs20.GameLogic.WordReader;
 import ch.uzh.ifi.seal.soprafs20.GameLogic.GameState;
 import ch.uzh.ifi.seal.soprafs20.entity.*;
@@ -16,9 +17,14 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -35,11 +41,39 @@ class GameServiceTest {
     private LobbyRepository lobbyRepository;
 
     @Mock
-    private ClueRepository clueRepository;
+    private GameStateStore gameStateStore;
+
+    @Mock
+    private GameStream gameStream;
+
+    @Mock
+    private GameView gameView;
 
     @Mock
     private LobbyScoreRepository lobbyScoreRepository;
 
+    @Mock
+    private LeaderboardService leaderboardService;
+
+    @Mock
+    private PlayerRepository playerRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private GameClock gameClock = new GameClock(1);
+
+    @Spy
+    private GameMailbox gameMailbox = new GameMailbox(1);
+
+    @Spy
+    private WordDictionary wordDictionary = new WordDictionary(new ClassPathResource("words.txt"));
+
+    @Spy
+    private BotCluePrefetcher botCluePrefetcher = new BotCluePrefetcher(new OfflineBotClueProvider(wordDictionary),
+            new BotClueCache(16, 60), wordDictionary, 1, 1000, false);
+
     @InjectMocks
     private GameService gameService;
 
@@ -160,6 +194,69 @@ class GameServiceTest {
         assertTrue(testGame.getInvalidClues().contains(clue));
     }
 
+    @Test
+    void addClue_pluralOfEnteredClue_bothCancelled() {
+        Clue clue1 = new Clue();
+        clue1.setPlayerId(1L);
+        clue1.setActualClue("Star");
+        Clue clue2 = new Clue();
+        clue2.setPlayerId(2L);
+        clue2.setActualClue("stars");
+
+        gameService.addClue(clue1, testGame);
+        gameService.addClue(clue2, testGame);
+
+        assertTrue(testGame.getEnteredClues().isEmpty());
+        assertEquals(2, testGame.getInvalidClues().size());
+        assertTrue(testGame.getInvalidClues().contains(clue1));
+        assertTrue(testGame.getInvalidClues().contains(clue2));
+        assertEquals(0L, clue1.getPlayerId());
+    }
+
+    @Test
+    void addClue_sameClueThreeTimes_listedOnce() {
+        for (long i = 1; i <= 3; i++) {
+            Clue clue = new Clue();
+            clue.setPlayerId(i);
+            clue.setActualClue("star");
+            gameService.addClue(clue, testGame);
+        }
+
+        assertTrue(testGame.getEnteredClues().isEmpty());
+        assertEquals(1, testGame.getInvalidClues().size());
+    }
+
+    @Test
+    void addClue_notWrittenBehind_published() {
+        Clue clue = new Clue();
+        clue.setPlayerId(1L);
+        clue.setActualClue("star");
+        long version = testGame.getVersion();
+
+        gameService.addClue(clue, testGame);
+
+        assertTrue(testGame.getEnteredClues().contains(clue));
+        assertEquals(version + 1, testGame.getVersion());
+        Mockito.verify(gameStream).publish(testGame);
+        Mockito.verifyNoInteractions(gameStateStore, gameRepository);
+    }
+
+    @Test
+    void addClue_gameRestored_indexRebuilt() {
+        Clue clue1 = new Clue();
+        clue1.setPlayerId(1L);
+        clue1.setActualClue("planet");
+        testGame.addClue(clue1);
+        Clue clue2 = new Clue();
+        clue2.setPlayerId(2L);
+        clue2.setActualClue("planets");
+
+        gameService.addClue(clue2, testGame);
+
+        assertTrue(testGame.getEnteredClues().isEmpty());
+        assertEquals(2, testGame.getInvalidClues().size());
+    }
+
     @Test
     void sendClue_normalGame_fail_unauthorizedUser(){
         testGame.setGameState(GameState.ENTER_CLUES_STATE);
@@ -296,6 +393,21 @@ class GameServiceTest {
         assertEquals(GameState.ENTER_CLUES_STATE, testGame.getGameState());
     }
 
+    @Test
+    void pickWord_validInput_newVersionPublished() {
+        List<String> someWordAsList = new ArrayList<>();
+        someWordAsList.add("Erdbeermarmeladebrot");
+        testGame.setWords(someWordAsList);
+        long version = testGame.getVersion();
+
+        gameService.pickWord(testHost.getToken(), testGame);
+
+        assertTrue(testGame.getVersion() > version);
+        Mockito.verify(botCluePrefetcher).prefetch(testGame.getLobbyId(), testGame.getCurrentWord());
+        Mockito.verify(gameStateStore).markDirty(testGame);
+        Mockito.verify(gameStream).publish(testGame);
+    }
+
     @Test
     public void pickWord_unauthorizedUser() {
         List<String> someWordAsList = new ArrayList<>();
@@ -442,8 +554,8 @@ class GameServiceTest {
         clue2.setActualClue("Banana");
         testGame.addClue(clue1);
         testGame.addClue(clue2);
-        testGame.addInvalidClue(clue2);
-        testGame.addInvalidClue(clue2);
+        testGame.getVoteTally().vote(0, "Banana");
+        testGame.getVoteTally().vote(1, "Banana");
 
         gameService.checkVotes(testGame, 2);
 
@@ -482,8 +594,8 @@ class GameServiceTest {
 
         testGame.addClue(clue1);
         testGame.addClue(clue2);
-        testGame.addInvalidClue(clue1);
-        testGame.addInvalidClue(clue2);
+        testGame.getVoteTally().vote(0, "banana");
+        testGame.getVoteTally().vote(1, "banana");
 
         gameService.checkVotes(testGame, 2);
 
@@ -501,9 +613,9 @@ class GameServiceTest {
         clue2.setActualClue("Banana");
         testGame.addClue(clue1);
         testGame.addClue(clue2);
-        testGame.addInvalidClue(clue2);
-        testGame.addInvalidClue(clue2);
-        testGame.addInvalidClue(clue1);
+        testGame.getVoteTally().vote(0, "Banana");
+        testGame.getVoteTally().vote(1, "Banana");
+        testGame.getVoteTally().vote(0, "Apple");
 
         gameService.checkVotes(testGame, 2);
 
@@ -522,10 +634,10 @@ class GameServiceTest {
         clue2.setActualClue("Banana");
         testGame.addClue(clue1);
         testGame.addClue(clue2);
-        testGame.addInvalidClue(clue2);
-        testGame.addInvalidClue(clue2);
-        testGame.addInvalidClue(clue1);
-        testGame.addInvalidClue(clue1);
+        testGame.getVoteTally().vote(0, "Banana");
+        testGame.getVoteTally().vote(1, "Banana");
+        testGame.getVoteTally().vote(0, "Apple");
+        testGame.getVoteTally().vote(1, "Apple");
 
         gameService.checkVotes(testGame, 2);
 
@@ -534,6 +646,41 @@ class GameServiceTest {
         assertTrue(testGame.getInvalidClues().contains(clue1));
     }
 
+    @Test
+    void checkVote_samePlayerVotesTwice_countedOnce() {
+        Clue clue1 = new Clue();
+        clue1.setPlayerId(1L);
+        clue1.setActualClue("Apple");
+        testGame.addClue(clue1);
+        testGame.getVoteTally().vote(0, "Apple");
+        testGame.getVoteTally().vote(0, "apple");
+
+        gameService.checkVotes(testGame, 2);
+
+        assertTrue(testGame.getEnteredClues().contains(clue1));
+        assertTrue(testGame.getInvalidClues().isEmpty());
+    }
+
+    @Test
+    void checkVote_rejectedClueKept_votesCleared() {
+        Clue clue1 = new Clue();
+        clue1.setPlayerId(1L);
+        clue1.setActualClue("Apple");
+        Clue rejected = new Clue();
+        rejected.setPlayerId(-1L);
+        rejected.setActualClue("apple");
+        testGame.addClue(clue1);
+        testGame.addInvalidClue(rejected);
+        testGame.getVoteTally().vote(0, "Apple");
+        testGame.getVoteTally().vote(1, "Apple");
+
+        gameService.checkVotes(testGame, 2);
+
+        assertTrue(testGame.getEnteredClues().isEmpty());
+        assertEquals(1, testGame.getInvalidClues().size());
+        assertTrue(testGame.getVoteTally().isEmpty());
+    }
+
     @Test
     public void test_MathCeil() {
         int amountOfGuessers = 3;
@@ -575,7 +722,6 @@ class GameServiceTest {
         WordReader reader = new WordReader();
         testGame.setWords(reader.getRandomWords(13));
         testGame.setTimer(new InternalTimer());
-        testGame.getTimer().setCancel(false);
         testGame.setTime(10);
         gameService.timer(testGame);
         Thread.sleep(1000);
@@ -612,7 +758,6 @@ class GameServiceTest {
         WordReader reader = new WordReader();
         testGame.setWords(reader.getRandomWords(13));
         testGame.setTimer(new InternalTimer());
-        testGame.getTimer().setCancel(false);
         testGame.setTime(10);
         gameService.timer(testGame);
         Thread.sleep(1000);
@@ -650,7 +795,6 @@ class GameServiceTest {
         WordReader reader = new WordReader();
         testGame.setWords(reader.getRandomWords(13));
         testGame.setTimer(new InternalTimer());
-        testGame.getTimer().setCancel(false);
         testGame.setTime(15);
         gameService.timer(testGame);
         Thread.sleep(1000);
@@ -687,7 +831,6 @@ class GameServiceTest {
         WordReader reader = new WordReader();
         testGame.setWords(reader.getRandomWords(13));
         testGame.setTimer(new InternalTimer());
-        testGame.getTimer().setCancel(false);
         testGame.setTime(15);
         gameService.timer(testGame);
         Thread.sleep(1000);
@@ -731,7 +874,6 @@ class GameServiceTest {
         WordReader reader = new WordReader();
         testGame.setWords(reader.getRandomWords(13));
         testGame.setTimer(new InternalTimer());
-        testGame.getTimer().setCancel(false);
 
         Mockito.when(lobbyRepository.findByLobbyId(1L)).thenReturn(java.util.Optional.of(lobby));
 
@@ -782,7 +924,6 @@ class GameServiceTest {
         WordReader reader = new WordReader();
         testGame.setWords(reader.getRandomWords(13));
         testGame.setTimer(new InternalTimer());
-        testGame.getTimer().setCancel(false);
         testGame.setTime(5);
 
         Mockito.when(userRepository.findById(player1.getId())).thenReturn(java.util.Optional.of(user1));
@@ -835,7 +976,6 @@ class GameServiceTest {
 
 
         testGame.setTimer(new InternalTimer());
-        testGame.getTimer().setCancel(false);
         testGame.setTime(10);
 
         Mockito.when(userRepository.findById(player1.getId())).thenReturn(java.util.Optional.of(user1));
@@ -889,7 +1029,6 @@ class GameServiceTest {
         WordReader reader = new WordReader();
         testGame.setWords(reader.getRandomWords(13));
         testGame.setTimer(new InternalTimer());
-        testGame.getTimer().setCancel(false);
         testGame.setTime(10);
 
         Mockito.when(lobbyRepository.findByLobbyId(testGame.getLobbyId())).thenReturn(java.util.Optional.of(lobby));
@@ -901,6 +1040,13 @@ class GameServiceTest {
         assertEquals(GameState.END_GAME_STATE, testGame.getGameState());
         assertTrue(gameRepository.findByLobbyId(testGame.getLobbyId()).isEmpty());
         assertFalse(lobby.isGameStarted());
+        Mockito.verify(gameClock).cancel(testGame.getLobbyId());
+        assertFalse(gameClock.isScheduled(testGame.getLobbyId()));
+        // the bookkeeping of the end of the game is written in one transaction
+        Mockito.verify(transactionManager).commit(Mockito.any());
+        Mockito.verify(playerRepository).resetScores(Set.of(player1.getId(), player2.getId()));
+        Mockito.verify(lobbyRepository, Mockito.never()).saveAndFlush(Mockito.any());
+        Mockito.verify(leaderboardService).addUserScores(Mockito.anyMap());
     }
 
     @Test
@@ -933,17 +1079,49 @@ class GameServiceTest {
         testGame.addPlayer(player2);
         testGame.setCurrentGuesser(player1);
         testGame.setRoundsPlayed(1);
-        testGame.setStartTimeSeconds(TimeUnit.MILLISECONDS.toSeconds(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis())));
+        testGame.setStartTimeSeconds(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()));
         testGame.setTimer(new InternalTimer());
-        testGame.getTimer().setCancel(true);
         testGame.setTime(3);
 
         Mockito.when(gameRepository.findByLobbyId(testGame.getLobbyId())).thenReturn(java.util.Optional.ofNullable(testGame));
 
         gameService.timer(testGame);
-//        Thread.sleep(1*1000);
+        Thread.sleep(1000);
 
+        // the deadline of the state is not reached yet, so the game is not touched
         assertEquals(GameState.ENTER_CLUES_STATE, testGame.getGameState());
+        assertTrue(gameClock.isScheduled(testGame.getLobbyId()));
+        Mockito.verify(gameRepository, Mockito.never()).findByLobbyId(Mockito.anyLong());
+    }
+
+    @Test
+    void transition_stateCompletedEarly_replacesDeadline() throws InterruptedException {
+        Player player1 = new Player();
+        player1.setId(1L);
+        player1.setToken("testToken");
+
+        Player player2 = new Player();
+        player2.setId(2L);
+        player2.setToken("tesToken2");
+
+        testGame.setLobbyId(1L);
+        testGame.setGameState(GameState.PICK_WORD_STATE);
+        testGame.addPlayer(player1);
+        testGame.addPlayer(player2);
+        testGame.setCurrentGuesser(player1);
+        testGame.setRoundsPlayed(1);
+        // deadline of the pick word state is already reached
+        testGame.setStartTimeSeconds(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) - 20);
+        testGame.setTimer(new InternalTimer());
+
+        Mockito.when(gameRepository.findByLobbyId(testGame.getLobbyId())).thenReturn(java.util.Optional.ofNullable(testGame));
+
+        gameService.transition(testGame, GameState.ENTER_CLUES_STATE);
+        Thread.sleep(500);
+
+        assertEquals(GameState.ENTER_CLUES_STATE, testGame.getGameState());
+        assertTrue(gameClock.isScheduled(testGame.getLobbyId()));
+        Mockito.verify(gameRepository, Mockito.never()).findByLobbyId(Mockito.anyLong());
     }
 
     @Test
@@ -975,7 +1153,6 @@ class GameServiceTest {
         testGame.setRoundsPlayed(1);
         testGame.setStartTimeSeconds(TimeUnit.MILLISECONDS.toSeconds(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis())));
         testGame.setTimer(new InternalTimer());
-        testGame.getTimer().setCancel(true);
         testGame.setTime(3);
 
         Mockito.when(lobbyRepository.findByLobbyId(Mockito.anyLong())).thenReturn(java.util.Optional.of(lobby));
@@ -1017,7 +1194,6 @@ class GameServiceTest {
         testGame.setRoundsPlayed(1);
         testGame.setStartTimeSeconds(TimeUnit.MILLISECONDS.toSeconds(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis())));
         testGame.setTimer(new InternalTimer());
-        testGame.getTimer().setCancel(true);
         testGame.setTime(3);
 
         Mockito.when(lobbyRepository.findByLobbyId(Mockito.anyLong())).thenReturn(java.util.Optional.of(lobby));
@@ -1027,6 +1203,31 @@ class GameServiceTest {
         assertTrue(testGame.getEnteredClues().contains(clue1));
     }
 
+    @Test
+    void generateCluesForBots_pluralAlreadyEntered_getSecondResponse() {
+        Lobby lobby = new Lobby();
+        lobby.setLobbyId(testGame.getLobbyId());
+        lobby.setCurrentNumBots(1);
+
+        Clue clue = new Clue();
+        clue.setPlayerId(player2.getId());
+        clue.setActualClue("instruments");
+        Clue clue1 = new Clue();
+        clue1.setActualClue("prick");
+
+        testGame.setGameState(GameState.ENTER_CLUES_STATE);
+        testGame.setCurrentWord("tool");
+        gameService.addClue(clue, testGame);
+
+        Mockito.when(lobbyRepository.findByLobbyId(Mockito.anyLong())).thenReturn(java.util.Optional.of(lobby));
+
+        gameService.generateCluesForBots(testGame);
+
+        assertEquals(2, testGame.getEnteredClues().size());
+        assertTrue(testGame.getEnteredClues().contains(clue));
+        assertTrue(testGame.getEnteredClues().contains(clue1));
+    }
+
     @Test
     void generateCluesForBots_twoBotsInGame_firstClues() throws JsonProcessingException {
         Player player1 = new Player();
@@ -1059,7 +1260,6 @@ class GameServiceTest {
         testGame.setRoundsPlayed(1);
         testGame.setStartTimeSeconds(TimeUnit.MILLISECONDS.toSeconds(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis())));
         testGame.setTimer(new InternalTimer());
-        testGame.getTimer().setCancel(true);
         testGame.setTime(3);
 
         Mockito.when(lobbyRepository.findByLobbyId(Mockito.anyLong())).thenReturn(java.util.Optional.of(lobby));
@@ -1101,7 +1301,6 @@ class GameServiceTest {
         testGame.setRoundsPlayed(1);
         testGame.setStartTimeSeconds(TimeUnit.MILLISECONDS.toSeconds(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis())));
         testGame.setTimer(new InternalTimer());
-        testGame.getTimer().setCancel(true);
         testGame.setTime(3);
 
         Mockito.when(lobbyRepository.findByLobbyId(Mockito.anyLong())).thenReturn(java.util.Optional.of(lobby));
@@ -1142,7 +1341,6 @@ class GameServiceTest {
         testGame.setRoundsPlayed(1);
         testGame.setStartTimeSeconds(TimeUnit.MILLISECONDS.toSeconds(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis())));
         testGame.setTimer(new InternalTimer());
-        testGame.getTimer().setCancel(true);
         testGame.setTime(3);
 
         Mockito.when(lobbyRepository.findByLobbyId(Mockito.anyLong())).thenReturn(java.util.Optional.of(lobby));
@@ -1450,6 +1648,55 @@ class GameServiceTest {
         assertTrue(player3.isVoted());
     }
 
+    @Test
+    void vote_notAllVoted_votesOnlyTallied() {
+        Clue clue = new Clue();
+        clue.setPlayerId(1L);
+        clue.setActualClue("star");
+        testGame.addClue(clue);
+        testGame.setGameState(GameState.VOTE_ON_CLUES_STATE);
+        testGame.setTimer(new InternalTimer());
+        Player player3 = new Player();
+        player3.setId(3L);
+        player3.setToken("token3");
+        testGame.addPlayer(player3);
+
+        assertFalse(gameService.vote(testGame, player2, List.of("Star")));
+
+        assertTrue(player2.isVoted());
+        assertEquals(1, testGame.getVoteTally().count("star"));
+        assertTrue(testGame.getInvalidClues().isEmpty());
+        assertTrue(testGame.getEnteredClues().contains(clue));
+    }
+
+    @Test
+    void updateUserDatabase_oneBatch() {
+        player2.setScore(40);
+        testHost.setScore(15);
+
+        gameService.updateUserDatabase(testGame);
+
+        Mockito.verify(userRepository).addScores(Map.of(player2.getId(), 40, testHost.getId(), 15));
+        Mockito.verify(userRepository, Mockito.never()).findById(Mockito.anyLong());
+        Mockito.verify(userRepository, Mockito.never()).saveAndFlush(Mockito.any());
+    }
+
+    @Test
+    void updateScores_wrongGuess_scoreNotNegative() {
+        Clue clue = new Clue();
+        clue.setPlayerId(player2.getId());
+        clue.setActualClue("star");
+        clue.setTimeNeeded(20L);
+        player2.addClue(clue);
+        testGame.addClue(clue);
+        testGame.setGuessCorrect(false);
+        player2.setScore(10);
+
+        gameService.updateScores(testGame);
+
+        assertEquals(0, player2.getScore());
+    }
+
     @Test
     void getTime_PickWord(){
         testGame.setGameState(GameState.PICK_WORD_STATE);
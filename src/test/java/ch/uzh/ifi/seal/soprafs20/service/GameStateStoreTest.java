@@ -0,0 +1,135 @@
+package ch.uzh.ifi.seal.soprafs20.service;
+
+import ch.uzh.ifi.seal.soprafs20.GameLogic.GameState;
+import ch.uzh.ifi.seal.soprafs20.entity.Clue;
+import ch.uzh.ifi.seal.soprafs20.entity.Game;
+import ch.uzh.ifi.seal.soprafs20.entity.InternalTimer;
+import ch.uzh.ifi.seal.soprafs20.entity.Player;
+import ch.uzh.ifi.seal.soprafs20.repository.ClueRepository;
+import ch.uzh.ifi.seal.soprafs20.repository.GameRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The store writes detached games in transactions of its own, so the test does not run inside a transaction
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class GameStateStoreTest {
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    @Autowired
+    private ClueRepository clueRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private GameMailbox gameMailbox;
+    private GameStateStore gameStateStore;
+    private Game game;
+
+    @BeforeEach
+    void setUp() {
+        // the periodic flush is not used by the tests
+        gameMailbox = new GameMailbox(1);
+        gameStateStore = new GameStateStore(gameRepository, gameMailbox, transactionManager, 60_000);
+
+        Player player = new Player();
+        player.setId(1L);
+        player.setUsername("bad bunny");
+        player.setToken("token1");
+
+        game = new Game();
+        game.setLobbyId(1L);
+        game.setGameState(GameState.ENTER_CLUES_STATE);
+        game.setRoundsPlayed(1);
+        game.addPlayer(player);
+        game.setTimer(new InternalTimer());
+        game = gameRepository.saveAndFlush(game);
+        gameStateStore.put(game);
+    }
+
+    @AfterEach
+    void tearDown() {
+        gameStateStore.shutdown();
+        gameMailbox.shutdown();
+        gameRepository.deleteAll();
+    }
+
+    @Test
+    void find_liveGame_returnsSameInstance() {
+        assertSame(game, gameStateStore.find(1L).orElseThrow());
+        assertTrue(gameStateStore.find(2L).isEmpty());
+    }
+
+    @Test
+    void markDirty_writtenWithNextFlush() {
+        game.setGameState(GameState.VOTE_ON_CLUES_STATE);
+        gameStateStore.markDirty(game);
+
+        assertEquals(GameState.ENTER_CLUES_STATE, gameRepository.findByLobbyId(1L).orElseThrow().getGameState());
+        assertEquals(1, gameStateStore.getDirtyGames());
+
+        gameStateStore.flushAll();
+
+        assertEquals(GameState.VOTE_ON_CLUES_STATE, gameRepository.findByLobbyId(1L).orElseThrow().getGameState());
+        assertEquals(0, gameStateStore.getDirtyGames());
+    }
+
+    @Test
+    void flush_newClues_insertedOnlyOnce() {
+        Clue clue = new Clue();
+        clue.setPlayerId(1L);
+        clue.setActualClue("instrument");
+        game.getPlayers().get(0).addClue(clue);
+        game.addClue(clue);
+
+        gameStateStore.markDirty(game);
+        gameStateStore.flushAll();
+        gameStateStore.markDirty(game);
+        gameStateStore.flushAll();
+
+        assertNotNull(clue.getClueId());
+        assertEquals(1, clueRepository.count());
+        assertEquals(1, gameRepository.findByLobbyId(1L).orElseThrow().getEnteredClues().size());
+    }
+
+    @Test
+    void persist_writtenInBackground() throws InterruptedException {
+        game.setRoundsPlayed(2);
+        gameStateStore.persist(game);
+
+        for (int i = 0; i < 50 && gameStateStore.getDirtyGames() > 0; i++) {
+            Thread.sleep(20);
+        }
+        Thread.sleep(100);
+
+        assertEquals(2, gameRepository.findByLobbyId(1L).orElseThrow().getRoundsPlayed());
+    }
+
+    @Test
+    void remove_pendingChangesDiscarded() {
+        game.setRoundsPlayed(3);
+        gameStateStore.markDirty(game);
+        gameStateStore.remove(1L);
+
+        gameStateStore.flushAll();
+
+        Optional<Game> snapshot = gameRepository.findByLobbyId(1L);
+        assertTrue(snapshot.isPresent());
+        assertEquals(1, snapshot.get().getRoundsPlayed());
+        assertTrue(gameStateStore.find(1L).isEmpty());
+    }
+}
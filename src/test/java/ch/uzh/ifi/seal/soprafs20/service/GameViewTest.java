@@ -0,0 +1,127 @@
+package ch.uzh.ifi.seal.soprafs20.service;
+
+import ch.uzh.ifi.seal.soprafs20.GameLogic.GameState;
+import ch.uzh.ifi.seal.soprafs20.entity.Game;
+import ch.uzh.ifi.seal.soprafs20.entity.Player;
+import ch.uzh.ifi.seal.soprafs20.exceptions.UnauthorizedException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameViewTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final GameView gameView = new GameView(objectMapper);
+    private Game game;
+
+    @BeforeEach
+    void setUp() {
+        Player guesser = new Player();
+        guesser.setId(1L);
+        guesser.setToken("token1");
+
+        Player player = new Player();
+        player.setId(2L);
+        player.setToken("token2");
+
+        game = new Game();
+        game.setLobbyId(1L);
+        game.setRoundsPlayed(1);
+        game.addPlayer(guesser);
+        game.addPlayer(player);
+        game.setCurrentGuesser(guesser);
+        game.setCurrentWord("Erdbeermarmeladebrot");
+        game.setGameState(GameState.ENTER_CLUES_STATE);
+        game.setVersion(3);
+    }
+
+    @Test
+    void render_guesser_wordHidden() {
+        assertNull(gameView.render(game, "token1", 0).getCurrentWord());
+        assertEquals("erdbeermarmeladebrot", gameView.render(game, "token2", 0).getCurrentWord());
+    }
+
+    @Test
+    void render_withBots_botsAdded() {
+        assertEquals(4, gameView.render(game, "token2", 2).getPlayers().size());
+    }
+
+    @Test
+    void checkAccess_unknownToken_throwsException() {
+        assertThrows(UnauthorizedException.class, () -> gameView.checkAccess(game, "wrongToken"));
+    }
+
+    @Test
+    void isCurrent_matchingETag() {
+        assertEquals("\"3\"", gameView.getETag(game));
+        assertTrue(gameView.isCurrent(game, "\"3\""));
+        assertTrue(gameView.isCurrent(game, "\"1\", W/\"3\""));
+        assertFalse(gameView.isCurrent(game, "\"2\""));
+        assertFalse(gameView.isCurrent(game, null));
+    }
+
+    @Test
+    void renderSince_knownVersion_onlyChangedFields() {
+        gameView.render(game, "token2", 0);
+
+        game.setOverallScore(50);
+        game.setVersion(4);
+        ObjectNode delta = gameView.renderSince(game, "token2", 0, 3);
+
+        assertEquals(50, delta.get("overallScore").asInt());
+        assertEquals(4, delta.get("version").asInt());
+        assertFalse(delta.has("currentWord"));
+        assertFalse(delta.has("players"));
+    }
+
+    @Test
+    void renderSince_stateChanged_wholeGame() {
+        gameView.render(game, "token2", 0);
+
+        game.setGameState(GameState.VOTE_ON_CLUES_STATE);
+        game.setVersion(4);
+        ObjectNode delta = gameView.renderSince(game, "token2", 0, 3);
+
+        assertTrue(delta.has("currentWord"));
+        assertTrue(delta.has("players"));
+    }
+
+    @Test
+    void renderSince_unknownVersion_wholeGame() {
+        ObjectNode delta = gameView.renderSince(game, "token2", 0, 1);
+
+        assertTrue(delta.has("lobbyId"));
+        assertTrue(delta.has("players"));
+    }
+
+    @Test
+    void diff_onlyChangedFields() throws Exception {
+        ObjectNode previous = (ObjectNode) objectMapper.readTree("{\"gameState\":\"PICK_WORD_STATE\",\"roundsPlayed\":1,\"enteredClues\":[]}");
+        ObjectNode current = (ObjectNode) objectMapper.readTree("{\"gameState\":\"ENTER_CLUES_STATE\",\"roundsPlayed\":1,\"enteredClues\":[]}");
+
+        ObjectNode changes = GameView.diff(previous, current);
+
+        assertEquals(1, changes.size());
+        assertEquals("ENTER_CLUES_STATE", changes.get("gameState").asText());
+    }
+
+    @Test
+    void diff_changedList_sentAsWhole() throws Exception {
+        ObjectNode previous = (ObjectNode) objectMapper.readTree("{\"enteredClues\":[{\"actualClue\":\"instrument\"}]}");
+        ObjectNode current = (ObjectNode) objectMapper.readTree("{\"enteredClues\":[{\"actualClue\":\"instrument\"},{\"actualClue\":\"hammer\"}]}");
+
+        ObjectNode changes = GameView.diff(previous, current);
+
+        assertEquals(2, changes.get("enteredClues").size());
+    }
+
+    @Test
+    void diff_noChanges_empty() throws Exception {
+        ObjectNode previous = (ObjectNode) objectMapper.readTree("{\"gameState\":\"PICK_WORD_STATE\",\"currentWord\":null}");
+
+        assertEquals(0, GameView.diff(previous, previous.deepCopy()).size());
+    }
+}
@@ -0,0 +1,251 @@
+package ch.uzh.ifi.seal.soprafs20.service;
+
+import ch.uzh.ifi.seal.soprafs20.constant.ScorePeriod;
+import ch.uzh.ifi.seal.soprafs20.constant.UserStatus;
+import ch.uzh.ifi.seal.soprafs20.entity.LobbyScore;
+import ch.uzh.ifi.seal.soprafs20.entity.User;
+import ch.uzh.ifi.seal.soprafs20.exceptions.BadRequestException;
+import ch.uzh.ifi.seal.soprafs20.repository.LobbyScoreRepository;
+import ch.uzh.ifi.seal.soprafs20.repository.UserRepository;
+import ch.uzh.ifi.seal.soprafs20.rest.dto.LobbyScoreGetDTO;
+import ch.uzh.ifi.seal.soprafs20.rest.dto.UserGetDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeaderboardServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private LobbyScoreRepository lobbyScoreRepository;
+
+    private TestClock clock = new TestClock();
+
+    private LeaderboardService leaderboardService;
+
+    private User user1;
+    private User user2;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.initMocks(this);
+        leaderboardService = new LeaderboardService(userRepository, lobbyScoreRepository, clock);
+
+        user1 = new User();
+        user1.setId(1L);
+        user1.setUsername("first");
+        user1.setScore(100);
+        user2 = new User();
+        user2.setId(2L);
+        user2.setUsername("second");
+        user2.setScore(50);
+
+        Mockito.when(userRepository.findAll()).thenReturn(List.of(user1, user2));
+        Mockito.when(lobbyScoreRepository.findAll()).thenReturn(List.of(lobbyScore(1L, 300), lobbyScore(2L, 500)));
+    }
+
+    @Test
+    void load_usersAndLobbyScoresRanked() {
+        leaderboardService.load();
+
+        List<UserGetDTO> users = leaderboardService.getUsers(ScorePeriod.ALL_TIME, 0, 10);
+        assertEquals(2, users.size());
+        assertEquals("first", users.get(0).getUsername());
+        assertEquals(100, users.get(0).getScore());
+
+        List<LobbyScoreGetDTO> lobbyScores = leaderboardService.getLobbyScores(ScorePeriod.ALL_TIME, 0, 10);
+        assertEquals(500, lobbyScores.get(0).getScore());
+        assertEquals(300, lobbyScores.get(1).getScore());
+    }
+
+    @Test
+    void addUserScores_rankChanged() {
+        leaderboardService.load();
+
+        leaderboardService.addUserScores(Map.of(2L, 70, 3L, 10));
+
+        assertEquals(1, leaderboardService.getUserRank(ScorePeriod.ALL_TIME, 2L).getAsInt());
+        assertEquals(2, leaderboardService.getUserRank(ScorePeriod.ALL_TIME, 1L).getAsInt());
+        assertEquals(120, leaderboardService.getUsers(ScorePeriod.ALL_TIME, 0, 1).get(0).getScore());
+        assertEquals(2, leaderboardService.getNumberOfUsers(ScorePeriod.ALL_TIME));
+        Mockito.verify(userRepository, Mockito.times(1)).findAll();
+    }
+
+    @Test
+    void updateStatus_statusShown_scoreKept() {
+        user1.setStatus(UserStatus.ONLINE);
+        leaderboardService.load();
+
+        leaderboardService.updateStatus(1L, UserStatus.OFFLINE);
+        leaderboardService.updateStatus(3L, UserStatus.OFFLINE);
+
+        UserGetDTO first = leaderboardService.getUsers(ScorePeriod.ALL_TIME, 0, 1).get(0);
+        assertFalse(first.getStatus());
+        assertEquals(100, first.getScore());
+        assertEquals(2, leaderboardService.getNumberOfUsers(ScorePeriod.ALL_TIME));
+    }
+
+    @Test
+    void updateStatus_concurrentWithScores_noPointsLost() throws InterruptedException {
+        leaderboardService.load();
+        Thread presence = new Thread(() -> {
+            for (int i = 0; i < 10000; i++) {
+                leaderboardService.updateStatus(1L, i % 2 == 0 ? UserStatus.ONLINE : UserStatus.OFFLINE);
+            }
+        });
+        presence.start();
+        for (int i = 0; i < 10000; i++) {
+            leaderboardService.addUserScores(Map.of(1L, 1));
+        }
+        presence.join();
+
+        assertEquals(10100, leaderboardService.getUsers(ScorePeriod.ALL_TIME, 0, 1).get(0).getScore());
+    }
+
+    @Test
+    void updateUser_scoreOnLeaderboardKept() {
+        leaderboardService.load();
+        leaderboardService.addUserScores(Map.of(1L, 20));
+        user1.setUsername("renamed");
+
+        leaderboardService.updateUser(user1);
+
+        UserGetDTO first = leaderboardService.getUsers(ScorePeriod.ALL_TIME, 0, 1).get(0);
+        assertEquals("renamed", first.getUsername());
+        assertEquals(120, first.getScore());
+    }
+
+    @Test
+    void updateUser_newUser_added() {
+        User user3 = new User();
+        user3.setId(3L);
+        user3.setUsername("third");
+
+        leaderboardService.updateUser(user3);
+
+        assertEquals(1, leaderboardService.getUserRank(ScorePeriod.ALL_TIME, 3L).getAsInt());
+    }
+
+    @Test
+    void getUsers_secondPage() {
+        leaderboardService.load();
+
+        List<UserGetDTO> users = leaderboardService.getUsers(ScorePeriod.ALL_TIME, 1, 1);
+
+        assertEquals(1, users.size());
+        assertEquals("second", users.get(0).getUsername());
+    }
+
+    @Test
+    void getUsers_invalidPage_throwsException() {
+        assertThrows(BadRequestException.class, () -> leaderboardService.getUsers(ScorePeriod.ALL_TIME, -1, 10));
+        assertThrows(BadRequestException.class, () -> leaderboardService.getUsers(ScorePeriod.ALL_TIME, 0, 0));
+    }
+
+    @Test
+    void addUserScores_dailyAndWeekly() {
+        leaderboardService.load();
+        leaderboardService.addUserScores(Map.of(1L, 10, 2L, 30));
+        clock.plusDays(1);
+        leaderboardService.addUserScores(Map.of(1L, 40));
+
+        List<UserGetDTO> daily = leaderboardService.getUsers(ScorePeriod.DAILY, 0, 10);
+        assertEquals(1, daily.size());
+        assertEquals("first", daily.get(0).getUsername());
+        assertEquals(40, daily.get(0).getScore());
+
+        List<UserGetDTO> weekly = leaderboardService.getUsers(ScorePeriod.WEEKLY, 0, 10);
+        assertEquals(2, weekly.size());
+        assertEquals(50, weekly.get(0).getScore());
+        assertEquals(30, weekly.get(1).getScore());
+        assertTrue(leaderboardService.getUserRank(ScorePeriod.DAILY, 2L).isEmpty());
+        assertEquals(2, leaderboardService.getUserRank(ScorePeriod.WEEKLY, 2L).getAsInt());
+    }
+
+    @Test
+    void addUserScores_weekPassed_pointsExpired() {
+        leaderboardService.load();
+        leaderboardService.addUserScores(Map.of(1L, 10, 2L, 30));
+        clock.plusDays(3);
+        leaderboardService.addUserScores(Map.of(1L, 5));
+        clock.plusDays(4);
+
+        List<UserGetDTO> weekly = leaderboardService.getUsers(ScorePeriod.WEEKLY, 0, 10);
+        assertEquals(1, weekly.size());
+        assertEquals(5, weekly.get(0).getScore());
+        assertEquals(1, leaderboardService.getNumberOfUsers(ScorePeriod.WEEKLY));
+        assertEquals(0, leaderboardService.getNumberOfUsers(ScorePeriod.DAILY));
+        // all time is not affected
+        assertEquals(115, leaderboardService.getUsers(ScorePeriod.ALL_TIME, 0, 10).get(0).getScore());
+    }
+
+    @Test
+    void load_lobbyScoresByDate() {
+        LobbyScore old = lobbyScore(1L, 800);
+        old.setDate(Date.from(clock.instant().minus(Duration.ofDays(10))));
+        LobbyScore lastWeek = lobbyScore(2L, 600);
+        lastWeek.setDate(Date.from(clock.instant().minus(Duration.ofDays(3))));
+        LobbyScore today = lobbyScore(3L, 200);
+        Mockito.when(lobbyScoreRepository.findAll()).thenReturn(List.of(today, old, lastWeek));
+
+        leaderboardService.load();
+
+        assertEquals(3, leaderboardService.getLobbyScores(ScorePeriod.ALL_TIME, 0, 10).size());
+        List<LobbyScoreGetDTO> weekly = leaderboardService.getLobbyScores(ScorePeriod.WEEKLY, 0, 10);
+        assertEquals(2, weekly.size());
+        assertEquals(600, weekly.get(0).getScore());
+        List<LobbyScoreGetDTO> daily = leaderboardService.getLobbyScores(ScorePeriod.DAILY, 0, 10);
+        assertEquals(1, daily.size());
+        assertEquals(200, daily.get(0).getScore());
+    }
+
+    private LobbyScore lobbyScore(Long id, int score) {
+        LobbyScore lobbyScore = new LobbyScore();
+        lobbyScore.setScoreId(id);
+        lobbyScore.setLobbyName("lobby" + id);
+        lobbyScore.setScore(score);
+        lobbyScore.setDate(Date.from(clock.instant()));
+        return lobbyScore;
+    }
+
+    /**
+     * Clock that only moves when the test moves it
+     */
+    private static class TestClock extends Clock {
+        private Instant now = Instant.parse("2020-05-20T12:00:00Z");
+
+        void plusDays(int days) {
+            now = now.plus(Duration.ofDays(days));
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
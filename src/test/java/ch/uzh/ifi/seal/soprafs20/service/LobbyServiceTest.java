@@ -23,6 +23,8 @@ class LobbyServiceTest {
     private LobbyRepository lobbyRepository;
     @Mock
     private PlayerRepository playerRepository;
+    @Mock
+    private SessionRegistry sessionRegistry;
 
     @InjectMocks
     private LobbyService lobbyService;
@@ -196,6 +198,7 @@ class LobbyServiceTest {
         assertEquals(1,testLobby.getPlayersInLobby().size());
         assertFalse(testLobby.getPlayersInLobby().contains(player2));
         assertEquals(1, testLobby.getCurrentNumPlayers());
+        Mockito.verify(sessionRegistry).leaveLobby(player2.getToken());
     }
 
     @Test
@@ -240,6 +243,7 @@ class LobbyServiceTest {
         lobbyService.addPlayerToLobby(player2.getToken(), player2, testLobby);
 
         assertEquals(2, testLobby.getPlayersInLobby().size());
+        Mockito.verify(sessionRegistry).joinLobby(player2.getToken(), testLobby.getLobbyId());
     }
 
     @Test
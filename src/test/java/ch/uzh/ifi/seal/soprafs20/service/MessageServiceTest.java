@@ -4,11 +4,14 @@ import ch.uzh.ifi.seal.soprafs20.entity.Message;
 import ch.uzh.ifi.seal.soprafs20.repository.MessageRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class MessageServiceTest {
@@ -16,28 +19,116 @@ class MessageServiceTest {
     @Mock
     private MessageRepository messageRepository;
 
-    @InjectMocks
     private MessageService messageService;
 
+    private long lastId = 0;
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.initMocks(this);
+        messageService = new MessageService(messageRepository);
+
+        // the sequence returns the last id of each block
+        Mockito.when(messageRepository.allocateMessageIds()).thenAnswer(invocation -> lastId += Message.ID_ALLOCATION_SIZE);
     }
 
     @Test
     void createMessage_success() {
-        Message message = new Message();
+        Message message = message(1L);
         message.setText("Hello World");
         message.setAuthorUsername("username");
         message.setAuthorId(1L);
-        message.setCreationDate();
-
-        Mockito.when(messageRepository.saveAndFlush(Mockito.any())).thenReturn(message);
 
         message = messageService.createMessage(message);
 
         assertEquals("Hello World", message.getText());
         assertEquals("username", message.getAuthorUsername());
         assertEquals(1L, message.getAuthorId());
+        assertEquals(1L, message.getMessageId());
+        assertNotNull(message.getCreationDate());
+    }
+
+    @Test
+    void createMessage_queuedUntilFlush() {
+        Message message = messageService.createMessage(message(1L));
+
+        assertEquals(1, messageService.getPendingMessages());
+        Mockito.verify(messageRepository, Mockito.never()).insertMessages(Mockito.any());
+
+        messageService.flush();
+
+        Mockito.verify(messageRepository).insertMessages(List.of(message));
+        assertEquals(0, messageService.getPendingMessages());
+        // nothing left to write
+        messageService.flush();
+        Mockito.verify(messageRepository, Mockito.times(1)).insertMessages(Mockito.any());
+    }
+
+    @Test
+    void createMessage_idsAllocatedInBlocks() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < Message.ID_ALLOCATION_SIZE + 1; i++) {
+            ids.add(messageService.createMessage(message(1L)).getMessageId());
+        }
+
+        assertEquals(1L, ids.get(0));
+        assertEquals((long) Message.ID_ALLOCATION_SIZE, ids.get(Message.ID_ALLOCATION_SIZE - 1));
+        assertEquals(Message.ID_ALLOCATION_SIZE + 1L, ids.get(Message.ID_ALLOCATION_SIZE));
+        Mockito.verify(messageRepository, Mockito.times(2)).allocateMessageIds();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_manyMessages_writtenInBatches() {
+        for (int i = 0; i < MessageService.BATCH_SIZE + 1; i++) {
+            messageService.createMessage(message(1L));
+        }
+        List<Integer> sizes = new ArrayList<>();
+        Mockito.doAnswer(invocation -> sizes.add(((List<Message>) invocation.getArgument(0)).size()))
+                .when(messageRepository).insertMessages(Mockito.any());
+
+        messageService.flush();
+
+        assertEquals(List.of(MessageService.BATCH_SIZE, 1), sizes);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_databaseFails_messagesStayQueued() {
+        Message message = messageService.createMessage(message(1L));
+        Mockito.doThrow(new IllegalStateException("database down")).when(messageRepository).insertMessages(Mockito.any());
+
+        messageService.flush();
+        assertEquals(1, messageService.getPendingMessages());
+
+        Mockito.doNothing().when(messageRepository).insertMessages(Mockito.any());
+        messageService.flush();
+
+        ArgumentCaptor<List<Message>> written = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(messageRepository, Mockito.times(2)).insertMessages(written.capture());
+        assertEquals(List.of(message), written.getValue());
+        assertEquals(0, messageService.getPendingMessages());
+    }
+
+    @Test
+    void flush_oneLobby_onlyItsMessagesWritten() {
+        Message first = messageService.createMessage(message(1L));
+        Message other = messageService.createMessage(message(2L));
+
+        messageService.flush(1L);
+
+        Mockito.verify(messageRepository).insertMessages(List.of(first));
+        assertEquals(1, messageService.getPendingMessages());
+
+        messageService.flush();
+
+        Mockito.verify(messageRepository).insertMessages(List.of(other));
+        assertEquals(0, messageService.getPendingMessages());
+    }
+
+    private static Message message(Long lobbyId) {
+        Message message = new Message();
+        message.setLobbyId(lobbyId);
+        return message;
     }
 }
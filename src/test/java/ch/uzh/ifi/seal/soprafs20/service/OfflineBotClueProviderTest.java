@@ -0,0 +1,53 @@
+package ch.uzh.ifi.seal.soprafs20.service;
+
+import ch.uzh.ifi.seal.soprafs20.GameLogic.NLP;
+import ch.uzh.ifi.seal.soprafs20.GameLogic.WordDictionary;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OfflineBotClueProviderTest {
+
+    private final WordDictionary wordDictionary = new WordDictionary(new ClassPathResource("words.txt"));
+    private final OfflineBotClueProvider botClueProvider = new OfflineBotClueProvider(wordDictionary);
+
+    @Test
+    void getClues_knownWord_bestClueFirst() {
+        List<String> clues = botClueProvider.getClues("Tool");
+
+        assertEquals("instrument", clues.get(0));
+        assertEquals("prick", clues.get(1));
+    }
+
+    @Test
+    void getClues_twoWords() {
+        assertEquals("plants", botClueProvider.getClues("Nuclear power").get(0));
+    }
+
+    @Test
+    void getClues_unknownWord_noClues() {
+        assertTrue(botClueProvider.getClues("Erdbeermarmeladebrot").isEmpty());
+    }
+
+    @Test
+    void getClues_cluesCanNotBeModified() {
+        List<String> clues = botClueProvider.getClues("tool");
+
+        assertThrows(UnsupportedOperationException.class, () -> clues.set(0, "tool"));
+    }
+
+    @Test
+    void getClues_everyWordOfTheGame_validClues() {
+        NLP nlp = new NLP();
+        for (String word : wordDictionary.getWords()) {
+            List<String> clues = botClueProvider.getClues(word);
+            assertFalse(clues.isEmpty(), word);
+            for (String clue : clues) {
+                assertTrue(nlp.checkClue(clue, word), clue);
+            }
+        }
+    }
+}
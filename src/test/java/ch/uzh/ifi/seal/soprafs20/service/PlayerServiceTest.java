@@ -13,7 +13,9 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 
+import java.time.Clock;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -24,6 +26,9 @@ class PlayerServiceTest {
     @Mock
     private PlayerRepository playerRepository;
 
+    @Spy
+    private TokenService tokenService = new TokenService(true, "secret", 1000, Clock.systemUTC());
+
     @InjectMocks
     private PlayerService playerService;
 
@@ -84,6 +89,24 @@ class PlayerServiceTest {
         assertThrows(NotFoundException.class, () -> playerService.getPlayerByToken("wrongToken"));
     }
 
+    @Test
+    void getPlayerByToken_forgedSignedToken_rejectedWithoutRepository() {
+        String token = tokenService.newToken(1L, null);
+        String forged = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThrows(NotFoundException.class, () -> playerService.getPlayerByToken(forged));
+        Mockito.verify(playerRepository, Mockito.never()).findByToken(Mockito.any());
+    }
+
+    @Test
+    void getPlayerByToken_signedToken_resolvedById() {
+        Player player = playerService.getPlayerByToken(tokenService.newToken(1L, null));
+
+        assertEquals(1L, player.getId());
+        Mockito.verify(playerRepository).findById(1L);
+        Mockito.verify(playerRepository, Mockito.never()).findByToken(Mockito.any());
+    }
+
     @Test
     void convertUserToPlayer_validInput_success() {
         User user = new User();
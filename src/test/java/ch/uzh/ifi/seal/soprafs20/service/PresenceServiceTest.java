@@ -0,0 +1,171 @@
+package ch.uzh.ifi.seal.soprafs20.service;
+
+import ch.uzh.ifi.seal.soprafs20.constant.UserStatus;
+import ch.uzh.ifi.seal.soprafs20.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PresenceServiceTest {
+
+    private static final long TIMEOUT = 60000;
+    private static final long TICK = 1000;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private FriendService friendService;
+
+    @Mock
+    private LeaderboardService leaderboardService;
+
+    private TestClock clock;
+    private PresenceService presenceService;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.initMocks(this);
+        clock = new TestClock();
+        presenceService = new PresenceService(userRepository, friendService, leaderboardService, clock, TIMEOUT, TICK, 1000);
+        Mockito.when(friendService.getFriendIds(Mockito.any())).thenReturn(Set.of());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        presenceService.shutdown();
+    }
+
+    @Test
+    public void heartbeat_withinTimeout_staysOnline() {
+        presenceService.connected(1L);
+
+        for (int i = 0; i < 5; i++) {
+            clock.plusMillis(TIMEOUT / 2);
+            presenceService.heartbeat(1L);
+            presenceService.expire();
+        }
+
+        assertTrue(presenceService.isOnline(1L));
+        Mockito.verify(leaderboardService, Mockito.never()).updateStatus(1L, UserStatus.OFFLINE);
+    }
+
+    @Test
+    public void expire_noHeartbeat_offline() {
+        presenceService.connected(1L);
+
+        clock.plusMillis(TIMEOUT - TICK);
+        presenceService.expire();
+        assertTrue(presenceService.isOnline(1L));
+
+        clock.plusMillis(2 * TICK);
+        presenceService.expire();
+        assertFalse(presenceService.isOnline(1L));
+        Mockito.verify(leaderboardService).updateStatus(1L, UserStatus.OFFLINE);
+    }
+
+    @Test
+    public void heartbeat_afterExpiry_onlineAgain() {
+        presenceService.connected(1L);
+        clock.plusMillis(2 * TIMEOUT);
+        presenceService.expire();
+
+        presenceService.heartbeat(1L);
+
+        assertTrue(presenceService.isOnline(1L));
+        Mockito.verify(leaderboardService, Mockito.times(2)).updateStatus(1L, UserStatus.ONLINE);
+    }
+
+    @Test
+    public void disconnected_offline() {
+        presenceService.connected(1L);
+        presenceService.disconnected(1L);
+
+        assertFalse(presenceService.isOnline(1L));
+        assertEquals(0, presenceService.getOnlineUsers());
+    }
+
+    @Test
+    public void flush_latestStatusesInOneBatch() {
+        presenceService.connected(1L);
+        presenceService.connected(2L);
+        presenceService.disconnected(2L);
+
+        presenceService.flush();
+        presenceService.flush();
+
+        Mockito.verify(userRepository, Mockito.times(1)).updateStatuses(Mockito.any());
+        Mockito.verify(userRepository).updateStatuses(Map.of(1L, UserStatus.ONLINE, 2L, UserStatus.OFFLINE));
+    }
+
+    @Test
+    public void flush_failed_statusesKept() {
+        presenceService.connected(1L);
+        Mockito.doThrow(new RuntimeException("down")).when(userRepository).updateStatuses(Mockito.any());
+
+        presenceService.flush();
+        Mockito.reset(userRepository);
+        presenceService.flush();
+
+        Mockito.verify(userRepository).updateStatuses(Map.of(1L, UserStatus.ONLINE));
+    }
+
+    @Test
+    public void heartbeat_comesOnline_friendsNotified() {
+        Mockito.when(friendService.getFriendIds(1L)).thenReturn(Set.of(2L, 3L));
+
+        presenceService.heartbeat(1L);
+        presenceService.heartbeat(1L);
+
+        // the friends are only looked up when the status changes
+        Mockito.verify(friendService, Mockito.times(1)).getFriendIds(1L);
+    }
+
+    @Test
+    public void load_onlineUsersExpireWithoutHeartbeat() {
+        Mockito.when(userRepository.findIdsByStatus(UserStatus.ONLINE)).thenReturn(List.of(1L, 2L));
+
+        presenceService.load();
+        assertTrue(presenceService.isOnline(1L));
+
+        clock.plusMillis(TIMEOUT + TICK);
+        presenceService.expire();
+        assertEquals(0, presenceService.getOnlineUsers());
+    }
+
+    private static class TestClock extends Clock {
+        private Instant now = Instant.parse("2020-05-20T12:00:00Z");
+
+        void plusMillis(long millis) {
+            now = now.plusMillis(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package ch.uzh.ifi.seal.soprafs20.service;
+
+import ch.uzh.ifi.seal.soprafs20.exceptions.NotFoundException;
+import ch.uzh.ifi.seal.soprafs20.repository.LobbyRepository;
+import ch.uzh.ifi.seal.soprafs20.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SessionRegistryTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private LobbyRepository lobbyRepository;
+
+    @Spy
+    private TokenService tokenService = new TokenService(true, "secret", 60000, Clock.systemUTC());
+
+    @InjectMocks
+    private SessionRegistry sessionRegistry;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.initMocks(this);
+        Mockito.when(userRepository.findIdByToken(Mockito.any())).thenReturn(Optional.empty());
+    }
+
+    @Test
+    public void register_tokenResolvedWithoutDatabase() {
+        sessionRegistry.register("token", 1L);
+
+        SessionRegistry.Session session = sessionRegistry.getSession("token");
+
+        assertEquals(1L, session.getUserId());
+        assertNull(session.getLobbyId());
+        assertNull(session.getPlayerId());
+        assertTrue(sessionRegistry.isUser("token", 1L));
+        assertFalse(sessionRegistry.isUser("token", 2L));
+        Mockito.verifyNoInteractions(userRepository, lobbyRepository);
+    }
+
+    @Test
+    public void register_newToken_previousTokenRemoved() {
+        sessionRegistry.register("oldToken", 1L);
+        sessionRegistry.register("newToken", 1L);
+
+        assertTrue(sessionRegistry.find("oldToken").isEmpty());
+        assertTrue(sessionRegistry.isUser("newToken", 1L));
+        assertEquals(1, sessionRegistry.getSessions());
+    }
+
+    @Test
+    public void invalidate_tokenNotFound() {
+        sessionRegistry.register("token", 1L);
+        sessionRegistry.invalidate(1L);
+
+        assertThrows(NotFoundException.class, () -> sessionRegistry.getSession("token"));
+        assertEquals(0, sessionRegistry.getSessions());
+    }
+
+    @Test
+    public void joinAndLeaveLobby_lobbyUpdated() {
+        sessionRegistry.register("token", 1L);
+
+        sessionRegistry.joinLobby("token", 5L);
+        assertTrue(sessionRegistry.isInLobby("token", 5L));
+        assertFalse(sessionRegistry.isInLobby("token", 6L));
+        assertEquals(1L, sessionRegistry.getSession("token").getPlayerId());
+
+        sessionRegistry.leaveLobby("token");
+        assertFalse(sessionRegistry.isInLobby("token", 5L));
+        assertNull(sessionRegistry.getSession("token").getPlayerId());
+    }
+
+    @Test
+    public void joinAndLeaveLobby_withoutToken_ignored() {
+        sessionRegistry.joinLobby(null, 5L);
+        sessionRegistry.leaveLobby(null);
+
+        assertEquals(0, sessionRegistry.getSessions());
+    }
+
+    @Test
+    public void find_unregisteredToken_loadedFromDatabaseOnce() {
+        Mockito.when(userRepository.findIdByToken("token")).thenReturn(Optional.of(1L));
+        Mockito.when(lobbyRepository.findLobbyIdByPlayerId(1L)).thenReturn(Optional.of(5L));
+
+        assertTrue(sessionRegistry.isInLobby("token", 5L));
+        assertTrue(sessionRegistry.isUser("token", 1L));
+
+        Mockito.verify(userRepository, Mockito.times(1)).findIdByToken("token");
+        Mockito.verify(lobbyRepository, Mockito.times(1)).findLobbyIdByPlayerId(1L);
+    }
+
+    @Test
+    public void find_tokenReplacedInDatabase_previousSessionRemoved() {
+        Mockito.when(userRepository.findIdByToken("oldToken")).thenReturn(Optional.of(1L));
+        Mockito.when(userRepository.findIdByToken("newToken")).thenReturn(Optional.of(1L));
+        assertTrue(sessionRegistry.find("oldToken").isPresent());
+
+        // the user logged in on another server and got a new token
+        Mockito.when(userRepository.findIdByToken("oldToken")).thenReturn(Optional.empty());
+        assertTrue(sessionRegistry.find("newToken").isPresent());
+
+        assertTrue(sessionRegistry.find("oldToken").isEmpty());
+        assertEquals(1, sessionRegistry.getSessions());
+    }
+
+    @Test
+    public void find_unknownToken_missRemembered() {
+        assertTrue(sessionRegistry.find("unknown").isEmpty());
+        assertTrue(sessionRegistry.find("unknown").isEmpty());
+
+        Mockito.verify(userRepository, Mockito.times(1)).findIdByToken("unknown");
+        Mockito.verifyNoInteractions(lobbyRepository);
+    }
+
+    @Test
+    public void register_afterMiss_tokenFound() {
+        assertTrue(sessionRegistry.find("token").isEmpty());
+
+        sessionRegistry.register("token", 1L);
+
+        assertEquals(1L, sessionRegistry.getSession("token").getUserId());
+    }
+
+    @Test
+    public void getSession_unknownToken_throwsException() {
+        assertThrows(NotFoundException.class, () -> sessionRegistry.getSession("unknown"));
+        assertFalse(sessionRegistry.isUser(null, 1L));
+        assertEquals(0, sessionRegistry.getSessions());
+    }
+
+    @Test
+    public void find_signedTokenOfOtherServer_resolvedWithoutDatabase() {
+        String token = tokenService.newToken(1L, 5L);
+
+        SessionRegistry.Session session = sessionRegistry.getSession(token);
+
+        assertEquals(1L, session.getUserId());
+        assertEquals(5L, session.getLobbyId());
+        Mockito.verifyNoInteractions(userRepository, lobbyRepository);
+    }
+
+    @Test
+    public void find_forgedSignedToken_rejectedWithoutDatabase() {
+        String token = tokenService.newToken(1L, null);
+        // the claims of another user with the signature of the token
+        String claims = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(("2::" + Long.MAX_VALUE).getBytes(StandardCharsets.UTF_8));
+        String forged = "s1." + claims + token.substring(token.lastIndexOf('.'));
+
+        assertTrue(sessionRegistry.find(forged).isEmpty());
+        Mockito.verifyNoInteractions(userRepository, lobbyRepository);
+    }
+
+    @Test
+    public void invalidate_signedToken_rejectedUntilExpiry() {
+        String token = tokenService.newToken(1L, null);
+        sessionRegistry.register(token, 1L);
+
+        sessionRegistry.invalidate(1L);
+
+        assertTrue(sessionRegistry.find(token).isEmpty());
+    }
+
+    @Test
+    void isInLobby_signedTokenOfOtherServer_lobbyLookedUp() {
+        String token = tokenService.newToken(1L, null);
+        Mockito.when(lobbyRepository.findLobbyIdByPlayerId(1L)).thenReturn(Optional.of(5L));
+
+        assertTrue(sessionRegistry.isInLobby(token, 5L));
+        assertFalse(sessionRegistry.isInLobby(token, 6L));
+        Mockito.verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void isInLobby_registeredSignedToken_noLookup() {
+        String token = tokenService.newToken(1L, null);
+        sessionRegistry.register(token, 1L);
+        sessionRegistry.joinLobby(token, 5L);
+
+        assertTrue(sessionRegistry.isInLobby(token, 5L));
+        assertFalse(sessionRegistry.isInLobby(token, 6L));
+        Mockito.verifyNoInteractions(userRepository, lobbyRepository);
+    }
+}
@@ -0,0 +1,69 @@
+package ch.uzh.ifi.seal.soprafs20.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenServiceTest {
+
+    private final Clock clock = Clock.fixed(Instant.parse("2020-05-01T12:00:00Z"), ZoneOffset.UTC);
+
+    @Test
+    public void newToken_unsigned_randomUUID() {
+        TokenService tokenService = new TokenService(false, "", 1000, clock);
+
+        String token = tokenService.newToken(1L, null);
+
+        assertFalse(TokenService.isSignedToken(token));
+        assertTrue(tokenService.verify(token).isEmpty());
+        assertNotEquals(token, tokenService.newToken(1L, null));
+    }
+
+    @Test
+    public void verify_signedToken_claimsReturned() {
+        TokenService tokenService = new TokenService(true, "secret", 1000, clock);
+
+        String token = tokenService.newToken(1L, 5L);
+        TokenService.Claims claims = tokenService.verify(token).orElseThrow();
+
+        assertTrue(TokenService.isSignedToken(token));
+        assertEquals(1L, claims.getUserId());
+        assertEquals(5L, claims.getLobbyId());
+        assertEquals(clock.millis() + 1000, claims.getExpiresAt());
+        assertNull(tokenService.verify(tokenService.newToken(1L, null)).orElseThrow().getLobbyId());
+    }
+
+    @Test
+    public void verify_sameSecret_acceptedByOtherServer() {
+        String token = new TokenService(true, "secret", 1000, clock).newToken(1L, null);
+
+        assertTrue(new TokenService(true, "secret", 1000, clock).verify(token).isPresent());
+        assertTrue(new TokenService(true, "otherSecret", 1000, clock).verify(token).isEmpty());
+    }
+
+    @Test
+    public void verify_expiredToken_rejected() {
+        String token = new TokenService(true, "secret", 1000, clock).newToken(1L, null);
+
+        Clock later = Clock.offset(clock, Duration.ofMillis(1000));
+
+        assertTrue(new TokenService(true, "secret", 1000, later).verify(token).isEmpty());
+    }
+
+    @Test
+    public void verify_malformedToken_rejected() {
+        TokenService tokenService = new TokenService(true, "secret", 1000, clock);
+        String token = tokenService.newToken(1L, null);
+
+        assertTrue(tokenService.verify("s1.").isEmpty());
+        assertTrue(tokenService.verify("s1.abc").isEmpty());
+        assertTrue(tokenService.verify("s1.!!!.???").isEmpty());
+        assertTrue(tokenService.verify(token.substring(0, token.length() - 1)).isEmpty());
+        assertTrue(tokenService.verify(null).isEmpty());
+    }
+}
@@ -7,9 +7,8 @@ import ch.uzh.ifi.seal.soprafs20.entity.Player;
 import ch.uzh.ifi.seal.soprafs20.entity.User;
 import ch.uzh.ifi.seal.soprafs20.exceptions.*;
 import ch.uzh.ifi.seal.soprafs20.repository.UserRepository;
-import ch.uzh.ifi.seal.soprafs20.rest.dto.FriendPutDTO;
 import ch.uzh.ifi.seal.soprafs20.rest.dto.LobbyAcceptancePutDTO;
-import ch.uzh.ifi.seal.soprafs20.rest.dto.RequestPutDTO;
+import ch.uzh.ifi.seal.soprafs20.rest.dto.UserGetDTO;
 import ch.uzh.ifi.seal.soprafs20.rest.dto.UserPutDTO;
 import com.fasterxml.jackson.core.JsonParseException;
 import org.junit.jupiter.api.BeforeEach;
@@ -18,9 +17,13 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.data.domain.PageRequest;
 
 import java.text.ParseException;
+import java.time.Clock;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -30,6 +33,18 @@ public class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private LeaderboardService leaderboardService;
+
+    @Mock
+    private PresenceService presenceService;
+
+    @Mock
+    private SessionRegistry sessionRegistry;
+
+    @Spy
+    private TokenService tokenService = new TokenService(false, "", 1000, Clock.systemUTC());
+
     @InjectMocks
     private UserService userService;
     @InjectMocks
@@ -114,6 +129,8 @@ public class UserServiceTest {
         userService.loginUser(testUser);
 
         assertEquals(UserStatus.ONLINE, testUser.getStatus());
+        Mockito.verify(presenceService).connected(testUser.getId());
+        Mockito.verify(sessionRegistry).register(testUser.getToken(), testUser.getId());
     }
 
     @Test
@@ -151,13 +168,39 @@ public class UserServiceTest {
         userService.logoutUser(testUser);
         assertEquals(UserStatus.OFFLINE, testUser.getStatus());
         assertNull(testUser.getToken());
+        Mockito.verify(presenceService).disconnected(testUser.getId());
+        Mockito.verify(sessionRegistry).invalidate(testUser.getId());
+    }
+
+    @Test
+    public void logoutUser_userIsLoggedOut_throwsException() {
+        User loggedOut = new User();
+        loggedOut.setId(1L);
+        loggedOut.setStatus(UserStatus.OFFLINE);
+        User request = new User();
+        request.setId(1L);
+        request.setToken("testToken");
+        Mockito.when(userRepository.findById(Mockito.any())).thenReturn(java.util.Optional.of(loggedOut));
+
+        assertThrows(UnauthorizedException.class, () -> userService.logoutUser(request));
     }
 
     @Test
-    public void logoutUser_userIsOffline_throwsException() {
+    public void logoutUser_sessionExpired_success() {
         testUser.setStatus(UserStatus.OFFLINE);
+        Mockito.when(userRepository.findByUsername(Mockito.any())).thenReturn(testUser);
+        User loggedIn = userService.loginUser(testUser);
+        User request = new User();
+        request.setId(loggedIn.getId());
+        request.setToken(loggedIn.getToken());
+        // the presence service sets the user offline after its timeout and keeps the token
+        loggedIn.setStatus(UserStatus.OFFLINE);
 
-        assertThrows(UnauthorizedException.class, () -> userService.logoutUser(testUser));
+        userService.logoutUser(request);
+
+        assertNull(testUser.getToken());
+        Mockito.verify(presenceService).disconnected(testUser.getId());
+        Mockito.verify(sessionRegistry).invalidate(testUser.getId());
     }
 
     @Test
@@ -256,158 +299,6 @@ public class UserServiceTest {
         assertEquals(testUser.getUsername(), "testname");
     }
 
-    @Test
-    public void addFriendRequest_validInput_success() {
-        User testUser2 = new User();
-        testUser2.setId(2L);
-        testUser2.setToken("testToken2");
-
-        RequestPutDTO requestPutDTO = new RequestPutDTO();
-        requestPutDTO.setSenderID(2L);
-        requestPutDTO.setToken("testToken2");
-
-        Mockito.when(userRepository.findByUsername(Mockito.any())).thenReturn(testUser);
-        Mockito.when(userRepository.findById(Mockito.any())).thenReturn(java.util.Optional.ofNullable(testUser2));
-        userService.addFriendRequest(testUser, requestPutDTO);
-
-        assertTrue(testUser.getFriendRequests().contains(testUser2));
-        assertFalse(testUser2.getFriendRequests().contains(testUser));
-    }
-
-    @Test
-    public void addFriendRequest_alreadyAdded_throwsException() {
-        User testUser2 = new User();
-        testUser2.setId(2L);
-        testUser2.setToken("testToken2");
-
-        RequestPutDTO requestPutDTO = new RequestPutDTO();
-        requestPutDTO.setSenderID(2L);
-        requestPutDTO.setToken("testToken2");
-
-        testUser.setFriendRequests(testUser2);
-
-        Mockito.when(userRepository.findByUsername(Mockito.any())).thenReturn(testUser);
-        Mockito.when(userRepository.findById(Mockito.any())).thenReturn(java.util.Optional.ofNullable(testUser2));
-
-        assertThrows(NoContentException.class, () -> userService.addFriendRequest(testUser, requestPutDTO));
-        assertTrue(testUser.getFriendRequests().contains(testUser2));
-    }
-
-    @Test
-    public void addFriendRequest_invalidToken_throwsException() {
-        User testUser2 = new User();
-        testUser2.setId(2L);
-        testUser2.setToken("testToken2");
-
-        RequestPutDTO requestPutDTO = new RequestPutDTO();
-        requestPutDTO.setSenderID(2L);
-        requestPutDTO.setToken("wrongToken");
-
-        Mockito.when(userRepository.findByUsername(Mockito.any())).thenReturn(testUser);
-        Mockito.when(userRepository.findById(Mockito.any())).thenReturn(java.util.Optional.ofNullable(testUser2));
-
-        assertThrows(UnauthorizedException.class, () -> userService.addFriendRequest(testUser, requestPutDTO));
-        assertFalse(testUser.getFriendRequests().contains(testUser2));
-    }
-
-   @Test
-   public void addFriendRequest_userNotFound_throwsException() {
-       RequestPutDTO requestPutDTO = new RequestPutDTO();
-       requestPutDTO.setSenderID(2L);
-       requestPutDTO.setToken("testToken2");
-
-       Mockito.when(userRepository.findByUsername(Mockito.any())).thenReturn(null);
-
-       assertThrows(NotFoundException.class, () -> userService.addFriendRequest(testUser, requestPutDTO));
-   }
-
-    @Test
-    public void acceptFriendRequest_validInput_success() {
-        User testUser2 = new User();
-        testUser2.setId(2L);
-        testUser2.setToken("testToken2");
-
-        testUser.setFriendRequests(testUser2);
-
-        FriendPutDTO friendPutDTO = new FriendPutDTO();
-        friendPutDTO.setAccepted(true);
-        friendPutDTO.setAccepterToken(testUser.getToken());
-        friendPutDTO.setRequesterID(testUser2.getId());
-
-        Mockito.when(userRepository.findByUsername(Mockito.any())).thenReturn(testUser);
-        Mockito.when(userRepository.findById(Mockito.any())).thenReturn(java.util.Optional.ofNullable(testUser2));
-
-        userService.acceptOrDeclineFriendRequest(testUser, friendPutDTO);
-
-        assertTrue(testUser.getFriendList().contains(testUser2));
-        assertTrue(testUser2.getFriendList().contains(testUser));
-        assertFalse(testUser.getFriendRequests().contains(testUser2));
-    }
-
-    @Test
-    public void declineFriendRequest_validInput_success() {
-        User testUser2 = new User();
-        testUser2.setId(2L);
-        testUser2.setToken("testToken2");
-
-        testUser.setFriendRequests(testUser2);
-
-        FriendPutDTO friendPutDTO = new FriendPutDTO();
-        friendPutDTO.setAccepted(false);
-        friendPutDTO.setAccepterToken(testUser.getToken());
-        friendPutDTO.setRequesterID(testUser2.getId());
-
-        Mockito.when(userRepository.findByUsername(Mockito.any())).thenReturn(testUser);
-        Mockito.when(userRepository.findById(Mockito.any())).thenReturn(java.util.Optional.ofNullable(testUser2));
-
-        userService.acceptOrDeclineFriendRequest(testUser, friendPutDTO);
-
-        assertFalse(testUser.getFriendList().contains(testUser2));
-        assertFalse(testUser2.getFriendList().contains(testUser));
-        assertFalse(testUser.getFriendRequests().contains(testUser2));
-    }
-
-    @Test
-    public void declineFriendRequest_validInput_unauthorizedUser() {
-        User testUser2 = new User();
-        testUser2.setId(2L);
-        testUser2.setToken("testToken2");
-
-        testUser.setFriendRequests(testUser2);
-
-        FriendPutDTO friendPutDTO = new FriendPutDTO();
-        friendPutDTO.setAccepted(false);
-        friendPutDTO.setAccepterToken("WrongToken");
-        friendPutDTO.setRequesterID(testUser2.getId());
-
-        Mockito.when(userRepository.findByUsername(Mockito.any())).thenReturn(testUser);
-        Mockito.when(userRepository.findById(Mockito.any())).thenReturn(java.util.Optional.ofNullable(testUser2));
-
-
-
-        assertThrows(UnauthorizedException.class,() ->{userService.acceptOrDeclineFriendRequest(testUser, friendPutDTO);});
-        assertFalse(testUser.getFriendList().contains(testUser2));
-        assertFalse(testUser2.getFriendList().contains(testUser));
-        assertFalse(testUser.getFriendRequests().isEmpty());
-    }
-
-    @Test
-    public void handleFriendRequest_invalidInput_throwsException() {
-        FriendPutDTO friendPutDTO = new FriendPutDTO();
-        friendPutDTO.setAccepted(false);
-        friendPutDTO.setAccepterToken("testToken");
-        friendPutDTO.setRequesterID(5L);
-
-        User testUser2 = new User();
-        testUser2.setId(2L);
-        testUser2.setToken("anyToken");
-
-        Mockito.when(userRepository.findByUsername(Mockito.any())).thenReturn(testUser);
-        Mockito.when(userRepository.findById(Mockito.any())).thenReturn(java.util.Optional.ofNullable(testUser2));
-
-        assertThrows(NotFoundException.class, () -> userService.acceptOrDeclineFriendRequest(testUser, friendPutDTO));
-    }
-
     @Test
     public void handleLobbyInvite_accepted_success() {
         Lobby lobby = new Lobby();
@@ -547,4 +438,22 @@ public class UserServiceTest {
         assertDoesNotThrow(() -> userService.checkAvatarColor(someColor));
     }
 
+
+    @Test
+    public void getUsers_firstPage_success() {
+        UserGetDTO userGetDTO = new UserGetDTO();
+        userGetDTO.setId(1L);
+        Mockito.when(userRepository.findUsersAfter(Mockito.eq(Long.MIN_VALUE), Mockito.any())).thenReturn(List.of(userGetDTO));
+
+        List<UserGetDTO> users = userService.getUsers(null, 20);
+
+        assertEquals(1, users.size());
+        Mockito.verify(userRepository).findUsersAfter(Long.MIN_VALUE, PageRequest.of(0, 20));
+        Mockito.verify(userRepository, Mockito.never()).findAll();
+    }
+
+    @Test
+    public void getUsers_invalidSize_throwsException() {
+        assertThrows(BadRequestException.class, () -> userService.getUsers(5L, 0));
+    }
 }